@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with 1, 8 and 64 threads, with the GC profiler to report the allocation rate. The results of
+ * each run are written to jmh-result-&lt;threads&gt;t.json.
+ *
+ * Usage: java -jar benchmarks.jar [benchmark regexp]
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class BenchmarkRunner {
+
+    private static final int[] THREAD_COUNTS = { 1, 8, 64 };
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main( String[] args )
+        throws RunnerException {
+        // some benchmarks live in the package of the classes they measure
+        String include = args.length > 0 ? args[0] : "com.tibco.loglogic.logging.*Benchmark";
+        for ( int threads : THREAD_COUNTS ) {
+            Options options = new OptionsBuilder().include( include )
+                                                  .threads( threads )
+                                                  .forks( 1 )
+                                                  .warmupIterations( 5 )
+                                                  .measurementIterations( 5 )
+                                                  .addProfiler( GCProfiler.class )
+                                                  .resultFormat( ResultFormatType.JSON )
+                                                  .result( "jmh-result-" + threads + "t.json" )
+                                                  .build();
+            new Runner( options ).run();
+        }
+    }
+}
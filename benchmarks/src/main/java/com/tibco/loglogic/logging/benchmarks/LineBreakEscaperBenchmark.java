@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tibco.loglogic.logging.forwarders.shared.LineBreakEscaper;
+
+/**
+ * Escaping of CR/LF for non-transparent framing: the former String.replace chain against the single-pass escaper
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class LineBreakEscaperBenchmark {
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    @Param({ "100", "4000" })
+    public int bodyLength;
+
+    @Param({ "false", "true" })
+    public boolean withLineBreaks;
+
+    private String body;
+
+    private byte[] encoded;
+
+    private byte[] work;
+
+    private ByteBuffer view;
+
+    @Setup
+    public void setup() {
+        body = Messages.body( bodyLength, withLineBreaks );
+        encoded = body.getBytes( UTF8 );
+        work = new byte[encoded.length * 2];
+        view = ByteBuffer.wrap( work );
+    }
+
+    @Benchmark
+    public byte[] replaceChain() {
+        return ( body.replace( "\r", "\\r" ).replace( "\n", "\\n" ) + "\n" ).getBytes( UTF8 );
+    }
+
+    @Benchmark
+    public String escapeString() {
+        return LineBreakEscaper.escape( body );
+    }
+
+    @Benchmark
+    public int escapeBytes() {
+        System.arraycopy( encoded, 0, work, 0, encoded.length );
+        int lineBreaks = LineBreakEscaper.countLineBreaks( view, 0, encoded.length );
+        if ( lineBreaks == 0 ) {
+            return encoded.length;
+        }
+        return LineBreakEscaper.escapeInPlace( work, 0, encoded.length, lineBreaks );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tibco.loglogic.logging.LmiLogEvent;
+
+/**
+ * Cost of building LmiLogEvent messages with chains of key/value pairs
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LmiLogEventBenchmark {
+
+    private InetAddress sourceIp;
+
+    private long counter;
+
+    @Setup
+    public void setup()
+        throws UnknownHostException {
+        sourceIp = InetAddress.getByName( "10.11.12.13" );
+    }
+
+    @Benchmark
+    public String shortChain() {
+        LmiLogEvent event = new LmiLogEvent( "Failed Login", "sshd:failure" );
+        event.setTargetUser( "joe" );
+        event.addKVP( "attempt", counter++ );
+        return event.toString();
+    }
+
+    @Benchmark
+    public String longChain() {
+        LmiLogEvent event = new LmiLogEvent( "Transfer", "bank:transfer" );
+        event.setSourceIP( sourceIp );
+        event.setBytesReceived( 456 );
+        event.addKVP( "account", "FR76 3000 6000 0112 3456 7890 189" );
+        event.addKVP( "amount", 1234567.89 );
+        event.addKVP( "currency", "EUR" );
+        event.addKVP( "approved", true );
+        event.addKVP( "channel", 'W' );
+        event.addKVP( "sequence", counter++ );
+        event.addKVP( "branch", 42 );
+        event.addKVP( "comment", "Contains \" quotes and \\ slashes" );
+        return event.toString();
+    }
+}
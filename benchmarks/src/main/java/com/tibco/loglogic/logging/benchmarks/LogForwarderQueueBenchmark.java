@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Cost of the LogForwarder retry queue when several threads enqueue and dequeue. Calls are serialized the same way
+ * the logging frameworks serialize calls to an appender.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogForwarderQueueBenchmark {
+
+    /**
+     * Gives access to the queue of a forwarder that never sends anything
+     */
+    static final class QueueProbe
+        extends LogForwarder {
+
+        QueueProbe( long maxQueueSize ) {
+            super( settings( maxQueueSize ) );
+        }
+
+        private static SyslogTcpForwarderSettings settings( long maxQueueSize ) {
+            SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+            settings.setMaxQueueSize( maxQueueSize );
+            return settings;
+        }
+
+        synchronized void offer( SyslogMessage syslogMessage ) {
+            enqueue( syslogMessage );
+        }
+
+        synchronized SyslogMessage poll() {
+            return dequeue();
+        }
+
+        @Override
+        protected void initializeConnection() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage )
+            throws IOException {
+            throw new IOException( "not connected" );
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedQueue {
+
+        @Param({ "500KB", "5MB" })
+        public String maxQueueSize;
+
+        QueueProbe probe;
+
+        @Setup
+        public void setup() {
+            SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+            settings.setMaxQueueSize( maxQueueSize );
+            probe = new QueueProbe( settings.getMaxQueueSize() );
+            // start half full, so that both eviction and dequeue paths are exercised
+            SyslogMessage filler = Messages.syslogMessage( Messages.body( 200, false ) );
+            while ( probe.getQueueSizeInBytes() < settings.getMaxQueueSize() / 2 ) {
+                probe.offer( filler );
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+
+        SyslogMessage syslogMessage;
+
+        @Setup
+        public void setup() {
+            syslogMessage = Messages.syslogMessage( Messages.body( 200, false ) );
+        }
+    }
+
+    @Benchmark
+    public SyslogMessage enqueueDequeue( SharedQueue sharedQueue, Producer producer ) {
+        sharedQueue.probe.offer( producer.syslogMessage );
+        return sharedQueue.probe.poll();
+    }
+
+    @Benchmark
+    public void enqueueWithEviction( SharedQueue sharedQueue, Producer producer ) {
+        sharedQueue.probe.offer( producer.syslogMessage );
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Builds the messages used by the benchmarks
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class Messages {
+
+    private Messages() {
+    }
+
+    /**
+     * Build a JSON-like log line of about the given length
+     *
+     * @param length the length of the body
+     * @param withLineBreaks whether the body contains CR/LF to escape
+     * @return the body
+     */
+    public static String body( int length, boolean withLineBreaks ) {
+        StringBuilder stringBuilder = new StringBuilder( length + 32 );
+        int field = 0;
+        stringBuilder.append( '{' );
+        while ( stringBuilder.length() < length ) {
+            stringBuilder.append( "\"field" ).append( field ).append( "\":\"value " ).append( field ).append( "\"," );
+            if ( withLineBreaks && field % 8 == 7 ) {
+                stringBuilder.append( "\r\n" );
+            }
+            field++;
+        }
+        stringBuilder.append( '}' );
+        return stringBuilder.toString();
+    }
+
+    public static SyslogMessage syslogMessage( String body ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setTimestamp( System.currentTimeMillis() );
+        syslogMessage.setSource( "benchmark-host" );
+        syslogMessage.setAppName( "benchmark-app" );
+        syslogMessage.setProcId( "1234" );
+        syslogMessage.setFacility( 16 );
+        syslogMessage.setMessage( body );
+        return syslogMessage;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogHeaderTemplate;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Cost of rendering a SyslogMessage, see FrameEncoderBenchmark for the framing and encoding written on the wire
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SyslogMessageBenchmark {
+
+    @Param({ "100", "2000" })
+    public int bodyLength;
+
+    @Param({ "false", "true" })
+    public boolean withLineBreaks;
+
+    private SyslogMessage syslogMessage;
+
+    private SyslogMessage templatedMessage;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        body = Messages.body( bodyLength, withLineBreaks );
+        syslogMessage = Messages.syslogMessage( body );
+        syslogMessage.setSeverity( Severity.WARNING );
+        templatedMessage = Messages.syslogMessage( body );
+        templatedMessage.setSeverity( Severity.WARNING );
+        templatedMessage.setHeaderTemplate( new SyslogHeaderTemplate( "benchmark-host", 16, "benchmark-app" ) );
+    }
+
+    /**
+     * RFC 5424 rendering only
+     */
+    @Benchmark
+    public String toStringOnly() {
+        // modifying the body drops the rendering kept by the message
+        syslogMessage.setMessage( body );
+        return syslogMessage.toString();
+    }
+
+    /**
+     * RFC 5424 rendering of a message stamped by a forwarder, with its precomputed header parts
+     */
+    @Benchmark
+    public String toStringWithTemplate() {
+        templatedMessage.setMessage( body );
+        return templatedMessage.toString();
+    }
+}
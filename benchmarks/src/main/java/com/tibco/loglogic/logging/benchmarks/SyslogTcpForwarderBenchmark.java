@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * End-to-end cost of forwarding events over syslog TCP to a local server discarding what it receives
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SyslogTcpForwarderBenchmark {
+
+    /**
+     * Reads and discards everything sent on any number of connections
+     */
+    static final class SinkServer
+        extends Thread {
+
+        private final ServerSocket serverSocket;
+
+        SinkServer()
+            throws IOException {
+            super( "benchmark-sink" );
+            serverSocket = new ServerSocket( 0 );
+            setDaemon( true );
+            start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            for ( ;; ) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                }
+                catch ( IOException e ) {
+                    return;
+                }
+                Thread reader = new Thread( "benchmark-sink-reader" ) {
+                    @Override
+                    public void run() {
+                        byte[] buffer = new byte[64 * 1024];
+                        try {
+                            InputStream in = socket.getInputStream();
+                            while ( in.read( buffer ) >= 0 ) {
+                                // discard
+                            }
+                        }
+                        catch ( IOException ignored ) {
+                        }
+                    }
+                };
+                reader.setDaemon( true );
+                reader.start();
+            }
+        }
+
+        void shutdown()
+            throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sink {
+
+        SinkServer sinkServer;
+
+        @Setup(Level.Trial)
+        public void setup()
+            throws IOException {
+            sinkServer = new SinkServer();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+            throws IOException {
+            sinkServer.shutdown();
+        }
+    }
+
+    private static SyslogTcpForwarderSettings settings( Sink sink ) {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( sink.sinkServer.getPort() );
+        settings.setAppName( "benchmark-app" );
+        settings.setSource( "benchmark-host" );
+        return settings;
+    }
+
+    /**
+     * One forwarder and connection per benchmark thread, as many appenders logging at once
+     */
+    @State(Scope.Thread)
+    public static class Connection {
+
+        @Param({ "false", "true" })
+        public boolean useOctetCounting;
+
+        LogForwarder forwarder;
+
+        @Setup(Level.Trial)
+        public void setup( Sink sink )
+            throws IOException {
+            SyslogTcpForwarderSettings settings = settings( sink );
+            settings.setUseOctetCounting( useOctetCounting );
+            forwarder = SyslogTcpForwarder.create( settings );
+            forwarder.connect();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+            throws Exception {
+            forwarder.close();
+        }
+    }
+
+    /**
+     * One pool of connections shared by all the benchmark threads
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({ "2", "4" })
+        public int connectionPoolSize;
+
+        LogForwarder forwarder;
+
+        @Setup(Level.Trial)
+        public void setup( Sink sink )
+            throws IOException {
+            SyslogTcpForwarderSettings settings = settings( sink );
+            settings.setConnectionPoolSize( connectionPoolSize );
+            forwarder = SyslogTcpForwarder.create( settings );
+            forwarder.connect();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+            throws Exception {
+            forwarder.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SingleWriterConnection {
+
+        LogForwarder forwarder;
+
+        @Setup(Level.Trial)
+        public void setup( Sink sink )
+            throws IOException {
+            forwarder = new SingleWriterForwarder( SyslogTcpForwarder.create( settings( sink ) ) );
+            forwarder.connect();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+            throws Exception {
+            forwarder.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+
+        @Param({ "200", "4000" })
+        public int bodyLength;
+
+        String body;
+
+        SyslogMessage syslogMessage;
+
+        @Setup
+        public void setup() {
+            body = Messages.body( bodyLength, false );
+            syslogMessage = Messages.syslogMessage( body );
+        }
+    }
+
+    /**
+     * Forward without flushing, letting the output buffer fill up
+     */
+    @Benchmark
+    public void forwardBuffered( Connection connection, Producer producer ) {
+        producer.syslogMessage.setMessage( producer.body );
+        // not contended, the forwarder belongs to this thread
+        connection.forwarder.getLock().lock();
+        try {
+            connection.forwarder.forwardEvent( producer.syslogMessage, false );
+        }
+        finally {
+            connection.forwarder.getLock().unlock();
+        }
+    }
+
+    /**
+     * Forward and flush every event, as the appenders do
+     */
+    @Benchmark
+    public void forwardFlushed( Connection connection, Producer producer ) {
+        producer.syslogMessage.setMessage( producer.body );
+        connection.forwarder.getLock().lock();
+        try {
+            connection.forwarder.forwardEvent( producer.syslogMessage, true );
+        }
+        finally {
+            connection.forwarder.getLock().unlock();
+        }
+    }
+
+    /**
+     * Forward and flush every event from all the threads at once through a pool, which only serializes the threads
+     * picking the same connection
+     */
+    @Benchmark
+    public void forwardPooled( Pool pool, Producer producer ) {
+        producer.syslogMessage.setMessage( producer.body );
+        pool.forwarder.forwardEvent( producer.syslogMessage, true );
+    }
+
+    /**
+     * Forward from all the threads at once, each event being handed to the writer thread. Events dropped when the
+     * writer falls behind are counted as forwarded.
+     */
+    @Benchmark
+    public void forwardSingleWriter( SingleWriterConnection connection, Producer producer ) {
+        // the event is owned by the writer once handed off, it cannot be reused
+        connection.forwarder.forwardEvent( Messages.syslogMessage( producer.body ), true );
+    }
+}
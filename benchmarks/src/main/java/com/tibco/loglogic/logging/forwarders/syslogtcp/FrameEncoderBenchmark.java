@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tibco.loglogic.logging.benchmarks.Messages;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Cost of rendering, escaping, framing and encoding a message as the syslog TCP forwarder writes it. In this package
+ * as the frame encoders are not public.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameEncoderBenchmark {
+
+    @Param({ "100", "2000" })
+    public int bodyLength;
+
+    @Param({ "false", "true" })
+    public boolean withLineBreaks;
+
+    private SyslogMessage syslogMessage;
+
+    private String body;
+
+    private final FrameEncoder nonTransparent = new NonTransparentFrameEncoder();
+
+    private final FrameEncoder octetCounting = new OctetCountingFrameEncoder();
+
+    // reused, as the buffered stream of a connection
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream( 16 * 1024 );
+
+    @Setup
+    public void setup() {
+        body = Messages.body( bodyLength, withLineBreaks );
+        syslogMessage = Messages.syslogMessage( body );
+        syslogMessage.setSeverity( Severity.WARNING );
+    }
+
+    /**
+     * Non-transparent framing, as done by the forwarder by default
+     */
+    @Benchmark
+    public int nonTransparentFrame()
+        throws IOException {
+        // modifying the body drops the rendering kept by the message
+        syslogMessage.setMessage( body );
+        out.reset();
+        return nonTransparent.writeFrame( syslogMessage.toString(), out );
+    }
+
+    /**
+     * Octet-counting framing, as done by the forwarder with useOctetCounting
+     */
+    @Benchmark
+    public int octetCountingFrame()
+        throws IOException {
+        syslogMessage.setMessage( body );
+        out.reset();
+        return octetCounting.writeFrame( syslogMessage.toString(), out );
+    }
+
+    /**
+     * Baseline: the String.replace chain and getBytes the forwarder used before the frame encoders
+     */
+    @Benchmark
+    public int replaceAndGetBytesBaseline()
+        throws UnsupportedEncodingException {
+        syslogMessage.setMessage( body );
+        String currentMessage = syslogMessage.toString().replace( "\r", "\\r" ).replace( "\n", "\\n" ) + "\n";
+        byte[] frame = currentMessage.getBytes( "UTF8" );
+        out.reset();
+        out.write( frame, 0, frame.length );
+        return frame.length;
+    }
+}
@@ -11,6 +11,7 @@ import org.apache.log4j.Layout;
 import org.apache.log4j.Level;
 import org.apache.log4j.spi.LoggingEvent;
 
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderRegistry;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
@@ -52,8 +53,8 @@ public abstract class LogAppender
 
         try {
             if ( forwarder == null ) {
-                forwarder = createForwarder();
-                forwarder.connect();
+                // shared with the appenders having the same settings, connecting in the background
+                forwarder = ForwarderRegistry.acquire( this.name, createForwarder() );
             }
         }
         catch ( Exception e ) {
@@ -110,14 +111,23 @@ public abstract class LogAppender
 
         syslogMessage.setMessage( formatted );
 
-        forwarder.forwardEvent( syslogMessage, true );
+        syslogMessage.setLoggerName( event.getLoggerName() );
+
+        // the forwarder sends its queue from its connecting thread
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
     }
 
     synchronized public void close() {
         closed = true;
         if ( forwarder != null ) {
             try {
-                forwarder.close();
+                ForwarderRegistry.release( forwarder );
                 forwarder = null;
             }
             catch ( Exception e ) {
@@ -156,4 +166,100 @@ public abstract class LogAppender
         return getSettings().isRawMode();
     }
 
+    public boolean getPriorityLanes() {
+        return getSettings().isPriorityLanes();
+    }
+
+    public void setPriorityLanes( boolean priorityLanes ) {
+        getSettings().setPriorityLanes( priorityLanes );
+    }
+
+    public String getPriorityLaneWeights() {
+        return getSettings().getPriorityLaneWeights();
+    }
+
+    public void setPriorityLaneWeights( String priorityLaneWeights ) {
+        getSettings().setPriorityLaneWeights( priorityLaneWeights );
+    }
+
+    public String getPriorityLaneQuotas() {
+        return getSettings().getPriorityLaneQuotas();
+    }
+
+    public void setPriorityLaneQuotas( String priorityLaneQuotas ) {
+        getSettings().setPriorityLaneQuotas( priorityLaneQuotas );
+    }
+
+    public int getRateLimit() {
+        return getSettings().getRateLimit();
+    }
+
+    public void setRateLimit( int rateLimit ) {
+        getSettings().setRateLimit( rateLimit );
+    }
+
+    public int getRateLimitBurst() {
+        return getSettings().getRateLimitBurst();
+    }
+
+    public void setRateLimitBurst( int rateLimitBurst ) {
+        getSettings().setRateLimitBurst( rateLimitBurst );
+    }
+
+    public String getRateLimitKey() {
+        return getSettings().getRateLimitKey().name();
+    }
+
+    public void setRateLimitKey( String rateLimitKey ) {
+        getSettings().setRateLimitKey( rateLimitKey );
+    }
+
+    public String getSamplingThreshold() {
+        return Long.toString( getSettings().getSamplingThreshold() );
+    }
+
+    public void setSamplingThreshold( String samplingThreshold ) {
+        getSettings().setSamplingThreshold( samplingThreshold );
+    }
+
+    public long getSummaryInterval() {
+        return getSettings().getSummaryInterval();
+    }
+
+    public void setSummaryInterval( long summaryInterval ) {
+        getSettings().setSummaryInterval( summaryInterval );
+    }
+
+    public long getDedupeWindow() {
+        return getSettings().getDedupeWindow();
+    }
+
+    public void setDedupeWindow( long dedupeWindow ) {
+        getSettings().setDedupeWindow( dedupeWindow );
+    }
+
+    public int getDedupeTableSize() {
+        return getSettings().getDedupeTableSize();
+    }
+
+    public void setDedupeTableSize( int dedupeTableSize ) {
+        getSettings().setDedupeTableSize( dedupeTableSize );
+    }
+
+    public String getThreadType() {
+        return getSettings().getThreadType().name();
+    }
+
+    public void setThreadType( String threadType ) {
+        getSettings().setThreadType( threadType );
+    }
+
+    public String getSourceFallback() {
+        return getSettings().getSourceFallback().name();
+    }
+
+    public void setSourceFallback( String sourceFallback ) {
+        getSettings().setSourceFallback( sourceFallback );
+    }
+
 }
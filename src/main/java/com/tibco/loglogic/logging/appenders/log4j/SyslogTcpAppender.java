@@ -28,7 +28,7 @@ public class SyslogTcpAppender
 
     @Override
     protected LogForwarder createForwarder() {
-        return new SyslogTcpForwarder( settings );
+        return SyslogTcpForwarder.create( settings );
     }
 
     public String getHost() {
@@ -146,4 +146,80 @@ public class SyslogTcpAppender
         getSettings().setSoTimeout( soTimeout );
     }
 
+    public int getConnectionPoolSize() {
+        return getSettings().getConnectionPoolSize();
+    }
+
+    public void setConnectionPoolSize( int connectionPoolSize ) {
+        getSettings().setConnectionPoolSize( connectionPoolSize );
+    }
+
+    public String getConnectionPoolDistribution() {
+        return getSettings().getConnectionPoolDistribution().name();
+    }
+
+    public void setConnectionPoolDistribution( String connectionPoolDistribution ) {
+        getSettings().setConnectionPoolDistribution( connectionPoolDistribution );
+    }
+
+    public void setDestinations( String destinations ) {
+        getSettings().setDestinations( destinations );
+    }
+
+    public String getBalancingStrategy() {
+        return getSettings().getBalancingStrategy().name();
+    }
+
+    public void setBalancingStrategy( String balancingStrategy ) {
+        getSettings().setBalancingStrategy( balancingStrategy );
+    }
+
+    public int getEjectAfterFailures() {
+        return getSettings().getEjectAfterFailures();
+    }
+
+    public void setEjectAfterFailures( int ejectAfterFailures ) {
+        getSettings().setEjectAfterFailures( ejectAfterFailures );
+    }
+
+    public long getHealthCheckInterval() {
+        return getSettings().getHealthCheckInterval();
+    }
+
+    public void setHealthCheckInterval( long healthCheckInterval ) {
+        getSettings().setHealthCheckInterval( healthCheckInterval );
+    }
+
+    public boolean isHotStandby() {
+        return getSettings().isHotStandby();
+    }
+
+    public void setHotStandby( boolean hotStandby ) {
+        getSettings().setHotStandby( hotStandby );
+    }
+
+    public void setStandbyDestination( String standbyDestination ) {
+        getSettings().setStandbyDestination( standbyDestination );
+    }
+
+    public boolean isAtLeastOnce() {
+        return getSettings().isAtLeastOnce();
+    }
+
+    public void setAtLeastOnce( boolean atLeastOnce ) {
+        getSettings().setAtLeastOnce( atLeastOnce );
+    }
+
+    public void setReplayBufferSize( String replayBufferSize ) {
+        getSettings().setReplayBufferSize( replayBufferSize );
+    }
+
+    public String getUnixSocketPath() {
+        return getSettings().getUnixSocketPath();
+    }
+
+    public void setUnixSocketPath( String unixSocketPath ) {
+        getSettings().setUnixSocketPath( unixSocketPath );
+    }
+
 }
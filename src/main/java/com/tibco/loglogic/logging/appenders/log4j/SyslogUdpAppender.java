@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.appenders.log4j;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarderSettings;
+
+/**
+ * Log4j Appender for sending logs using Syslog UDP, where losing events is acceptable
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SyslogUdpAppender
+    extends LogAppender {
+
+    private SyslogUdpForwarderSettings settings = new SyslogUdpForwarderSettings();
+
+    @Override
+    protected SyslogUdpForwarderSettings getSettings() {
+        return settings;
+    }
+
+    @Override
+    protected LogForwarder createForwarder() {
+        return new SyslogUdpForwarder( settings );
+    }
+
+    public String getHost() {
+        return settings.getHost();
+    }
+
+    public void setHost( String host ) {
+        settings.setHost( host );
+    }
+
+    public int getPort() {
+        return settings.getPort();
+    }
+
+    public void setPort( int port ) {
+        settings.setPort( port );
+    }
+
+    public void setSource( String source ) {
+        getSettings().setSource( source );
+    }
+
+    public int getMaxDatagramSize() {
+        return getSettings().getMaxDatagramSize();
+    }
+
+    public void setMaxDatagramSize( int maxDatagramSize ) {
+        getSettings().setMaxDatagramSize( maxDatagramSize );
+    }
+
+    public int getStagingRingSize() {
+        return getSettings().getStagingRingSize();
+    }
+
+    public void setStagingRingSize( int stagingRingSize ) {
+        getSettings().setStagingRingSize( stagingRingSize );
+    }
+
+}
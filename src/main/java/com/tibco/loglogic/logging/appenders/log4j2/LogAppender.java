@@ -6,9 +6,7 @@
 package com.tibco.loglogic.logging.appenders.log4j2;
 
 import java.io.Serializable;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Filter;
@@ -17,36 +15,51 @@ import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.appender.AppenderLoggingException;
 
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderRegistry;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
 
 /**
  * Log4j 2.x Appender generic base
  *
+ * Log4j 2 calls the appender concurrently from the logging threads: each one renders its events, then hands them to
+ * a single writer thread which owns the connection.
+ *
  * @author lpautet@tibco.com
  *
  */
 public abstract class LogAppender
     extends AbstractAppender {
 
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
-
-    private final Lock readLock = rwLock.readLock();
-
     private final LogForwarder forwarder;
 
+    private final AtomicBoolean released = new AtomicBoolean();
+
     protected LogAppender( String name, Filter filter, Layout<? extends Serializable> layout,
                            final boolean ignoreExceptions, LogForwarderSettings settings, LogForwarder forwarder )
         throws Exception {
         super( name, filter, layout, ignoreExceptions );
-        this.forwarder = forwarder;
-        forwarder.connect();
+        // shared with the appenders having the same settings, events are queued until connected
+        this.forwarder = ForwarderRegistry.acquire( name, new SingleWriterForwarder( forwarder ) );
+    }
+
+    @Override
+    public void stop() {
+        // released once, another appender may still use it
+        if ( released.compareAndSet( false, true ) ) {
+            try {
+                ForwarderRegistry.release( forwarder );
+            }
+            catch ( Exception ignored ) {
+            }
+        }
+        super.stop();
     }
 
     public void append( LogEvent event ) {
-        readLock.lock();
         try {
             Layout layout = getLayout();
             final byte[] bytes = layout.toByteArray( event );
@@ -77,6 +90,12 @@ public abstract class LogAppender
 
             syslogMessage.setMessage( new String( bytes ) );
 
+            syslogMessage.setLoggerName( event.getLoggerName() );
+
+            if ( event.getMessage() != null ) {
+                syslogMessage.setMessageTemplate( event.getMessage().getFormat() );
+            }
+
             forwarder.forwardEvent( syslogMessage, true );
         }
         catch ( Exception ex ) {
@@ -84,9 +103,6 @@ public abstract class LogAppender
                 throw new AppenderLoggingException( ex );
             }
         }
-        finally {
-            readLock.unlock();
-        }
     }
 
 }
\ No newline at end of file
@@ -31,7 +31,7 @@ public final class SyslogTcpAppender
     protected SyslogTcpAppender( String name, Filter filter, Layout<? extends Serializable> layout,
                                  final boolean ignoreExceptions, SyslogTcpForwarderSettings settings )
         throws Exception {
-        super( name, filter, layout, ignoreExceptions, settings, new SyslogTcpForwarder( settings ) );
+        super( name, filter, layout, ignoreExceptions, settings, SyslogTcpForwarder.create( settings ) );
     }
 
     @PluginFactory
@@ -52,7 +52,30 @@ public final class SyslogTcpAppender
                                                     @PluginAttribute("ignoreHostnameValidation") boolean ignoreHostnameValidation,
                                                     @PluginAttribute("acceptedCertificateFingerprints") String acceptedCertificateFingerprints,
                                                     @PluginAttribute("useOctetCounting") boolean useOctetCounting,
-                                                    @PluginAttribute("soTimeout") int soTimeout)
+                                                    @PluginAttribute("soTimeout") int soTimeout,
+                                                    @PluginAttribute("connectionPoolSize") int connectionPoolSize,
+                                                    @PluginAttribute("connectionPoolDistribution") String connectionPoolDistribution,
+                                                    @PluginAttribute("destinations") String destinations,
+                                                    @PluginAttribute("balancingStrategy") String balancingStrategy,
+                                                    @PluginAttribute("ejectAfterFailures") int ejectAfterFailures,
+                                                    @PluginAttribute("healthCheckInterval") long healthCheckInterval,
+                                                    @PluginAttribute("hotStandby") boolean hotStandby,
+                                                    @PluginAttribute("standbyDestination") String standbyDestination,
+                                                    @PluginAttribute("atLeastOnce") boolean atLeastOnce,
+                                                    @PluginAttribute("replayBufferSize") String replayBufferSize,
+                                                    @PluginAttribute("unixSocketPath") String unixSocketPath,
+                                                    @PluginAttribute("priorityLanes") boolean priorityLanes,
+                                                    @PluginAttribute("priorityLaneWeights") String priorityLaneWeights,
+                                                    @PluginAttribute("priorityLaneQuotas") String priorityLaneQuotas,
+                                                    @PluginAttribute("rateLimit") int rateLimit,
+                                                    @PluginAttribute("rateLimitBurst") int rateLimitBurst,
+                                                    @PluginAttribute("rateLimitKey") String rateLimitKey,
+                                                    @PluginAttribute("samplingThreshold") String samplingThreshold,
+                                                    @PluginAttribute("summaryInterval") long summaryInterval,
+                                                    @PluginAttribute("dedupeWindow") long dedupeWindow,
+                                                    @PluginAttribute("dedupeTableSize") int dedupeTableSize,
+                                                    @PluginAttribute("threadType") String threadType,
+                                                    @PluginAttribute("sourceFallback") String sourceFallback)
 
         throws Exception {
         if ( name == null ) {
@@ -78,6 +101,29 @@ public final class SyslogTcpAppender
         settings.setCipherSuite( cipherSuite );
         settings.setNoServerAuthentication( noServerAuth );
         settings.setIgnoreHostnameValidation( ignoreHostnameValidation );
+        settings.setConnectionPoolSize( connectionPoolSize );
+        settings.setConnectionPoolDistribution( connectionPoolDistribution );
+        settings.setDestinations( destinations );
+        settings.setBalancingStrategy( balancingStrategy );
+        settings.setEjectAfterFailures( ejectAfterFailures );
+        settings.setHealthCheckInterval( healthCheckInterval );
+        settings.setHotStandby( hotStandby );
+        settings.setStandbyDestination( standbyDestination );
+        settings.setAtLeastOnce( atLeastOnce );
+        settings.setReplayBufferSize( replayBufferSize );
+        settings.setUnixSocketPath( unixSocketPath );
+        settings.setPriorityLanes( priorityLanes );
+        settings.setPriorityLaneWeights( priorityLaneWeights );
+        settings.setPriorityLaneQuotas( priorityLaneQuotas );
+        settings.setRateLimit( rateLimit );
+        settings.setRateLimitBurst( rateLimitBurst );
+        settings.setRateLimitKey( rateLimitKey );
+        settings.setSamplingThreshold( samplingThreshold );
+        settings.setSummaryInterval( summaryInterval );
+        settings.setDedupeWindow( dedupeWindow );
+        settings.setDedupeTableSize( dedupeTableSize );
+        settings.setThreadType( threadType );
+        settings.setSourceFallback( sourceFallback );
         if ( acceptedCertificateFingerprints != null ) {
             String[] parts = acceptedCertificateFingerprints.split(",");
             for (String s : parts) {
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.appenders.log4j2;
+
+import java.io.Serializable;
+
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarderSettings;
+
+/**
+ * Log4j 2.x Appender for sending logs using Syslog/UDP, where losing events is acceptable
+ *
+ * @author Tibco LogLogic
+ *
+ */
+@Plugin(name = "SyslogUdpAppender", category = "Core", elementType = "appender", printObject = true)
+public final class SyslogUdpAppender
+    extends LogAppender {
+
+    protected SyslogUdpAppender( String name, Filter filter, Layout<? extends Serializable> layout,
+                                 final boolean ignoreExceptions, SyslogUdpForwarderSettings settings )
+        throws Exception {
+        super( name, filter, layout, ignoreExceptions, settings, new SyslogUdpForwarder( settings ) );
+    }
+
+    @PluginFactory
+    public static SyslogUdpAppender createAppender( @PluginAttribute("name") String name,
+                                                    @PluginElement("Layout") Layout<? extends Serializable> layout,
+                                                    @PluginElement("Filter") final Filter filter,
+                                                    @PluginAttribute("host") String host,
+                                                    @PluginAttribute("port") int port,
+                                                    @PluginAttribute("appName") String appName,
+                                                    @PluginAttribute("source") String source,
+                                                    @PluginAttribute("facility") int facility,
+                                                    @PluginAttribute("maxDatagramSize") int maxDatagramSize,
+                                                    @PluginAttribute("stagingRingSize") int stagingRingSize,
+                                                    @PluginAttribute("priorityLanes") boolean priorityLanes,
+                                                    @PluginAttribute("priorityLaneWeights") String priorityLaneWeights,
+                                                    @PluginAttribute("priorityLaneQuotas") String priorityLaneQuotas,
+                                                    @PluginAttribute("rateLimit") int rateLimit,
+                                                    @PluginAttribute("rateLimitBurst") int rateLimitBurst,
+                                                    @PluginAttribute("rateLimitKey") String rateLimitKey,
+                                                    @PluginAttribute("samplingThreshold") String samplingThreshold,
+                                                    @PluginAttribute("summaryInterval") long summaryInterval,
+                                                    @PluginAttribute("dedupeWindow") long dedupeWindow,
+                                                    @PluginAttribute("dedupeTableSize") int dedupeTableSize,
+                                                    @PluginAttribute("threadType") String threadType,
+                                                    @PluginAttribute("sourceFallback") String sourceFallback)
+
+        throws Exception {
+        if ( name == null ) {
+            LOGGER.error( "No name provided for SyslogUdpAppender" );
+            return null;
+        }
+        if ( layout == null ) {
+            layout = PatternLayout.createDefaultLayout();
+        }
+        SyslogUdpForwarderSettings settings = new SyslogUdpForwarderSettings();
+        if ( host != null ) {
+            settings.setHost( host );
+        }
+        settings.setPort( port );
+        settings.setAppName( appName );
+        settings.setSource( source );
+        if ( facility != 0 ) {
+            settings.setFacility( (byte) facility );
+        }
+        settings.setMaxDatagramSize( maxDatagramSize );
+        settings.setStagingRingSize( stagingRingSize );
+        settings.setPriorityLanes( priorityLanes );
+        settings.setPriorityLaneWeights( priorityLaneWeights );
+        settings.setPriorityLaneQuotas( priorityLaneQuotas );
+        settings.setRateLimit( rateLimit );
+        settings.setRateLimitBurst( rateLimitBurst );
+        settings.setRateLimitKey( rateLimitKey );
+        settings.setSamplingThreshold( samplingThreshold );
+        settings.setSummaryInterval( summaryInterval );
+        settings.setDedupeWindow( dedupeWindow );
+        settings.setDedupeTableSize( dedupeTableSize );
+        settings.setThreadType( threadType );
+        settings.setSourceFallback( sourceFallback );
+        return new SyslogUdpAppender( name, filter, layout, true, settings );
+    }
+}
@@ -53,7 +53,19 @@ public final class UldpAppender
                                                @PluginAttribute("domainName") String domainName,
                                                @PluginAttribute("noServerAuth") boolean noServerAuth,
                                                @PluginAttribute("ignoreHostnameValidation") boolean ignoreHostnameValidation,
-                                               @PluginAttribute("acceptedCertificateFingerprints") String acceptedCertificateFingerprints )
+                                               @PluginAttribute("acceptedCertificateFingerprints") String acceptedCertificateFingerprints,
+                                               @PluginAttribute("priorityLanes") boolean priorityLanes,
+                                               @PluginAttribute("priorityLaneWeights") String priorityLaneWeights,
+                                               @PluginAttribute("priorityLaneQuotas") String priorityLaneQuotas,
+                                               @PluginAttribute("rateLimit") int rateLimit,
+                                               @PluginAttribute("rateLimitBurst") int rateLimitBurst,
+                                               @PluginAttribute("rateLimitKey") String rateLimitKey,
+                                               @PluginAttribute("samplingThreshold") String samplingThreshold,
+                                               @PluginAttribute("summaryInterval") long summaryInterval,
+                                               @PluginAttribute("dedupeWindow") long dedupeWindow,
+                                               @PluginAttribute("dedupeTableSize") int dedupeTableSize,
+                                               @PluginAttribute("threadType") String threadType,
+                                               @PluginAttribute("sourceFallback") String sourceFallback )
 
         throws Exception {
         if ( name == null ) {
@@ -68,6 +80,18 @@ public final class UldpAppender
         uldpConnectionSettings.setPort( port );
         settings.setAppName( appName );
         settings.setSource( source );
+        settings.setPriorityLanes( priorityLanes );
+        settings.setPriorityLaneWeights( priorityLaneWeights );
+        settings.setPriorityLaneQuotas( priorityLaneQuotas );
+        settings.setRateLimit( rateLimit );
+        settings.setRateLimitBurst( rateLimitBurst );
+        settings.setRateLimitKey( rateLimitKey );
+        settings.setSamplingThreshold( samplingThreshold );
+        settings.setSummaryInterval( summaryInterval );
+        settings.setDedupeWindow( dedupeWindow );
+        settings.setDedupeTableSize( dedupeTableSize );
+        settings.setThreadType( threadType );
+        settings.setSourceFallback( sourceFallback );
         uldpConnectionSettings.setUseTls( useAuthentication );
         uldpConnectionSettings.setUseEncryption( useEncryption );
         uldpConnectionSettings.setUseCompression( useCompression );
@@ -5,6 +5,7 @@
  */
 package com.tibco.loglogic.logging.appenders.logback;
 
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderRegistry;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
@@ -38,7 +39,8 @@ public abstract class LogAppender
     @Override
     protected void append( ILoggingEvent event ) {
 
-        if ( logForwarder != null ) {
+        LogForwarder forwarder = getLogForwarder();
+        if ( forwarder != null ) {
 
             String formatted = layout.doLayout( event );
 
@@ -63,7 +65,18 @@ public abstract class LogAppender
 
             syslogMessage.setMessage( formatted );
 
-            getLogForwarder().forwardEvent( syslogMessage, true );
+            syslogMessage.setLoggerName( event.getLoggerName() );
+
+            syslogMessage.setMessageTemplate( event.getMessage() );
+
+            // the forwarder sends its queue from its connecting thread
+            forwarder.getLock().lock();
+            try {
+                forwarder.forwardEvent( syslogMessage, true );
+            }
+            finally {
+                forwarder.getLock().unlock();
+            }
         }
     }
 
@@ -80,8 +93,8 @@ public abstract class LogAppender
 
         if ( getLogForwarder() == null ) {
             try {
-                logForwarder = createForwarder();
-                logForwarder.connect();
+                // shared with the appenders having the same settings, events are queued until connected
+                logForwarder = ForwarderRegistry.acquire( this.name, createForwarder() );
             }
             catch ( Exception e ) {
                 addError( "Couldn't initialize appender named \"" + this.name + "\".", e );
@@ -95,15 +108,15 @@ public abstract class LogAppender
      */
     @Override
     public void stop() {
-        LogForwarder logForwarder = getLogForwarder();
-        if ( logForwarder != null ) {
+        LogForwarder released = getLogForwarder();
+        // released once, another appender may still use it
+        logForwarder = null;
+        if ( released != null ) {
             try {
-                logForwarder.close();
-                logForwarder = null;
+                ForwarderRegistry.release( released );
             }
             catch ( Exception e ) {
                 Thread.currentThread().interrupt();
-                logForwarder = null;
             }
         }
         super.stop();
@@ -152,4 +165,100 @@ public abstract class LogAppender
     public boolean getRawMode() {
         return getSettings().isRawMode();
     }
+
+    public boolean getPriorityLanes() {
+        return getSettings().isPriorityLanes();
+    }
+
+    public void setPriorityLanes( boolean priorityLanes ) {
+        getSettings().setPriorityLanes( priorityLanes );
+    }
+
+    public String getPriorityLaneWeights() {
+        return getSettings().getPriorityLaneWeights();
+    }
+
+    public void setPriorityLaneWeights( String priorityLaneWeights ) {
+        getSettings().setPriorityLaneWeights( priorityLaneWeights );
+    }
+
+    public String getPriorityLaneQuotas() {
+        return getSettings().getPriorityLaneQuotas();
+    }
+
+    public void setPriorityLaneQuotas( String priorityLaneQuotas ) {
+        getSettings().setPriorityLaneQuotas( priorityLaneQuotas );
+    }
+
+    public int getRateLimit() {
+        return getSettings().getRateLimit();
+    }
+
+    public void setRateLimit( int rateLimit ) {
+        getSettings().setRateLimit( rateLimit );
+    }
+
+    public int getRateLimitBurst() {
+        return getSettings().getRateLimitBurst();
+    }
+
+    public void setRateLimitBurst( int rateLimitBurst ) {
+        getSettings().setRateLimitBurst( rateLimitBurst );
+    }
+
+    public String getRateLimitKey() {
+        return getSettings().getRateLimitKey().name();
+    }
+
+    public void setRateLimitKey( String rateLimitKey ) {
+        getSettings().setRateLimitKey( rateLimitKey );
+    }
+
+    public String getSamplingThreshold() {
+        return Long.toString( getSettings().getSamplingThreshold() );
+    }
+
+    public void setSamplingThreshold( String samplingThreshold ) {
+        getSettings().setSamplingThreshold( samplingThreshold );
+    }
+
+    public long getSummaryInterval() {
+        return getSettings().getSummaryInterval();
+    }
+
+    public void setSummaryInterval( long summaryInterval ) {
+        getSettings().setSummaryInterval( summaryInterval );
+    }
+
+    public long getDedupeWindow() {
+        return getSettings().getDedupeWindow();
+    }
+
+    public void setDedupeWindow( long dedupeWindow ) {
+        getSettings().setDedupeWindow( dedupeWindow );
+    }
+
+    public int getDedupeTableSize() {
+        return getSettings().getDedupeTableSize();
+    }
+
+    public void setDedupeTableSize( int dedupeTableSize ) {
+        getSettings().setDedupeTableSize( dedupeTableSize );
+    }
+
+    public String getThreadType() {
+        return getSettings().getThreadType().name();
+    }
+
+    public void setThreadType( String threadType ) {
+        getSettings().setThreadType( threadType );
+    }
+
+    public String getSourceFallback() {
+        return getSettings().getSourceFallback().name();
+    }
+
+    public void setSourceFallback( String sourceFallback ) {
+        getSettings().setSourceFallback( sourceFallback );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.client;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Outcome of one event or one batch of events sent by a LogLogicClient.
+ *
+ * It completes once every event has been written to the connection or dropped. It completes successfully if none was
+ * dropped, with an IOException otherwise. Events waiting in the retry queue of a disconnected forwarder complete once
+ * sent. Written means handed to the transport: syslog TCP and ULDP have no acknowledgement from the receiver.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class Acknowledgement
+    implements Future<Void>, DeliveryListener {
+
+    private final int count;
+
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private final CountDownLatch done;
+
+    Acknowledgement( int count ) {
+        this.count = count;
+        done = new CountDownLatch( count );
+    }
+
+    @Override
+    public void delivered( SyslogMessage syslogMessage ) {
+        delivered.incrementAndGet();
+        done.countDown();
+    }
+
+    @Override
+    public void dropped( SyslogMessage syslogMessage ) {
+        dropped.incrementAndGet();
+        done.countDown();
+    }
+
+    /**
+     * Get the number of events covered
+     *
+     * @return the number of events
+     */
+    public int getEventCount() {
+        return count;
+    }
+
+    /**
+     * Get the number of events written to the connection so far
+     *
+     * @return the number of delivered events
+     */
+    public int getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Get the number of events dropped so far
+     *
+     * @return the number of dropped events
+     */
+    public int getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Events cannot be recalled once sent
+     *
+     * @return false
+     */
+    @Override
+    public boolean cancel( boolean mayInterruptIfRunning ) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Wait for all the events to be written or dropped
+     *
+     * @throws ExecutionException caused by an IOException if events were dropped
+     */
+    @Override
+    public Void get()
+        throws InterruptedException, ExecutionException {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public Void get( long timeout, TimeUnit unit )
+        throws InterruptedException, ExecutionException, TimeoutException {
+        if ( !done.await( timeout, unit ) ) {
+            throw new TimeoutException( ( count - done.getCount() ) + " of " + count + " events completed" );
+        }
+        return result();
+    }
+
+    private Void result()
+        throws ExecutionException {
+        int droppedCount = dropped.get();
+        if ( droppedCount > 0 ) {
+            throw new ExecutionException( new IOException( droppedCount + " of " + count + " events dropped" ) );
+        }
+        return null;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.tibco.loglogic.logging.LmiLogEvent;
+import com.tibco.loglogic.logging.forwarders.mappedring.MappedRingForwarder;
+import com.tibco.loglogic.logging.forwarders.mappedring.MappedRingForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.relp.RelpForwarder;
+import com.tibco.loglogic.logging.forwarders.relp.RelpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderMetrics;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.uldp.UldpForwarder;
+import com.tibco.loglogic.logging.forwarders.uldp.UldpForwarderSettings;
+
+/**
+ * Sends events to LogLogic directly, without going through a logging framework.
+ *
+ * <pre>
+ * <code>
+ * LogLogicClient client = LogLogicClient.syslogTcp( settings );
+ * LmiLogEvent event = new LmiLogEvent( "Failed Login", "sshd:failure" );
+ * event.setTargetUser( "joe" );
+ * client.send( event, Severity.WARNING ).get();
+ * </code>
+ * </pre>
+ *
+ * The client is thread-safe: the events are rendered by the calling threads and written by a single writer thread.
+ * Sending does not block, the returned Acknowledgement completes once the events are written or dropped.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class LogLogicClient
+    implements AutoCloseable {
+
+    private final LogForwarder forwarder;
+
+    /**
+     * Create a client sending through the given forwarder, and connect it
+     *
+     * @param forwarder the forwarder, not to be used by anything else
+     * @throws IOException if the connection cannot be established
+     */
+    public LogLogicClient( LogForwarder forwarder )
+        throws IOException {
+        this.forwarder = new SingleWriterForwarder( forwarder );
+        this.forwarder.connect();
+    }
+
+    /**
+     * Create a client sending over syslog TCP
+     *
+     * @param settings the settings of the connection
+     * @return the connected client
+     * @throws IOException if the connection cannot be established
+     */
+    public static LogLogicClient syslogTcp( SyslogTcpForwarderSettings settings )
+        throws IOException {
+        return new LogLogicClient( SyslogTcpForwarder.create( settings ) );
+    }
+
+    /**
+     * Create a client sending over syslog UDP, the acknowledgements completing once the events are handed over to the
+     * sender thread
+     *
+     * @param settings the settings of the destination
+     * @return the client
+     * @throws IOException if the channel cannot be opened
+     */
+    public static LogLogicClient syslogUdp( SyslogUdpForwarderSettings settings )
+        throws IOException {
+        return new LogLogicClient( new SyslogUdpForwarder( settings ) );
+    }
+
+    /**
+     * Create a client sending over ULDP
+     *
+     * @param settings the settings of the connection
+     * @return the connected client
+     * @throws IOException if the connection cannot be established
+     */
+    public static LogLogicClient uldp( UldpForwarderSettings settings )
+        throws IOException {
+        return new LogLogicClient( UldpForwarder.create( settings ) );
+    }
+
+    /**
+     * Create a client sending over RELP, the acknowledgements completing once the destination has acknowledged the
+     * events
+     *
+     * @param settings the settings of the connection
+     * @return the connected client
+     * @throws IOException if the connection cannot be established
+     */
+    public static LogLogicClient relp( RelpForwarderSettings settings )
+        throws IOException {
+        return new LogLogicClient( new RelpForwarder( settings ) );
+    }
+
+    /**
+     * Create a client handing the events over to a sidecar process through a memory-mapped ring, the acknowledgements
+     * completing once the events are in the ring
+     *
+     * @param settings the settings of the ring
+     * @return the client
+     * @throws IOException if the ring file cannot be mapped
+     */
+    public static LogLogicClient mappedRing( MappedRingForwarderSettings settings )
+        throws IOException {
+        return new LogLogicClient( new MappedRingForwarder( settings ) );
+    }
+
+    /**
+     * Send an event, timestamped now
+     *
+     * @param event the event
+     * @param severity the severity of the event
+     * @return the acknowledgement of the event
+     */
+    public Acknowledgement send( LmiLogEvent event, Severity severity ) {
+        return send( event, severity, System.currentTimeMillis() );
+    }
+
+    /**
+     * Send an event
+     *
+     * @param event the event
+     * @param severity the severity of the event
+     * @param timestamp the time of the event (ms)
+     * @return the acknowledgement of the event
+     */
+    public Acknowledgement send( LmiLogEvent event, Severity severity, long timestamp ) {
+        return send( event.toString(), severity, timestamp );
+    }
+
+    /**
+     * Send an event already encoded in UTF-8
+     *
+     * @param payload the body of the event
+     * @param severity the severity of the event
+     * @param timestamp the time of the event (ms)
+     * @return the acknowledgement of the event
+     */
+    public Acknowledgement send( byte[] payload, Severity severity, long timestamp ) {
+        return send( new String( payload, StandardCharsets.UTF_8 ), severity, timestamp );
+    }
+
+    /**
+     * Send several events with a single acknowledgement, timestamped now
+     *
+     * @param events the events
+     * @param severity the severity of the events
+     * @return the acknowledgement of the whole batch
+     */
+    public Acknowledgement sendBatch( List<LmiLogEvent> events, Severity severity ) {
+        long timestamp = System.currentTimeMillis();
+        Acknowledgement acknowledgement = new Acknowledgement( events.size() );
+        for ( LmiLogEvent event : events ) {
+            forward( event.toString(), severity, timestamp, acknowledgement );
+        }
+        return acknowledgement;
+    }
+
+    /**
+     * Get the runtime metrics of the client
+     *
+     * @return the metrics
+     */
+    public ForwarderMetrics getMetrics() {
+        return forwarder.getMetrics();
+    }
+
+    /**
+     * Send the pending events, then close the connection
+     */
+    @Override
+    public void close()
+        throws IOException {
+        forwarder.close();
+    }
+
+    private Acknowledgement send( String body, Severity severity, long timestamp ) {
+        Acknowledgement acknowledgement = new Acknowledgement( 1 );
+        forward( body, severity, timestamp, acknowledgement );
+        return acknowledgement;
+    }
+
+    private void forward( String body, Severity severity, long timestamp, Acknowledgement acknowledgement ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setSeverity( severity );
+        syslogMessage.setTimestamp( timestamp );
+        syslogMessage.setMessage( body );
+        syslogMessage.setDeliveryListener( acknowledgement );
+        forwarder.forwardEvent( syslogMessage, true );
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Ring of records in a memory-mapped file, written by one process and read by another one.
+ *
+ * The file starts with a header holding the capacity of the ring, the producer sequence (the number of bytes written
+ * so far) and the consumer sequence (the number of bytes read so far), each on its own cache line. Records follow: the
+ * length of the data on 4 bytes, then the data, padded to 4 bytes. A record which would not fit before the end of the
+ * ring is written at its start, after a padding marker.
+ *
+ * The producer publishes records by writing its sequence after them; the consumer frees their room by writing its
+ * sequence after reading them.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class MappedRing {
+
+    private static final int MAGIC = 0x4C4C4D52; // "LLMR"
+
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    private static final int PRODUCER_OFFSET = 64;
+
+    private static final int CONSUMER_OFFSET = 128;
+
+    private static final int DATA_OFFSET = 192;
+
+    private static final int PADDING = -1;
+
+    private static final int MIN_CAPACITY = 4096;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer buffer;
+
+    // positioned for the bulk copies
+    private final ByteBuffer data;
+
+    private final int capacity;
+
+    private final int mask;
+
+    // the sequence of this side
+    private long sequence;
+
+    // the last known sequence of the other side
+    private long otherSequence;
+
+    private MappedRing( RandomAccessFile file, MappedByteBuffer buffer, int capacity ) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position( DATA_OFFSET );
+        this.data = duplicate.slice();
+    }
+
+    /**
+     * Open the ring to write to it, creating the file if needed. A ring left by a previous producer is continued.
+     *
+     * @param path the file
+     * @param size the size of the ring, rounded to a power of 2
+     * @return the ring
+     * @throws IOException if the file cannot be mapped, or holds a ring of another size
+     */
+    static MappedRing openProducer( File path, long size )
+        throws IOException {
+        int capacity = MIN_CAPACITY;
+        while ( capacity < size && capacity < MAX_CAPACITY ) {
+            capacity <<= 1;
+        }
+        RandomAccessFile file = new RandomAccessFile( path, "rw" );
+        try {
+            boolean created = file.length() == 0;
+            MappedByteBuffer buffer = file.getChannel().map( FileChannel.MapMode.READ_WRITE, 0,
+                                                             DATA_OFFSET + capacity );
+            if ( created ) {
+                buffer.putInt( VERSION_OFFSET, VERSION );
+                buffer.putInt( CAPACITY_OFFSET, capacity );
+                // last, a reader takes the ring as valid once it is there
+                buffer.putInt( MAGIC_OFFSET, MAGIC );
+            }
+            else {
+                checkHeader( path, buffer );
+                if ( buffer.getInt( CAPACITY_OFFSET ) != capacity ) {
+                    throw new IOException( path + " holds a ring of " + buffer.getInt( CAPACITY_OFFSET )
+                        + " bytes, not " + capacity );
+                }
+            }
+            MappedRing ring = new MappedRing( file, buffer, capacity );
+            ring.sequence = RingSequences.getAcquire( buffer, PRODUCER_OFFSET );
+            ring.otherSequence = RingSequences.getAcquire( buffer, CONSUMER_OFFSET );
+            return ring;
+        }
+        catch ( IOException e ) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing ring to read from it, from where the previous consumer stopped
+     *
+     * @param path the file
+     * @return the ring
+     * @throws IOException if the file does not hold a ring yet
+     */
+    static MappedRing openConsumer( File path )
+        throws IOException {
+        RandomAccessFile file = new RandomAccessFile( path, "rw" );
+        try {
+            if ( file.length() < DATA_OFFSET ) {
+                throw new IOException( path + " does not hold a ring yet" );
+            }
+            MappedByteBuffer buffer = file.getChannel().map( FileChannel.MapMode.READ_WRITE, 0, file.length() );
+            checkHeader( path, buffer );
+            int capacity = buffer.getInt( CAPACITY_OFFSET );
+            if ( Integer.bitCount( capacity ) != 1 || file.length() < DATA_OFFSET + capacity ) {
+                throw new IOException( path + " holds a damaged ring" );
+            }
+            MappedRing ring = new MappedRing( file, buffer, capacity );
+            ring.sequence = RingSequences.getAcquire( buffer, CONSUMER_OFFSET );
+            ring.otherSequence = RingSequences.getAcquire( buffer, PRODUCER_OFFSET );
+            return ring;
+        }
+        catch ( IOException e ) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static void checkHeader( File path, ByteBuffer buffer )
+        throws IOException {
+        if ( buffer.getInt( MAGIC_OFFSET ) != MAGIC ) {
+            throw new IOException( path + " does not hold a ring yet" );
+        }
+        if ( buffer.getInt( VERSION_OFFSET ) != VERSION ) {
+            throw new IOException( path + " holds a ring of version " + buffer.getInt( VERSION_OFFSET ) );
+        }
+    }
+
+    private static int recordSize( int length ) {
+        return ( 4 + length + 3 ) & ~3;
+    }
+
+    /**
+     * Write a record and publish it, unless there is not enough room left
+     *
+     * @param record the data of the record
+     * @return false if the ring is full
+     */
+    boolean offer( byte[] record ) {
+        int size = recordSize( record.length );
+        if ( size > capacity / 2 ) {
+            return false;
+        }
+        int position = (int) sequence & mask;
+        int toEnd = capacity - position;
+        long needed = size <= toEnd ? size : toEnd + size;
+        if ( sequence + needed - otherSequence > capacity ) {
+            otherSequence = RingSequences.getAcquire( buffer, CONSUMER_OFFSET );
+            if ( sequence + needed - otherSequence > capacity ) {
+                return false;
+            }
+        }
+        long next = sequence;
+        if ( size > toEnd ) {
+            data.putInt( position, PADDING );
+            next += toEnd;
+            position = 0;
+        }
+        data.putInt( position, record.length );
+        data.position( position + 4 );
+        data.put( record );
+        sequence = next + size;
+        RingSequences.setRelease( buffer, PRODUCER_OFFSET, sequence );
+        return true;
+    }
+
+    /**
+     * Read the next published record. Its room is freed by release(). If the ring is damaged, the records published
+     * so far cannot be told apart and are skipped.
+     *
+     * @return the data of the record, null if there is none
+     */
+    byte[] poll() {
+        if ( sequence == otherSequence ) {
+            otherSequence = RingSequences.getAcquire( buffer, PRODUCER_OFFSET );
+            if ( sequence == otherSequence ) {
+                return null;
+            }
+        }
+        int position = (int) sequence & mask;
+        int length = data.getInt( position );
+        if ( length == PADDING ) {
+            // the producer writes the next record along with the marker
+            sequence += capacity - position;
+            position = 0;
+            length = data.getInt( 0 );
+        }
+        if ( !isValid( position, length ) ) {
+            sequence = otherSequence;
+            return null;
+        }
+        byte[] record = new byte[length];
+        data.position( position + 4 );
+        data.get( record );
+        sequence += recordSize( length );
+        return record;
+    }
+
+    /**
+     * Check a length read from the file against the room left in the ring and the records published, as written by
+     * offer()
+     */
+    private boolean isValid( int position, int length ) {
+        if ( length < 0 || length > capacity / 2 ) {
+            return false;
+        }
+        int size = recordSize( length );
+        return size <= capacity - position && size <= otherSequence - sequence;
+    }
+
+    /**
+     * Free the room of the records read so far
+     */
+    void release() {
+        RingSequences.setRelease( buffer, CONSUMER_OFFSET, sequence );
+    }
+
+    void close()
+        throws IOException {
+        file.close();
+    }
+}
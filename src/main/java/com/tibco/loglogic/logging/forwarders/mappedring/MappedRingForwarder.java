@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Hands log over to a sidecar process, MappedRingReader, through a ring in a memory-mapped file
+ *
+ * Forwarding an event copies the syslog message into the ring and publishes it with an ordered store: no system call,
+ * no lock, and network trouble stays in the sidecar. When the ring is full because the sidecar lags behind or is not
+ * running, the event is dropped rather than waiting. A ring file must have a single producer at a time.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class MappedRingForwarder
+    extends LogForwarder {
+
+    private MappedRing ring;
+
+    public MappedRingForwarder( MappedRingForwarderSettings settings ) {
+        super( settings );
+    }
+
+    @Override
+    protected MappedRingForwarderSettings getSettings() {
+        return (MappedRingForwarderSettings) super.getSettings();
+    }
+
+    /**
+     * Map the ring file, creating it if needed
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        if ( getSettings().getRingFile() == null ) {
+            throw new IOException( "No ring file configured" );
+        }
+        ring = MappedRing.openProducer( new File( getSettings().getRingFile() ), getSettings().getRingSize() );
+    }
+
+    /**
+     * Copy the event into the ring, or drop it if the ring is full
+     */
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        byte[] record = syslogMessage.toString().getBytes( StandardCharsets.UTF_8 );
+        if ( ring.offer( record ) ) {
+            getMetrics().recordBytesSent( record.length );
+            return;
+        }
+        getMetrics().recordDropped();
+        DeliveryListener listener = syslogMessage.getDeliveryListener();
+        if ( listener != null ) {
+            syslogMessage.setDeliveryListener( null );
+            listener.dropped( syslogMessage );
+        }
+    }
+
+    /**
+     * Nothing to do, each event is published as soon as it is copied
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    protected void closeConnection()
+        throws IOException {
+        if ( ring != null ) {
+            ring.close();
+            ring = null;
+        }
+    }
+}
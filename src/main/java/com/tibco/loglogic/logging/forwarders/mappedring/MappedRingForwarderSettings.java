@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+
+/**
+ * Settings for handing logs over to a sidecar process through a memory-mapped file
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class MappedRingForwarderSettings
+    extends LogForwarderSettings {
+
+    private static final long DEFAULT_RING_SIZE = 8L * 1024 * 1024;
+
+    private String ringFile;
+
+    private long ringSize = DEFAULT_RING_SIZE;
+
+    /**
+     * Get the file holding the ring, shared with the sidecar
+     *
+     * @return the path of the file
+     */
+    public String getRingFile() {
+        return ringFile;
+    }
+
+    /**
+     * Set the file holding the ring, shared with the sidecar. It is best on a memory file system such as /dev/shm.
+     *
+     * @param ringFile the path of the file
+     */
+    public void setRingFile( String ringFile ) {
+        this.ringFile = ringFile;
+    }
+
+    /**
+     * Get the size of the ring, beyond which events are dropped while the sidecar lags behind
+     *
+     * default: 8MB
+     *
+     * @return the size in bytes
+     */
+    public long getRingSize() {
+        return ringSize;
+    }
+
+    /**
+     * Set the size of the ring. It is rounded up to a power of 2, of 4KB at least.
+     *
+     * Has no effect if the size is not positive.
+     *
+     * @param ringSize the size in bytes
+     */
+    public void setRingSize( long ringSize ) {
+        if ( ringSize > 0 )
+            this.ringSize = ringSize;
+    }
+
+    /**
+     * Set the size of the ring
+     *
+     * @param rawProperty in format [<integer>|<integer>[KB|MB|GB]]
+     */
+    public void setRingSize( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        setRingSize( parseSize( rawProperty ) );
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.uldp.UldpForwarder;
+import com.tibco.loglogic.logging.forwarders.uldp.UldpForwarderSettings;
+import com.tibco.loglogic.logging.uldpclient.UldpConnectionSettings;
+
+/**
+ * Sidecar reading the events written by a MappedRingForwarder and sending them through another forwarder
+ *
+ * The events are forwarded as they were written, in raw mode. The reader waits for the ring file to be created, and
+ * continues from where a previous reader stopped. While the forwarder is disconnected, the events are left in the ring
+ * rather than moved to the queue of the forwarder.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class MappedRingReader
+    implements Runnable {
+
+    private static final int MAX_BATCH = 256;
+
+    private static final long OPEN_RETRY_MS = 500;
+
+    private static final long IDLE_SLEEP_MS = 1;
+
+    private static final long DISCONNECTED_SLEEP_MS = 100;
+
+    private final File ringFile;
+
+    private final LogForwarder forwarder;
+
+    private volatile boolean stopping;
+
+    /**
+     * @param ringFile the file holding the ring
+     * @param forwarder the forwarder to send the events through, connected or connecting
+     */
+    public MappedRingReader( File ringFile, LogForwarder forwarder ) {
+        this.ringFile = ringFile;
+        this.forwarder = forwarder;
+    }
+
+    /**
+     * Read and forward the events until stopped
+     */
+    @Override
+    public void run() {
+        MappedRing ring = null;
+        try {
+            while ( !stopping ) {
+                if ( ring == null ) {
+                    try {
+                        ring = MappedRing.openConsumer( ringFile );
+                    }
+                    catch ( IOException e ) {
+                        // not created by the producer yet
+                        Thread.sleep( OPEN_RETRY_MS );
+                        continue;
+                    }
+                }
+                int count = drain( ring );
+                if ( count < 0 ) {
+                    Thread.sleep( DISCONNECTED_SLEEP_MS );
+                }
+                else if ( count == 0 ) {
+                    Thread.sleep( IDLE_SLEEP_MS );
+                }
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if ( ring != null ) {
+                try {
+                    ring.close();
+                }
+                catch ( IOException ignored ) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Forward the next records, unless the forwarder cannot send them right away: they are then kept in the ring, which
+     * is much larger than the queue of the forwarder and survives a restart of the sidecar.
+     *
+     * @return the number of records forwarded, -1 if the forwarder is not connected or still has events queued
+     */
+    private int drain( MappedRing ring ) {
+        int count = 0;
+        forwarder.getLock().lock();
+        try {
+            if ( !forwarder.isConnected() || forwarder.getMetrics().getQueueDepth() > 0 ) {
+                return -1;
+            }
+            byte[] record = ring.poll();
+            while ( record != null ) {
+                SyslogMessage syslogMessage = new SyslogMessage();
+                syslogMessage.setRawMode( true );
+                syslogMessage.setMessage( new String( record, StandardCharsets.UTF_8 ) );
+                count++;
+                record = count < MAX_BATCH ? ring.poll() : null;
+                forwarder.forwardEvent( syslogMessage, record == null );
+            }
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+        // the events are sent, or queued by the forwarder if the connection broke meanwhile: their room can be reused
+        ring.release();
+        return count;
+    }
+
+    /**
+     * Stop reading, run() returns shortly after
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Run the sidecar
+     *
+     * The properties file holds ringFile, transport (syslogtcp, the default, or uldp), host, port, useTls and
+     * maxQueueSize.
+     *
+     * @param args the path of the properties file
+     */
+    public static void main( String[] args )
+        throws Exception {
+        if ( args.length != 1 ) {
+            System.err.println( "Usage: MappedRingReader <properties file>" );
+            System.exit( 1 );
+        }
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream( args[0] );
+        try {
+            properties.load( in );
+        }
+        finally {
+            in.close();
+        }
+        String ringFile = properties.getProperty( "ringFile" );
+        String host = properties.getProperty( "host" );
+        if ( ringFile == null || host == null ) {
+            System.err.println( "ringFile and host are required" );
+            System.exit( 1 );
+        }
+        String port = properties.getProperty( "port" );
+        boolean useTls = Boolean.parseBoolean( properties.getProperty( "useTls" ) );
+        String maxQueueSize = properties.getProperty( "maxQueueSize", "500KB" );
+
+        final LogForwarder forwarder;
+        if ( "uldp".equalsIgnoreCase( properties.getProperty( "transport" ) ) ) {
+            UldpConnectionSettings connectionSettings = new UldpConnectionSettings( host );
+            if ( port != null ) {
+                connectionSettings.setPort( Integer.parseInt( port ) );
+            }
+            connectionSettings.setUseTls( useTls );
+            UldpForwarderSettings settings = new UldpForwarderSettings( connectionSettings );
+            settings.setMaxQueueSize( maxQueueSize );
+            forwarder = UldpForwarder.create( settings );
+        }
+        else {
+            SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+            settings.setHost( host );
+            if ( port != null ) {
+                settings.setPort( Integer.parseInt( port ) );
+            }
+            settings.setUseTls( useTls );
+            settings.setMaxQueueSize( maxQueueSize );
+            forwarder = SyslogTcpForwarder.create( settings );
+        }
+        forwarder.connectInBackground();
+
+        final MappedRingReader reader = new MappedRingReader( new File( ringFile ), forwarder );
+        final Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook( new Thread( new Runnable() {
+            @Override
+            public void run() {
+                reader.stop();
+                try {
+                    main.join( 1000 );
+                }
+                catch ( InterruptedException ignored ) {
+                }
+                try {
+                    forwarder.close();
+                }
+                catch ( IOException ignored ) {
+                }
+            }
+        } ) );
+        reader.run();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes the sequences of a mapped ring, ordered with the records they cover.
+ *
+ * ByteBuffer has no ordered access before Java 9: the sequences are written with Unsafe.putOrderedLong, a release
+ * store, and read with Unsafe.getLongVolatile, at least an acquire load, at the address of the mapped buffer. Unsafe is
+ * looked up at run time, as it is not part of the API compiled against. On a JVM without it, the accesses are plain
+ * and the ring is only safe on Java 11 and later. The multi-release jar replaces this class on Java 11 and later
+ * (src/main/java11) with the release and acquire accesses of a VarHandle.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class RingSequences {
+
+    // Unsafe.getLong( Object, long ), Unsafe.getLongVolatile( Object, long ), Unsafe.putOrderedLong( Object, long,
+    // long ), bound to the Unsafe instance, or null without Unsafe
+    private static final MethodHandle GET_LONG;
+
+    private static final MethodHandle GET_LONG_VOLATILE;
+
+    private static final MethodHandle PUT_ORDERED_LONG;
+
+    // offset of the address field of a direct buffer
+    private static final long ADDRESS_OFFSET;
+
+    // the sequences are big endian, as ByteBuffer.getLong, Unsafe uses the native byte order
+    private static final boolean SWAP_BYTES = ByteOrder.nativeOrder() != ByteOrder.BIG_ENDIAN;
+
+    static {
+        MethodHandle getLong = null;
+        MethodHandle getLongVolatile = null;
+        MethodHandle putOrderedLong = null;
+        long addressOffset = -1;
+        try {
+            Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            Field theUnsafe = unsafeClass.getDeclaredField( "theUnsafe" );
+            theUnsafe.setAccessible( true );
+            Object unsafe = theUnsafe.get( null );
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodType get = MethodType.methodType( long.class, Object.class, long.class );
+            MethodType put = MethodType.methodType( void.class, Object.class, long.class, long.class );
+            addressOffset = (Long) unsafeClass.getMethod( "objectFieldOffset", Field.class )
+                .invoke( unsafe, Buffer.class.getDeclaredField( "address" ) );
+            getLong = lookup.findVirtual( unsafeClass, "getLong", get ).bindTo( unsafe );
+            getLongVolatile = lookup.findVirtual( unsafeClass, "getLongVolatile", get ).bindTo( unsafe );
+            putOrderedLong = lookup.findVirtual( unsafeClass, "putOrderedLong", put ).bindTo( unsafe );
+        }
+        catch ( Exception e ) {
+            putOrderedLong = null;
+        }
+        GET_LONG = getLong;
+        GET_LONG_VOLATILE = getLongVolatile;
+        PUT_ORDERED_LONG = putOrderedLong;
+        ADDRESS_OFFSET = addressOffset;
+    }
+
+    private RingSequences() {
+    }
+
+    /**
+     * Read a sequence, before reading the records it covers
+     *
+     * @param buffer the mapped ring
+     * @param index the offset of the sequence, 8 bytes aligned
+     * @return the sequence
+     */
+    static long getAcquire( ByteBuffer buffer, int index ) {
+        if ( PUT_ORDERED_LONG == null || !buffer.isDirect() ) {
+            return buffer.getLong( index );
+        }
+        checkIndex( buffer, index );
+        long sequence;
+        try {
+            sequence = (long) GET_LONG_VOLATILE.invokeExact( (Object) null, address( buffer ) + index );
+        }
+        catch ( Throwable e ) {
+            throw new IllegalStateException( e );
+        }
+        return SWAP_BYTES ? Long.reverseBytes( sequence ) : sequence;
+    }
+
+    /**
+     * Write a sequence, after writing the records it covers
+     *
+     * @param buffer the mapped ring
+     * @param index the offset of the sequence, 8 bytes aligned
+     * @param sequence the sequence
+     */
+    static void setRelease( ByteBuffer buffer, int index, long sequence ) {
+        if ( PUT_ORDERED_LONG == null || !buffer.isDirect() ) {
+            buffer.putLong( index, sequence );
+            return;
+        }
+        checkIndex( buffer, index );
+        try {
+            PUT_ORDERED_LONG.invokeExact( (Object) null, address( buffer ) + index,
+                                          SWAP_BYTES ? Long.reverseBytes( sequence ) : sequence );
+        }
+        catch ( Throwable e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static long address( ByteBuffer buffer )
+        throws Throwable {
+        return (long) GET_LONG.invokeExact( (Object) buffer, ADDRESS_OFFSET );
+    }
+
+    // Unsafe does no bounds check, unlike the buffer
+    private static void checkIndex( ByteBuffer buffer, int index ) {
+        if ( index < 0 || index > buffer.limit() - 8 ) {
+            throw new IndexOutOfBoundsException( "index " + index );
+        }
+    }
+}
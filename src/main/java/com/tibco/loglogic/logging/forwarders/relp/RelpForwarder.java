@@ -0,0 +1,438 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.relp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Forwards log using the Reliable Event Logging Protocol (RELP), as supported by rsyslog
+ *
+ * Events are sent as numbered transactions, without waiting for each acknowledgement: up to windowSize transactions
+ * can be pending, and they are written in batches, with one flush per batch. A reader thread collects the
+ * acknowledgements of the destination. The transactions still pending when the connection breaks are sent again,
+ * first, on the next connection, so that no event is lost.
+ *
+ * The delivery listener of an event is notified once the destination has acknowledged it, rather than once it is
+ * written.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class RelpForwarder
+    extends LogForwarder {
+
+    private static final int MAX_TXNR = 999999999;
+
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private static final byte[] OFFERS = "relp_version=0\nrelp_software=loglmi-java\ncommands=syslog"
+        .getBytes( StandardCharsets.US_ASCII );
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private static final class Transaction {
+
+        final SyslogMessage syslogMessage;
+
+        final DeliveryListener listener;
+
+        Transaction( SyslogMessage syslogMessage, DeliveryListener listener ) {
+            this.syslogMessage = syslogMessage;
+            this.listener = listener;
+        }
+    }
+
+    // sent and not acknowledged yet, by transaction number, oldest first; guarded by windowLock
+    private final LinkedHashMap<Integer, Transaction> unacknowledged = new LinkedHashMap<>();
+
+    // a lock rather than a monitor, so that a virtual thread waiting for the window does not pin its carrier
+    private final ReentrantLock windowLock = new ReentrantLock();
+
+    // signalled when transactions are acknowledged or the connection is gone
+    private final Condition windowChanged = windowLock.newCondition();
+
+    private Socket socket;
+
+    private BufferedOutputStream out;
+
+    private int lastTxnr;
+
+    // set by the reader once the connection is gone, guarded by windowLock
+    private boolean broken;
+
+    public RelpForwarder( RelpForwarderSettings settings ) {
+        super( settings );
+    }
+
+    @Override
+    protected RelpForwarderSettings getSettings() {
+        return (RelpForwarderSettings) super.getSettings();
+    }
+
+    /**
+     * Open the connection and the RELP session, then send again the transactions left pending by the previous
+     * connection
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        Socket newSocket = new Socket();
+        newSocket.setSoTimeout( getSettings().getSoTimeout() );
+        try {
+            newSocket.connect( new InetSocketAddress( getSettings().getHost(), getSettings().getPort() ),
+                               getSettings().getSoTimeout() );
+            BufferedOutputStream newOut = new BufferedOutputStream( newSocket.getOutputStream() );
+            InputStream in = new BufferedInputStream( newSocket.getInputStream() );
+            lastTxnr = 0;
+            RelpFrame.write( newOut, nextTxnr(), "open", OFFERS );
+            newOut.flush();
+            RelpFrame response = RelpFrame.read( in );
+            if ( response == null || !response.isOk() ) {
+                throw new IOException( "RELP session refused: "
+                    + ( response == null ? "connection closed" : response.getDataAsString() ) );
+            }
+            // the reader waits for acknowledgements for as long as needed
+            newSocket.setSoTimeout( 0 );
+            List<Transaction> pending;
+            windowLock.lock();
+            try {
+                socket = newSocket;
+                out = newOut;
+                broken = false;
+                pending = new ArrayList<>( unacknowledged.values() );
+                unacknowledged.clear();
+            }
+            finally {
+                windowLock.unlock();
+            }
+            startReader( newSocket, in );
+            int sent = 0;
+            try {
+                for ( Transaction transaction : pending ) {
+                    // pending again as soon as sent
+                    send( transaction );
+                    sent++;
+                }
+            }
+            catch ( IOException e ) {
+                // the transactions not sent yet are sent on the next connection too
+                windowLock.lock();
+                try {
+                    for ( Transaction transaction : pending.subList( sent + 1, pending.size() ) ) {
+                        unacknowledged.put( nextTxnr(), transaction );
+                    }
+                }
+                finally {
+                    windowLock.unlock();
+                }
+                throw e;
+            }
+            if ( !pending.isEmpty() ) {
+                getMetrics().recordReplayed( pending.size() );
+                out.flush();
+            }
+        }
+        catch ( IOException e ) {
+            newSocket.close();
+            throw e;
+        }
+    }
+
+    private void startReader( final Socket readerSocket, final InputStream in ) {
+        getExecutor().start( "loglmi-relp-reader", new Runnable() {
+            @Override
+            public void run() {
+                readResponses( readerSocket, in );
+            }
+        } );
+    }
+
+    private void readResponses( Socket readerSocket, InputStream in ) {
+        try {
+            for ( RelpFrame frame = RelpFrame.read( in ); frame != null; frame = RelpFrame.read( in ) ) {
+                if ( "rsp".equals( frame.command ) ) {
+                    acknowledge( frame.txnr, frame.isOk() );
+                }
+                else if ( "serverclose".equals( frame.command ) ) {
+                    break;
+                }
+            }
+        }
+        catch ( IOException ignored ) {
+        }
+        boolean current;
+        windowLock.lock();
+        try {
+            current = socket == readerSocket;
+            if ( current ) {
+                broken = true;
+            }
+            windowChanged.signalAll();
+        }
+        finally {
+            windowLock.unlock();
+        }
+        if ( current ) {
+            // reconnect even if no event comes, to send the pending transactions again
+            getLock().lock();
+            try {
+                if ( isCurrent( readerSocket ) ) {
+                    connectionBroken();
+                }
+            }
+            finally {
+                getLock().unlock();
+            }
+        }
+    }
+
+    private boolean isCurrent( Socket readerSocket ) {
+        windowLock.lock();
+        try {
+            return socket == readerSocket;
+        }
+        finally {
+            windowLock.unlock();
+        }
+    }
+
+    private void acknowledge( int txnr, boolean ok ) {
+        Transaction transaction;
+        windowLock.lock();
+        try {
+            transaction = unacknowledged.remove( txnr );
+            windowChanged.signalAll();
+        }
+        finally {
+            windowLock.unlock();
+        }
+        if ( transaction == null ) {
+            return;
+        }
+        if ( !ok ) {
+            // refused by the destination, sending it again would not help
+            getMetrics().recordDropped();
+        }
+        if ( transaction.listener != null ) {
+            if ( ok ) {
+                transaction.listener.delivered( transaction.syslogMessage );
+            }
+            else {
+                transaction.listener.dropped( transaction.syslogMessage );
+            }
+        }
+    }
+
+    /**
+     * Send the event as a new transaction, once there is room in the window
+     */
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        awaitWindow();
+        // notified on acknowledgement rather than now
+        Transaction transaction = new Transaction( syslogMessage, syslogMessage.getDeliveryListener() );
+        syslogMessage.setDeliveryListener( null );
+        try {
+            send( transaction );
+        }
+        catch ( IOException e ) {
+            // left to the retry queue
+            windowLock.lock();
+            try {
+                unacknowledged.remove( lastTxnr );
+            }
+            finally {
+                windowLock.unlock();
+            }
+            syslogMessage.setDeliveryListener( transaction.listener );
+            throw e;
+        }
+    }
+
+    private void send( Transaction transaction )
+        throws IOException {
+        int txnr = nextTxnr();
+        windowLock.lock();
+        try {
+            unacknowledged.put( txnr, transaction );
+        }
+        finally {
+            windowLock.unlock();
+        }
+        byte[] data = transaction.syslogMessage.toString().getBytes( StandardCharsets.UTF_8 );
+        getMetrics().recordBytesSent( RelpFrame.write( out, txnr, "syslog", data ) );
+    }
+
+    /**
+     * Wait until fewer than windowSize transactions are pending, sending the batch written so far first
+     */
+    private void awaitWindow()
+        throws IOException {
+        windowLock.lock();
+        try {
+            if ( broken ) {
+                throw new IOException( "RELP connection closed" );
+            }
+            if ( unacknowledged.size() < getSettings().getWindowSize() ) {
+                return;
+            }
+        }
+        finally {
+            windowLock.unlock();
+        }
+        // flushed without holding the lock, the reader needs it to take in the acknowledgements
+        out.flush();
+        long timeout = getSettings().getSoTimeout();
+        long deadline = System.currentTimeMillis() + timeout;
+        windowLock.lock();
+        try {
+            while ( unacknowledged.size() >= getSettings().getWindowSize() && !broken ) {
+                long remaining = timeout > 0 ? deadline - System.currentTimeMillis() : 0;
+                if ( timeout > 0 && remaining <= 0 ) {
+                    throw new IOException( "No RELP acknowledgement within " + timeout + " ms" );
+                }
+                try {
+                    if ( timeout > 0 ) {
+                        windowChanged.await( remaining, TimeUnit.MILLISECONDS );
+                    }
+                    else {
+                        windowChanged.await();
+                    }
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException( "Interrupted while waiting for RELP acknowledgements" );
+                }
+            }
+            if ( broken ) {
+                throw new IOException( "RELP connection closed" );
+            }
+        }
+        finally {
+            windowLock.unlock();
+        }
+    }
+
+    private int nextTxnr() {
+        lastTxnr = lastTxnr == MAX_TXNR ? 1 : lastTxnr + 1;
+        return lastTxnr;
+    }
+
+    @Override
+    public void flush()
+        throws IOException {
+        windowLock.lock();
+        try {
+            if ( broken ) {
+                throw new IOException( "RELP connection closed" );
+            }
+        }
+        finally {
+            windowLock.unlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Close the connection, the pending transactions are kept for the next one
+     */
+    @Override
+    protected void closeConnection() {
+        Socket closed;
+        windowLock.lock();
+        try {
+            closed = socket;
+            socket = null;
+            windowChanged.signalAll();
+        }
+        finally {
+            windowLock.unlock();
+        }
+        if ( closed != null ) {
+            try {
+                closed.close();
+            }
+            catch ( IOException ignored ) {
+            }
+        }
+    }
+
+    /**
+     * Wait for the pending transactions to be acknowledged, close the RELP session and the connection. The events
+     * still not acknowledged are dropped.
+     */
+    @Override
+    public void close()
+        throws IOException {
+        if ( isConnected() ) {
+            try {
+                closeSession();
+            }
+            catch ( IOException ignored ) {
+            }
+        }
+        super.close();
+        List<Transaction> dropped;
+        windowLock.lock();
+        try {
+            dropped = new ArrayList<>( unacknowledged.values() );
+            unacknowledged.clear();
+        }
+        finally {
+            windowLock.unlock();
+        }
+        for ( Transaction transaction : dropped ) {
+            getMetrics().recordDropped();
+            if ( transaction.listener != null ) {
+                transaction.listener.dropped( transaction.syslogMessage );
+            }
+        }
+    }
+
+    private void closeSession()
+        throws IOException {
+        out.flush();
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MS;
+        windowLock.lock();
+        try {
+            while ( !unacknowledged.isEmpty() && !broken ) {
+                long remaining = deadline - System.currentTimeMillis();
+                if ( remaining <= 0 ) {
+                    break;
+                }
+                try {
+                    windowChanged.await( remaining, TimeUnit.MILLISECONDS );
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        finally {
+            windowLock.unlock();
+        }
+        RelpFrame.write( out, nextTxnr(), "close", NO_DATA );
+        out.flush();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.relp;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+
+/**
+ * Settings for forwarding logs using the Reliable Event Logging Protocol
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class RelpForwarderSettings
+    extends LogForwarderSettings {
+
+    private static final int DEFAULT_RELP_PORT = 20514;
+
+    private static final int DEFAULT_WINDOW_SIZE = 128;
+
+    private String host = "";
+
+    private int port = DEFAULT_RELP_PORT;
+
+    private int soTimeout = 0;
+
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    /**
+     * Get the host to connect to
+     *
+     * @return the destination host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Set the destination host
+     *
+     * @param host the destination host
+     */
+    public void setHost( String host ) {
+        this.host = host;
+    }
+
+    /**
+     * Get the port to use
+     *
+     * default: 20514
+     *
+     * @return the port number to use
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Set the port to use for the connection.
+     *
+     * Has no effect if the port number is 0;
+     *
+     * @param port the port to use.
+     */
+    public void setPort( int port ) {
+        if ( port == 0 )
+            return;
+        this.port = port;
+    }
+
+    /**
+     * Get the time to wait for the connection, and for an acknowledgement when the window is full
+     *
+     * default: 0 means wait indefinitely
+     *
+     * @return the timeout (in ms)
+     */
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+
+    /**
+     * Set the time to wait for the connection, and for an acknowledgement when the window is full
+     *
+     * @param soTimeout the timeout (in ms)
+     */
+    public void setSoTimeout( int soTimeout ) {
+        this.soTimeout = soTimeout;
+    }
+
+    /**
+     * Get the number of events sent and not acknowledged yet beyond which sending waits for acknowledgements
+     *
+     * default: 128
+     *
+     * @return the window size
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Set the number of events sent and not acknowledged yet beyond which sending waits for acknowledgements
+     *
+     * Has no effect if the size is lower than 1.
+     *
+     * @param windowSize the window size
+     */
+    public void setWindowSize( int windowSize ) {
+        if ( windowSize < 1 )
+            return;
+        this.windowSize = windowSize;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.relp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A RELP frame: TXNR SP COMMAND SP DATALEN [SP DATA] TRAILER
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class RelpFrame {
+
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    final int txnr;
+
+    final String command;
+
+    final byte[] data;
+
+    RelpFrame( int txnr, String command, byte[] data ) {
+        this.txnr = txnr;
+        this.command = command;
+        this.data = data;
+    }
+
+    /**
+     * Get whether this frame is a response reporting success
+     *
+     * @return true for a 200 response
+     */
+    boolean isOk() {
+        return "rsp".equals( command ) && data.length >= 3 && data[0] == '2' && data[1] == '0' && data[2] == '0';
+    }
+
+    String getDataAsString() {
+        return new String( data, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Write a frame
+     *
+     * @param out the stream
+     * @param txnr the transaction number
+     * @param command the command
+     * @param data the data, possibly empty
+     * @return the number of bytes written
+     * @throws IOException in case of connection issues
+     */
+    static int write( OutputStream out, int txnr, String command, byte[] data )
+        throws IOException {
+        StringBuilder header = new StringBuilder( MAX_TOKEN_LENGTH );
+        header.append( txnr ).append( ' ' ).append( command ).append( ' ' ).append( data.length );
+        if ( data.length > 0 ) {
+            header.append( ' ' );
+        }
+        byte[] headerBytes = header.toString().getBytes( StandardCharsets.US_ASCII );
+        out.write( headerBytes );
+        out.write( data );
+        out.write( '\n' );
+        return headerBytes.length + data.length + 1;
+    }
+
+    /**
+     * Read a frame
+     *
+     * @param in the stream
+     * @return the frame, or null if the stream ended between two frames
+     * @throws IOException in case of connection issues or malformed frame
+     */
+    static RelpFrame read( InputStream in )
+        throws IOException {
+        int first = in.read();
+        if ( first < 0 ) {
+            return null;
+        }
+        StringBuilder token = new StringBuilder( MAX_TOKEN_LENGTH );
+        token.append( (char) first );
+        readToken( in, token );
+        int txnr = parseNumber( token );
+        token.setLength( 0 );
+        readToken( in, token );
+        String command = token.toString();
+        token.setLength( 0 );
+        int end = readToken( in, token );
+        int length = parseNumber( token );
+        byte[] data = new byte[length];
+        if ( length > 0 ) {
+            if ( end != ' ' ) {
+                throw new IOException( "Malformed RELP frame: no data after length " + length );
+            }
+            int read = 0;
+            while ( read < length ) {
+                int count = in.read( data, read, length - read );
+                if ( count < 0 ) {
+                    throw new EOFException( "RELP connection closed within a frame" );
+                }
+                read += count;
+            }
+            end = in.read();
+        }
+        if ( end != '\n' ) {
+            throw new IOException( "Malformed RELP frame: no trailer" );
+        }
+        return new RelpFrame( txnr, command, data );
+    }
+
+    /**
+     * Read up to the next space or line feed
+     *
+     * @return the separator found
+     */
+    private static int readToken( InputStream in, StringBuilder token )
+        throws IOException {
+        while ( true ) {
+            int c = in.read();
+            if ( c < 0 ) {
+                throw new EOFException( "RELP connection closed within a frame" );
+            }
+            if ( c == ' ' || c == '\n' ) {
+                return c;
+            }
+            if ( token.length() >= MAX_TOKEN_LENGTH ) {
+                throw new IOException( "Malformed RELP frame header" );
+            }
+            token.append( (char) c );
+        }
+    }
+
+    private static int parseNumber( CharSequence token )
+        throws IOException {
+        try {
+            return Integer.parseInt( token.toString() );
+        }
+        catch ( NumberFormatException e ) {
+            throw new IOException( "Malformed RELP frame: " + token + " is not a number" );
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Notified of the outcome of a syslog message, once. Called from the thread writing the message, it must not block.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public interface DeliveryListener {
+
+    /**
+     * The message was written to the connection
+     *
+     * @param syslogMessage the message
+     */
+    void delivered( SyslogMessage syslogMessage );
+
+    /**
+     * The message was dropped: no connection, queue full, or suppressed by the rate limiting or the duplicate
+     * suppression
+     *
+     * @param syslogMessage the message
+     */
+    void dropped( SyslogMessage syslogMessage );
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Collapses repeated identical messages, as syslogd does. The first occurrence of a message is sent; identical
+ * messages (same body and severity) within dedupeWindow ms are counted instead. Once the window is over, the count is
+ * reported by a single "message repeated N times: [...]" event, sent along with one of the following events since no
+ * timer is involved.
+ *
+ * Recent messages are kept in a fixed-size open-addressing table, with a short linear probe. A full table simply
+ * forgets the oldest message of the probed slots, so the cost per event stays constant.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class DuplicateSuppressionStage
+    implements EventStage {
+
+    private static final int PROBES = 4;
+
+    // expired slots checked on each event, so that the repeat counts are reported without a timer
+    private static final int SWEEP_PER_EVENT = 2;
+
+    private final int mask;
+
+    private final long windowNanos;
+
+    private final ForwarderMetrics metrics;
+
+    private final int[] hashes;
+
+    private final String[] bodies;
+
+    private final Severity[] severities;
+
+    // first occurrence of the message held by each slot, null if the slot is free
+    private final SyslogMessage[] firsts;
+
+    private final long[] windowStarts;
+
+    private final long[] lastSeen;
+
+    private final int[] repeats;
+
+    private int sweepCursor;
+
+    public DuplicateSuppressionStage( LogForwarderSettings settings, ForwarderMetrics metrics ) {
+        int size = Integer.highestOneBit( Math.max( PROBES, settings.getDedupeTableSize() ) - 1 ) << 1;
+        this.mask = size - 1;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos( settings.getDedupeWindow() );
+        this.metrics = metrics;
+        hashes = new int[size];
+        bodies = new String[size];
+        severities = new Severity[size];
+        firsts = new SyslogMessage[size];
+        windowStarts = new long[size];
+        lastSeen = new long[size];
+        repeats = new int[size];
+    }
+
+    @Override
+    public void process( SyslogMessage syslogMessage, boolean flush, EventSink next ) {
+        List<SyslogMessage> summaries = null;
+        boolean repeated;
+        synchronized ( this ) {
+            long now = System.nanoTime();
+            summaries = sweep( now, summaries );
+            String body = syslogMessage.getMessage();
+            Severity severity = syslogMessage.getSeverity();
+            int hash = spread( ( body == null ? 0 : body.hashCode() ) * 31 + severity.ordinal() );
+
+            int slot = -1;
+            int victim = -1;
+            for ( int i = 0; i < PROBES; i++ ) {
+                int candidate = ( hash + i ) & mask;
+                if ( firsts[candidate] == null ) {
+                    // free slot, preferred as victim
+                    if ( victim < 0 || firsts[victim] != null ) {
+                        victim = candidate;
+                    }
+                }
+                else if ( hashes[candidate] == hash && severities[candidate] == severity
+                    && ( body == null ? bodies[candidate] == null : body.equals( bodies[candidate] ) ) ) {
+                    slot = candidate;
+                    break;
+                }
+                else if ( victim < 0 || ( firsts[victim] != null && lastSeen[candidate] - lastSeen[victim] < 0 ) ) {
+                    // least recently seen message
+                    victim = candidate;
+                }
+            }
+
+            if ( slot >= 0 && now - windowStarts[slot] < windowNanos ) {
+                repeats[slot]++;
+                lastSeen[slot] = now;
+                repeated = true;
+            }
+            else {
+                if ( slot < 0 ) {
+                    slot = victim;
+                }
+                summaries = release( slot, summaries );
+                hashes[slot] = hash;
+                bodies[slot] = body;
+                severities[slot] = severity;
+                firsts[slot] = syslogMessage;
+                windowStarts[slot] = now;
+                lastSeen[slot] = now;
+                repeated = false;
+            }
+        }
+
+        if ( summaries != null ) {
+            for ( SyslogMessage summary : summaries ) {
+                next.forward( summary, flush && repeated );
+            }
+        }
+        if ( repeated ) {
+            metrics.recordSuppressed();
+            syslogMessage.notifyDropped();
+        }
+        else {
+            next.forward( syslogMessage, flush );
+        }
+    }
+
+    /**
+     * Free the slots whose window is over, among the next few slots
+     */
+    private List<SyslogMessage> sweep( long now, List<SyslogMessage> summaries ) {
+        for ( int i = 0; i < SWEEP_PER_EVENT; i++ ) {
+            int slot = sweepCursor;
+            sweepCursor = ( sweepCursor + 1 ) & mask;
+            if ( firsts[slot] != null && now - windowStarts[slot] >= windowNanos ) {
+                summaries = release( slot, summaries );
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Free a slot, building the summary of its repeats if any
+     */
+    private List<SyslogMessage> release( int slot, List<SyslogMessage> summaries ) {
+        SyslogMessage first = firsts[slot];
+        if ( first != null && repeats[slot] > 0 ) {
+            SyslogMessage summary = new SyslogMessage();
+            summary.setRawMode( first.isRawMode() );
+            summary.setSeverity( severities[slot] );
+            summary.setAppName( first.getAppName() );
+            summary.setProcId( first.getProcId() );
+            summary.setLoggerName( first.getLoggerName() );
+            summary.setTimestamp( System.currentTimeMillis()
+                - TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - lastSeen[slot] ) );
+            summary.setMessage( "message repeated " + repeats[slot] + " times: [" + bodies[slot] + "]" );
+            if ( summaries == null ) {
+                summaries = new ArrayList<>( 2 );
+            }
+            summaries.add( summary );
+        }
+        firsts[slot] = null;
+        bodies[slot] = null;
+        repeats[slot] = 0;
+        return summaries;
+    }
+
+    private static int spread( int hash ) {
+        hash *= 0x9e3779b9;
+        return hash ^ ( hash >>> 16 );
+    }
+}
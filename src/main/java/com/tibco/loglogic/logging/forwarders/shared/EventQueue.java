@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Queue of the events waiting for the connection to come back, bounded by the maxQueueSize setting.
+ *
+ * Implementations are not thread-safe, the forwarder calls them under its own lock.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public interface EventQueue {
+
+    /**
+     * Add an event, evicting other events if lacking room
+     *
+     * @param event the event
+     * @param eventSize the size of the event once encoded
+     * @return the number of events dropped, including the added event itself if it was rejected
+     */
+    int add( SyslogMessage event, long eventSize );
+
+    /**
+     * Remove the next event to send
+     *
+     * @return the event, or null if the queue is empty
+     */
+    SyslogMessage poll();
+
+    boolean isEmpty();
+
+    /**
+     * Get the number of events in the queue
+     *
+     * @return the number of events
+     */
+    int size();
+
+    /**
+     * Get the size of the events in the queue
+     *
+     * @return the size in bytes
+     */
+    long getSizeInBytes();
+}
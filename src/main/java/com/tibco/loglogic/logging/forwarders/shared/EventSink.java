@@ -0,0 +1,23 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Receives the events passed on by an event stage
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public interface EventSink {
+
+    /**
+     * Pass the event on to the next stage, or to the forwarder after the last stage
+     *
+     * @param syslogMessage the syslog message
+     * @param flush whether the connection should be flushed after sending
+     */
+    void forward( SyslogMessage syslogMessage, boolean flush );
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * A step between the appenders and the forwarder, which may drop events, let them through, or emit events of its own.
+ *
+ * Stages are called concurrently by the logging threads, and must be thread-safe.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public interface EventStage {
+
+    /**
+     * Process an event
+     *
+     * @param syslogMessage the syslog message, not yet stamped by the forwarder
+     * @param flush whether the connection should be flushed after sending
+     * @param next where to pass the events that go through
+     */
+    void process( SyslogMessage syslogMessage, boolean flush, EventSink next );
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the same events to several destinations, for instance a syslog TCP and a ULDP destination.
+ *
+ * Each event is stamped and formatted once, then handed to every destination forwarder. Each destination is wrapped in
+ * a SingleWriterForwarder: the calling thread only stages the event, and the writer thread of each destination writes
+ * and flushes it. Each destination also keeps its own queue and reconnects on its own, so a destination that is down,
+ * slow or blocked in a write does not hold up the logging threads nor delivery to the others.
+ *
+ * Each destination gets its own copy of the event. The delivery listener of the event is notified of its delivery as
+ * soon as one destination has delivered it, and of its drop once all the destinations have dropped it.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class FanOutForwarder
+    extends LogForwarder {
+
+    /**
+     * Combines the outcomes of the copies of an event into the outcome of the event
+     */
+    private static final class Outcome
+        implements DeliveryListener {
+
+        private final SyslogMessage syslogMessage;
+
+        private final DeliveryListener listener;
+
+        private final AtomicInteger pending;
+
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        Outcome( SyslogMessage syslogMessage, DeliveryListener listener, int copies ) {
+            this.syslogMessage = syslogMessage;
+            this.listener = listener;
+            this.pending = new AtomicInteger( copies );
+        }
+
+        @Override
+        public void delivered( SyslogMessage copy ) {
+            pending.decrementAndGet();
+            if ( notified.compareAndSet( false, true ) ) {
+                listener.delivered( syslogMessage );
+            }
+        }
+
+        @Override
+        public void dropped( SyslogMessage copy ) {
+            if ( pending.decrementAndGet() <= 0 && notified.compareAndSet( false, true ) ) {
+                listener.dropped( syslogMessage );
+            }
+        }
+    }
+
+    private final List<LogForwarder> forwarders = new ArrayList<>();
+
+    public FanOutForwarder( FanOutForwarderSettings settings ) {
+        super( settings );
+    }
+
+    /**
+     * Add a destination. Must be called before connecting.
+     *
+     * @param forwarder the forwarder handling the destination, wrapped in a SingleWriterForwarder unless it is one
+     */
+    public void addForwarder( LogForwarder forwarder ) {
+        if ( forwarder instanceof SingleWriterForwarder ) {
+            forwarders.add( forwarder );
+        }
+        else {
+            forwarders.add( new SingleWriterForwarder( forwarder ) );
+        }
+    }
+
+    /**
+     * Connect to all destinations. Succeeds as long as at least one destination is reached, the others keep connecting
+     * in the background.
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        IOException failure = null;
+        boolean oneConnected = false;
+        for ( LogForwarder forwarder : forwarders ) {
+            forwarder.getLock().lock();
+            try {
+                if ( forwarder.isConnected() ) {
+                    oneConnected = true;
+                    continue;
+                }
+                if ( forwarder.isConnecting() ) {
+                    continue;
+                }
+                try {
+                    forwarder.connect();
+                    oneConnected = true;
+                }
+                catch ( IOException e ) {
+                    failure = e;
+                    forwarder.connectInBackground();
+                }
+            }
+            finally {
+                forwarder.getLock().unlock();
+            }
+        }
+        if ( !oneConnected ) {
+            if ( failure == null ) {
+                throw new IOException( forwarders.isEmpty() ? "No destination configured" : "No destination reached yet" );
+            }
+            throw failure;
+        }
+    }
+
+    /**
+     * close all the destinations
+     */
+    @Override
+    protected void closeConnection() {
+        for ( LogForwarder forwarder : forwarders ) {
+            forwarder.getLock().lock();
+            try {
+                try {
+                    forwarder.close();
+                }
+                catch ( Exception ignored ) {
+                }
+            }
+            finally {
+                forwarder.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Hand the event to every destination, for the events queued by this forwarder. Its listener is notified by the
+     * destinations, as for the events forwarded right away.
+     */
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage ) {
+        handOff( syslogMessage );
+    }
+
+    /**
+     * Nothing to do, the writer of each destination flushes on its own
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Format the event once and hand a copy of it to every destination
+     *
+     * @param syslogMessage the syslog message to send
+     * @param flush ignored, the writer of each destination flushes once its pending events are written
+     */
+    @Override
+    public void forwardPreparedEvent( SyslogMessage syslogMessage, boolean flush ) {
+        handOff( syslogMessage );
+    }
+
+    private void handOff( SyslogMessage syslogMessage ) {
+        // render once, the copies reuse the result
+        syslogMessage.toString();
+        DeliveryListener listener = syslogMessage.getDeliveryListener();
+        Outcome outcome = null;
+        if ( listener != null ) {
+            syslogMessage.setDeliveryListener( null );
+            if ( forwarders.isEmpty() ) {
+                listener.dropped( syslogMessage );
+                return;
+            }
+            outcome = new Outcome( syslogMessage, listener, forwarders.size() );
+        }
+        for ( LogForwarder forwarder : forwarders ) {
+            SyslogMessage copy = syslogMessage.copy();
+            copy.setDeliveryListener( outcome );
+            try {
+                // only staged, the writer of the destination writes it
+                forwarder.forwardPreparedEvent( copy, false );
+            }
+            catch ( RuntimeException ignored ) {
+                // a failing destination must not prevent delivery to the others
+                copy.notifyDropped();
+            }
+        }
+    }
+}
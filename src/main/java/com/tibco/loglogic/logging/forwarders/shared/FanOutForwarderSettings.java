@@ -0,0 +1,17 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Settings of a fan-out forwarder: the source, facility and application name put in the messages before they are
+ * handed to all the destinations.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class FanOutForwarderSettings
+    extends LogForwarderSettings {
+}
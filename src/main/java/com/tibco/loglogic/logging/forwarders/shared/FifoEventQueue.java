@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.util.LinkedList;
+
+/**
+ * Single FIFO queue. Once the limit is reached, the oldest event is discarded.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class FifoEventQueue
+    implements EventQueue {
+
+    // Using this collection structure to implement the FIFO queue
+    private final LinkedList<SyslogMessage> queue = new LinkedList<>();
+
+    private volatile long currentQueueSizeInBytes = 0;
+
+    private final LogForwarderSettings settings;
+
+    public FifoEventQueue( LogForwarderSettings settings ) {
+        this.settings = settings;
+    }
+
+    @Override
+    public int add( SyslogMessage event, long eventSize ) {
+        if ( eventSize > settings.getMaxQueueSize() ) {
+            // would not fit even in an empty queue
+            event.notifyDropped();
+            return 1;
+        }
+
+        int dropped = 0;
+        while ( currentQueueSizeInBytes + eventSize > settings.getMaxQueueSize() && !queue.isEmpty() ) {
+            SyslogMessage evicted = queue.removeLast();
+            currentQueueSizeInBytes -= LogForwarder.encodedLength( evicted.toString() );
+            evicted.notifyDropped();
+            dropped++;
+        }
+
+        queue.addFirst( event );
+        currentQueueSizeInBytes += eventSize;
+        return dropped;
+    }
+
+    @Override
+    public SyslogMessage poll() {
+        if ( queue.isEmpty() ) {
+            return null;
+        }
+        SyslogMessage event = queue.removeLast();
+        currentQueueSizeInBytes -= LogForwarder.encodedLength( event.toString() );
+        if ( currentQueueSizeInBytes < 0 || queue.isEmpty() ) {
+            currentQueueSizeInBytes = 0;
+        }
+        return event;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return currentQueueSizeInBytes;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Runs the background work of the forwarders, such as health checks, reconnections and writer loops.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public abstract class ForwarderExecutor {
+
+    /**
+     * Kind of threads running the background work
+     */
+    public enum ThreadType {
+        /**
+         * Regular daemon threads
+         */
+        PLATFORM,
+        /**
+         * Virtual threads, requires Java 21 or later
+         */
+        VIRTUAL,
+        /**
+         * Virtual threads when the JVM supports them, regular daemon threads otherwise
+         */
+        AUTO
+    }
+
+    private static final ForwarderExecutor PLATFORM = new PlatformThreadExecutor();
+
+    /**
+     * Get the executor for the given kind of threads. Falls back to platform threads if virtual threads are not
+     * supported by the JVM.
+     *
+     * @param threadType the kind of threads
+     * @return the executor
+     */
+    public static ForwarderExecutor forType( ThreadType threadType ) {
+        if ( threadType != ThreadType.PLATFORM && VirtualThreadExecutor.isSupported() ) {
+            return VirtualThreadExecutor.INSTANCE;
+        }
+        return PLATFORM;
+    }
+
+    /**
+     * Start a background task on a new thread. The thread does not prevent the JVM from exiting.
+     *
+     * @param name the name of the thread
+     * @param task the task
+     * @return the thread running the task, which can be interrupted to stop it
+     */
+    public abstract Thread start( String name, Runnable task );
+
+    /**
+     * Get whether the threads started are virtual threads
+     *
+     * @return true for virtual threads
+     */
+    public abstract boolean isVirtual();
+}
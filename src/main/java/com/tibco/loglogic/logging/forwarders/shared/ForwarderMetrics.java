@@ -0,0 +1,377 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Runtime metrics of a log forwarder: events and bytes sent, events dropped or suppressed by rate limiting, queue size,
+ * reconnection attempts, switches over to a standby connection, events written again, send and flush latencies.
+ *
+ * The metrics of a forwarder composed of other forwarders (pool, load balancer, fan-out) include the metrics of its
+ * children. They can be registered as an MBean named
+ * <code>com.tibco.loglogic.logging:type=LogForwarder,name=&lt;appender name&gt;</code>.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class ForwarderMetrics
+    implements ForwarderMetricsMBean {
+
+    public static final String JMX_DOMAIN = "com.tibco.loglogic.logging";
+
+    private final LogForwarder forwarder;
+
+    private final List<ForwarderMetrics> children = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private final AtomicLong eventsDropped = new AtomicLong();
+
+    private final AtomicLong eventsSuppressed = new AtomicLong();
+
+    private final AtomicLong reconnectAttempts = new AtomicLong();
+
+    private final AtomicLong failovers = new AtomicLong();
+
+    private final AtomicLong eventsReplayed = new AtomicLong();
+
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+    // the metrics registered under each name by this class loader, guarded by itself
+    private static final Map<ObjectName, ForwarderMetrics> OWNERS = new HashMap<>();
+
+    private ObjectName objectName;
+
+    ForwarderMetrics( LogForwarder forwarder ) {
+        this.forwarder = forwarder;
+    }
+
+    /**
+     * Include the metrics of a forwarder this forwarder delegates to
+     *
+     * @param child the metrics of the child forwarder
+     */
+    public void addChild( ForwarderMetrics child ) {
+        children.add( child );
+    }
+
+    public void recordSent( long nanos ) {
+        eventsSent.incrementAndGet();
+        sendLatency.record( nanos );
+    }
+
+    public void recordBytesSent( long bytes ) {
+        bytesSent.addAndGet( bytes );
+    }
+
+    public void recordDropped() {
+        eventsDropped.incrementAndGet();
+    }
+
+    public void recordDropped( int count ) {
+        eventsDropped.addAndGet( count );
+    }
+
+    public void recordSuppressed() {
+        eventsSuppressed.incrementAndGet();
+    }
+
+    public void recordReconnectAttempt() {
+        reconnectAttempts.incrementAndGet();
+    }
+
+    public void recordFailover() {
+        failovers.incrementAndGet();
+    }
+
+    public void recordReplayed( int count ) {
+        eventsReplayed.addAndGet( count );
+    }
+
+    public void recordFlush( long nanos ) {
+        flushLatency.record( nanos );
+    }
+
+    @Override
+    public long getEventsSent() {
+        long total = eventsSent.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getEventsSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesSent() {
+        long total = bytesSent.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getBytesSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getEventsDropped() {
+        long total = eventsDropped.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getEventsDropped();
+        }
+        return total;
+    }
+
+    @Override
+    public long getEventsSuppressed() {
+        long total = eventsSuppressed.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getEventsSuppressed();
+        }
+        return total;
+    }
+
+    @Override
+    public long getQueueSizeInBytes() {
+        long total = forwarder.getQueueSizeInBytes();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getQueueSizeInBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int total = forwarder.getQueueDepth();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getQueueDepth();
+        }
+        return total;
+    }
+
+    @Override
+    public long getReconnectAttempts() {
+        long total = reconnectAttempts.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getReconnectAttempts();
+        }
+        return total;
+    }
+
+    @Override
+    public long getFailovers() {
+        long total = failovers.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getFailovers();
+        }
+        return total;
+    }
+
+    @Override
+    public long getEventsReplayed() {
+        long total = eventsReplayed.get();
+        for ( ForwarderMetrics child : children ) {
+            total += child.getEventsReplayed();
+        }
+        return total;
+    }
+
+    /**
+     * Get the distribution of the time spent writing each event, including the children
+     *
+     * @return the send latency histograms
+     */
+    public LatencyHistogram[] getSendLatencies() {
+        LatencyHistogram[] histograms = new LatencyHistogram[] { sendLatency };
+        for ( ForwarderMetrics child : children ) {
+            histograms = concat( histograms, child.getSendLatencies() );
+        }
+        return histograms;
+    }
+
+    /**
+     * Get the distribution of the time spent flushing, including the children
+     *
+     * @return the flush latency histograms
+     */
+    public LatencyHistogram[] getFlushLatencies() {
+        LatencyHistogram[] histograms = new LatencyHistogram[] { flushLatency };
+        for ( ForwarderMetrics child : children ) {
+            histograms = concat( histograms, child.getFlushLatencies() );
+        }
+        return histograms;
+    }
+
+    @Override
+    public long getSendLatencyMeanMicros() {
+        return meanMicros( getSendLatencies() );
+    }
+
+    @Override
+    public long getSendLatency99thPercentileMicros() {
+        return TimeUnit.NANOSECONDS.toMicros( LatencyHistogram.percentileOf( getSendLatencies(), 99.0 ) );
+    }
+
+    @Override
+    public long getSendLatencyMaxMicros() {
+        return maxMicros( getSendLatencies() );
+    }
+
+    @Override
+    public long getFlushCount() {
+        long total = 0;
+        for ( LatencyHistogram histogram : getFlushLatencies() ) {
+            total += histogram.getCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getFlushLatencyMeanMicros() {
+        return meanMicros( getFlushLatencies() );
+    }
+
+    @Override
+    public long getFlushLatency99thPercentileMicros() {
+        return TimeUnit.NANOSECONDS.toMicros( LatencyHistogram.percentileOf( getFlushLatencies(), 99.0 ) );
+    }
+
+    @Override
+    public long getFlushLatencyMaxMicros() {
+        return maxMicros( getFlushLatencies() );
+    }
+
+    /**
+     * Clear all the counters and histograms, including the children's
+     */
+    @Override
+    public void reset() {
+        eventsSent.set( 0 );
+        bytesSent.set( 0 );
+        eventsDropped.set( 0 );
+        eventsSuppressed.set( 0 );
+        reconnectAttempts.set( 0 );
+        failovers.set( 0 );
+        eventsReplayed.set( 0 );
+        sendLatency.reset();
+        flushLatency.reset();
+        for ( ForwarderMetrics child : children ) {
+            child.reset();
+        }
+    }
+
+    /**
+     * Register these metrics in the platform MBean server. When other metrics are registered under the same name, such
+     * as those of an appender being replaced by a reconfiguration, these ones take over the name: the others are then
+     * no longer registered, as isRegistered() tells them. Registration failures are ignored, so that metrics never
+     * prevent logging.
+     *
+     * @param name the name of the appender or handler owning the forwarder
+     * @return true if registered
+     */
+    public synchronized boolean register( String name ) {
+        unregister();
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName newObjectName = new ObjectName( JMX_DOMAIN + ":type=LogForwarder,name="
+                + ObjectName.quote( name == null ? "unnamed" : name ) );
+            synchronized ( OWNERS ) {
+                try {
+                    mBeanServer.registerMBean( this, newObjectName );
+                }
+                catch ( InstanceAlreadyExistsException e ) {
+                    // registered by the previous owner, or left over by another class loader
+                    mBeanServer.unregisterMBean( newObjectName );
+                    mBeanServer.registerMBean( this, newObjectName );
+                }
+                // the previous owner does not unregister the name any more
+                OWNERS.put( newObjectName, this );
+            }
+            objectName = newObjectName;
+            return true;
+        }
+        catch ( JMException e ) {
+            return false;
+        }
+        catch ( SecurityException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Get whether these metrics are registered in the platform MBean server
+     *
+     * @return false if not registered, unregistered, or replaced since by other metrics registered under the same name
+     */
+    public synchronized boolean isRegistered() {
+        if ( objectName == null ) {
+            return false;
+        }
+        synchronized ( OWNERS ) {
+            return OWNERS.get( objectName ) == this;
+        }
+    }
+
+    /**
+     * Remove these metrics from the platform MBean server, if registered and not replaced since
+     */
+    public synchronized void unregister() {
+        if ( objectName == null ) {
+            return;
+        }
+        synchronized ( OWNERS ) {
+            if ( OWNERS.get( objectName ) == this ) {
+                OWNERS.remove( objectName );
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+                }
+                catch ( JMException ignored ) {
+                }
+                catch ( SecurityException ignored ) {
+                }
+            }
+        }
+        objectName = null;
+    }
+
+    private static LatencyHistogram[] concat( LatencyHistogram[] first, LatencyHistogram[] second ) {
+        LatencyHistogram[] result = new LatencyHistogram[first.length + second.length];
+        System.arraycopy( first, 0, result, 0, first.length );
+        System.arraycopy( second, 0, result, first.length, second.length );
+        return result;
+    }
+
+    private static long meanMicros( LatencyHistogram[] histograms ) {
+        long count = 0;
+        long total = 0;
+        for ( LatencyHistogram histogram : histograms ) {
+            count += histogram.getCount();
+            total += histogram.getTotalNanos();
+        }
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros( total / count );
+    }
+
+    private static long maxMicros( LatencyHistogram[] histograms ) {
+        long max = 0;
+        for ( LatencyHistogram histogram : histograms ) {
+            max = Math.max( max, histogram.getMaxNanos() );
+        }
+        return TimeUnit.NANOSECONDS.toMicros( max );
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * JMX view of the runtime metrics of a log forwarder. Latencies are reported in microseconds.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public interface ForwarderMetricsMBean {
+
+    long getEventsSent();
+
+    long getBytesSent();
+
+    long getEventsDropped();
+
+    long getEventsSuppressed();
+
+    long getQueueSizeInBytes();
+
+    int getQueueDepth();
+
+    long getReconnectAttempts();
+
+    long getFailovers();
+
+    long getEventsReplayed();
+
+    long getSendLatencyMeanMicros();
+
+    long getSendLatency99thPercentileMicros();
+
+    long getSendLatencyMaxMicros();
+
+    long getFlushCount();
+
+    long getFlushLatencyMeanMicros();
+
+    long getFlushLatency99thPercentileMicros();
+
+    long getFlushLatencyMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Forwarders shared by the appenders of a JVM, so that appenders with the same settings use one connection and one
+ * queue rather than one each.
+ *
+ * Forwarders are keyed by their class and the values of all their settings: appenders differing by any setting, be it
+ * the application name or the queue size, get their own forwarder. Secrets, such as keystore passwords, are only kept
+ * as a hash in the keys. A shared forwarder is closed once released by all the appenders which acquired it. Its
+ * metrics are registered under the name of the first appender.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class ForwarderRegistry {
+
+    private static final int MAX_DEPTH = 4;
+
+    // fields whose name contains one of these hold secrets
+    private static final String[] SECRET_FIELDS = { "password", "passphrase", "secret" };
+
+    private static final class Entry {
+
+        final String key;
+
+        final LogForwarder forwarder;
+
+        int references;
+
+        Entry( String key, LogForwarder forwarder ) {
+            this.key = key;
+            this.forwarder = forwarder;
+        }
+    }
+
+    private static final Map<String, Entry> ENTRIES_BY_KEY = new HashMap<>();
+
+    private static final Map<LogForwarder, Entry> ENTRIES_BY_FORWARDER = new IdentityHashMap<>();
+
+    // numbers the values which cannot be compared
+    private static long uncomparable;
+
+    private ForwarderRegistry() {
+    }
+
+    /**
+     * Get the forwarder shared by the appenders with the same settings as the given one. If there is none yet, the
+     * given forwarder becomes the shared one: its metrics are registered and it starts connecting in the background.
+     *
+     * @param name the name of the appender
+     * @param candidate a forwarder not connected yet, discarded if another one is shared already
+     * @return the shared forwarder, to give back to release()
+     */
+    public static synchronized LogForwarder acquire( String name, LogForwarder candidate ) {
+        String key = keyOf( candidate );
+        Entry entry = ENTRIES_BY_KEY.get( key );
+        if ( entry == null ) {
+            entry = new Entry( key, candidate );
+            candidate.getMetrics().register( name );
+            // the first events wait in the queue until connected
+            candidate.connectInBackground();
+            ENTRIES_BY_KEY.put( key, entry );
+            ENTRIES_BY_FORWARDER.put( candidate, entry );
+        }
+        entry.references++;
+        return entry.forwarder;
+    }
+
+    /**
+     * Give back a forwarder obtained from acquire(), closing it if no other appender uses it. A forwarder which was not
+     * acquired is closed.
+     *
+     * @param forwarder the forwarder
+     * @throws IOException if closing the forwarder fails
+     */
+    public static void release( LogForwarder forwarder )
+        throws IOException {
+        synchronized ( ForwarderRegistry.class ) {
+            Entry entry = ENTRIES_BY_FORWARDER.get( forwarder );
+            if ( entry != null ) {
+                if ( --entry.references > 0 ) {
+                    return;
+                }
+                ENTRIES_BY_KEY.remove( entry.key );
+                ENTRIES_BY_FORWARDER.remove( forwarder );
+            }
+        }
+        // outside of the lock, closing waits for the queue to be sent
+        forwarder.getMetrics().unregister();
+        forwarder.close();
+    }
+
+    /**
+     * Get the number of appenders using a forwarder
+     *
+     * @param forwarder the forwarder
+     * @return the number of acquire() not released yet, 0 if the forwarder is not shared
+     */
+    public static synchronized int getReferences( LogForwarder forwarder ) {
+        Entry entry = ENTRIES_BY_FORWARDER.get( forwarder );
+        return entry == null ? 0 : entry.references;
+    }
+
+    // called with the lock held
+    static String keyOf( LogForwarder forwarder ) {
+        StringBuilder key = new StringBuilder( forwarder.getClass().getName() );
+        key.append( '/' ).append( forwarder.getSettings().getClass().getName() );
+        appendFields( key, forwarder.getSettings(), 0 );
+        return key.toString();
+    }
+
+    private static void appendValue( StringBuilder key, Object value, int depth ) {
+        if ( value == null ) {
+            key.append( "null" );
+        }
+        else if ( value instanceof CharSequence ) {
+            // the length keeps values containing separators apart
+            key.append( value.toString().length() ).append( '"' ).append( value ).append( '"' );
+        }
+        else if ( value instanceof Number || value instanceof Boolean || value instanceof Character
+            || value instanceof Enum ) {
+            key.append( value );
+        }
+        else if ( value.getClass().isArray() ) {
+            key.append( '[' );
+            for ( int i = 0; i < Array.getLength( value ); i++ ) {
+                appendValue( key, Array.get( value, i ), depth );
+                key.append( ',' );
+            }
+            key.append( ']' );
+        }
+        else if ( value instanceof Iterable ) {
+            key.append( '[' );
+            for ( Object element : (Iterable<?>) value ) {
+                appendValue( key, element, depth );
+                key.append( ',' );
+            }
+            key.append( ']' );
+        }
+        else if ( value.getClass().getName().startsWith( "java" ) || depth >= MAX_DEPTH ) {
+            key.append( value.getClass().getName() ).append( '@' ).append( value );
+        }
+        else {
+            // such as the destinations of a forwarder, compared by their own fields
+            appendFields( key, value, depth + 1 );
+        }
+    }
+
+    private static void appendFields( StringBuilder key, Object object, int depth ) {
+        key.append( '{' );
+        for ( Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass() ) {
+            for ( Field field : type.getDeclaredFields() ) {
+                if ( Modifier.isStatic( field.getModifiers() ) || field.isSynthetic() ) {
+                    continue;
+                }
+                key.append( field.getName() ).append( '=' );
+                try {
+                    field.setAccessible( true );
+                    Object value = field.get( object );
+                    if ( value != null && isSecret( field ) ) {
+                        key.append( "sha256:" ).append( hash( value ) );
+                    }
+                    else {
+                        appendValue( key, value, depth );
+                    }
+                }
+                catch ( IllegalAccessException | NoSuchAlgorithmException | RuntimeException e ) {
+                    // not comparable, the object is then never taken for another one
+                    key.append( '#' ).append( ++uncomparable );
+                }
+                key.append( ';' );
+            }
+        }
+        key.append( '}' );
+    }
+
+    private static boolean isSecret( Field field ) {
+        String name = field.getName().toLowerCase();
+        for ( String secret : SECRET_FIELDS ) {
+            if ( name.contains( secret ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the same secrets still give the same key, without the key revealing them
+    private static String hash( Object secret )
+        throws NoSuchAlgorithmException {
+        String text = secret instanceof char[] ? new String( (char[]) secret ) : secret.toString();
+        byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( text.getBytes( StandardCharsets.UTF_8 ) );
+        StringBuilder hex = new StringBuilder( digest.length * 2 );
+        for ( byte b : digest ) {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+        return hex.toString();
+    }
+}
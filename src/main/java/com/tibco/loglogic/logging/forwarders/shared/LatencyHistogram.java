@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power of two buckets, in the spirit of HdrHistogram with one significant bit.
+ * Recording is a couple of atomic increments and never allocates; percentiles are reported as the upper bound of the
+ * bucket they fall in, so they are accurate within a factor of two.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class LatencyHistogram {
+
+    // bucket i holds the values v such that 2^(i-1) <= v < 2^i, bucket 0 holds 0
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a duration
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record( long nanos ) {
+        if ( nanos < 0 ) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet( BUCKET_COUNT - Long.numberOfLeadingZeros( nanos ) );
+        count.incrementAndGet();
+        total.addAndGet( nanos );
+        long currentMax = max.get();
+        while ( nanos > currentMax && !max.compareAndSet( currentMax, nanos ) ) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return total.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Get the upper bound of the bucket containing the given percentile
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentileNanos( double percentile ) {
+        return percentileOf( new LatencyHistogram[] { this }, percentile );
+    }
+
+    /**
+     * Clear all the recorded values
+     */
+    public void reset() {
+        for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+            buckets.set( i, 0 );
+        }
+        count.set( 0 );
+        total.set( 0 );
+        max.set( 0 );
+    }
+
+    /**
+     * Compute a percentile over the values recorded by several histograms, as if they were a single one
+     *
+     * @param histograms the histograms to merge
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds, 0 if nothing was recorded
+     */
+    static long percentileOf( LatencyHistogram[] histograms, double percentile ) {
+        long[] merged = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        long maxNanos = 0;
+        for ( LatencyHistogram histogram : histograms ) {
+            for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+                long bucketCount = histogram.buckets.get( i );
+                merged[i] += bucketCount;
+                totalCount += bucketCount;
+            }
+            maxNanos = Math.max( maxNanos, histogram.getMaxNanos() );
+        }
+        if ( totalCount == 0 ) {
+            return 0;
+        }
+        long rank = (long) Math.ceil( totalCount * Math.min( 100.0, Math.max( 0.0, percentile ) ) / 100.0 );
+        long seen = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+            seen += merged[i];
+            if ( seen >= rank && merged[i] > 0 ) {
+                long upperBound = i == 0 ? 0 : ( 1L << i ) - 1;
+                return Math.min( upperBound, maxNanos );
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Escapes the CR and LF characters of a message as "\r" and "\n", so that the message fits on a single line, in a
+ * single pass.
+ *
+ * Most messages contain no line break at all: they are scanned 8 bytes at a time and left untouched. Messages that do
+ * contain line breaks are expanded in place, from the end, with bulk copies of the runs between line breaks.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class LineBreakEscaper {
+
+    private static final long LF_PATTERN = 0x0a0a0a0a0a0a0a0aL;
+
+    private static final long CR_PATTERN = 0x0d0d0d0d0d0d0d0dL;
+
+    private static final long LOW_SEVEN_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+    private LineBreakEscaper() {
+    }
+
+    /**
+     * Escape the line breaks of a string
+     *
+     * @param message the message
+     * @return the message itself if it contains no line break, the escaped copy otherwise
+     */
+    public static String escape( String message ) {
+        int first = LineBreakScanner.indexOf( message );
+        if ( first < 0 ) {
+            return message;
+        }
+        int length = message.length();
+        int lineBreaks = 0;
+        for ( int i = first; i < length; i++ ) {
+            char c = message.charAt( i );
+            if ( c == '\n' || c == '\r' ) {
+                lineBreaks++;
+            }
+        }
+        char[] escaped = new char[length + lineBreaks];
+        message.getChars( 0, first, escaped, 0 );
+        int position = first;
+        for ( int i = first; i < length; i++ ) {
+            char c = message.charAt( i );
+            if ( c == '\n' ) {
+                escaped[position++] = '\\';
+                escaped[position++] = 'n';
+            }
+            else if ( c == '\r' ) {
+                escaped[position++] = '\\';
+                escaped[position++] = 'r';
+            }
+            else {
+                escaped[position++] = c;
+            }
+        }
+        return new String( escaped );
+    }
+
+    /**
+     * Count the CR and LF bytes of a UTF-8 encoded message. Neither can be part of a multi-byte sequence, so the bytes
+     * can be scanned without decoding.
+     *
+     * @param buffer a buffer wrapping the encoded message
+     * @param from the offset of the first byte
+     * @param to the offset following the last byte
+     * @return the number of CR and LF bytes
+     */
+    public static int countLineBreaks( ByteBuffer buffer, int from, int to ) {
+        int count = 0;
+        int i = from;
+        for ( ; i + 8 <= to; i += 8 ) {
+            long word = buffer.getLong( i );
+            count += countZeroBytes( word ^ LF_PATTERN ) + countZeroBytes( word ^ CR_PATTERN );
+        }
+        for ( ; i < to; i++ ) {
+            byte b = buffer.get( i );
+            if ( b == '\n' || b == '\r' ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Exact count of the zero bytes of a word, without carries between bytes
+     */
+    private static int countZeroBytes( long word ) {
+        long highBits = ( ( word & LOW_SEVEN_BITS ) + LOW_SEVEN_BITS ) | word | LOW_SEVEN_BITS;
+        return Long.bitCount( ~highBits );
+    }
+
+    /**
+     * Escape the line breaks of a UTF-8 encoded message in place. The buffer must have room for one extra byte per line
+     * break after the message.
+     *
+     * @param data the buffer holding the encoded message
+     * @param from the offset of the first byte
+     * @param to the offset following the last byte
+     * @param lineBreaks the number of line breaks, as returned by countLineBreaks
+     * @return the offset following the last byte of the escaped message
+     */
+    public static int escapeInPlace( byte[] data, int from, int to, int lineBreaks ) {
+        int end = to + lineBreaks;
+        int write = end;
+        int runEnd = to;
+        for ( int read = to - 1; read >= from && write > runEnd; read-- ) {
+            byte b = data[read];
+            if ( b == '\n' || b == '\r' ) {
+                // move the run following the line break, then escape it
+                int runLength = runEnd - read - 1;
+                write -= runLength;
+                System.arraycopy( data, read + 1, data, write, runLength );
+                data[--write] = b == '\n' ? (byte) 'n' : (byte) 'r';
+                data[--write] = '\\';
+                runEnd = read;
+            }
+        }
+        return end;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Finds the first line break of a message.
+ *
+ * The multi-release jar replaces this class on Java 11 and later (src/main/java11).
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class LineBreakScanner {
+
+    private LineBreakScanner() {
+    }
+
+    /**
+     * Get the index of the first CR or LF of a message
+     *
+     * @param message the message
+     * @return the index of the first line break, or -1 if there is none
+     */
+    static int indexOf( String message ) {
+        int length = message.length();
+        for ( int i = 0; i < length; i++ ) {
+            char c = message.charAt( i );
+            if ( c == '\n' || c == '\r' ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads log events across several destinations, each one handled by its own forwarder.
+ *
+ * A destination is taken out of the rotation after a number of consecutive connection or write failures
+ * (ejectAfterFailures), and reconnects in the background. A health check runs every healthCheckInterval ms, and puts
+ * the ejected destinations back in the rotation once connected. Events that failed on a destination stay in
+ * that destination's queue and are sent when it comes back.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class LoadBalancedForwarder
+    extends LogForwarder {
+
+    /**
+     * How events are spread across the destinations
+     */
+    public enum Strategy {
+        /**
+         * Destinations are used in turn, proportionally to their weight
+         */
+        WEIGHTED_ROUND_ROBIN,
+        /**
+         * The destination with the fewest bytes queued or not yet flushed is used, relative to its weight
+         */
+        LEAST_OUTSTANDING_BYTES
+    }
+
+    private static final class Destination {
+
+        final LogForwarder forwarder;
+
+        final int weight;
+
+        // smooth weighted round-robin state
+        int currentWeight;
+
+        // bytes written to the destination since it was last flushed
+        long unflushedBytes;
+
+        int consecutiveFailures;
+
+        volatile boolean healthy = true;
+
+        Destination( LogForwarder forwarder, int weight ) {
+            this.forwarder = forwarder;
+            this.weight = weight;
+        }
+
+        long getOutstandingBytes() {
+            return unflushedBytes + forwarder.getQueueSizeInBytes();
+        }
+    }
+
+    private final List<Destination> destinations = new ArrayList<>();
+
+    private int nextTieBreak;
+
+    private Thread healthChecker;
+
+    private volatile boolean closed;
+
+    public LoadBalancedForwarder( LogForwarderSettings settings ) {
+        super( settings );
+    }
+
+    /**
+     * Add a destination to the rotation. Must be called before connecting.
+     *
+     * @param forwarder the forwarder handling the destination
+     * @param weight the relative share of events this destination receives (at least 1)
+     */
+    public void addDestination( LogForwarder forwarder, int weight ) {
+        destinations.add( new Destination( forwarder, Math.max( 1, weight ) ) );
+        getMetrics().addChild( forwarder.getMetrics() );
+    }
+
+    /**
+     * Get the number of destinations currently in the rotation
+     *
+     * @return the number of healthy destinations
+     */
+    public int getHealthyDestinationCount() {
+        int count = 0;
+        for ( Destination destination : destinations ) {
+            if ( destination.healthy )
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Connect to all destinations. Succeeds as long as at least one destination could be reached, the others keep
+     * connecting in the background. A failed connection counts as one failure towards ejectAfterFailures.
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        if ( destinations.isEmpty() ) {
+            throw new IOException( "No destination configured" );
+        }
+        IOException failure = null;
+        int reached = 0;
+        for ( Destination destination : destinations ) {
+            destination.forwarder.getLock().lock();
+            try {
+                if ( destination.forwarder.isConnecting() ) {
+                    recordFailure( destination );
+                    continue;
+                }
+                try {
+                    if ( !destination.forwarder.isConnected() ) {
+                        destination.forwarder.connect();
+                    }
+                    destination.healthy = true;
+                    destination.consecutiveFailures = 0;
+                    reached++;
+                }
+                catch ( IOException e ) {
+                    failure = e;
+                    recordFailure( destination );
+                    destination.forwarder.connectInBackground();
+                }
+            }
+            finally {
+                destination.forwarder.getLock().unlock();
+            }
+        }
+        startHealthChecker();
+        if ( reached == 0 ) {
+            throw failure != null ? failure : new IOException( "No destination reached yet" );
+        }
+    }
+
+    /**
+     * close all the destinations and stop the health check
+     */
+    @Override
+    protected void closeConnection() {
+        synchronized ( this ) {
+            closed = true;
+            if ( healthChecker != null ) {
+                healthChecker.interrupt();
+                healthChecker = null;
+            }
+        }
+        for ( Destination destination : destinations ) {
+            destination.forwarder.getLock().lock();
+            try {
+                try {
+                    destination.forwarder.close();
+                }
+                catch ( Exception ignored ) {
+                }
+            }
+            finally {
+                destination.forwarder.getLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        Destination destination = selectDestination();
+        destination.forwarder.getLock().lock();
+        try {
+            destination.forwarder.sendMessage( syslogMessage );
+        }
+        finally {
+            destination.forwarder.getLock().unlock();
+        }
+    }
+
+    @Override
+    public void flush()
+        throws IOException {
+        getLock().lock();
+        try {
+            flushDestinations();
+        }
+        finally {
+            getLock().unlock();
+        }
+    }
+
+    private void flushDestinations()
+        throws IOException {
+        for ( Destination destination : destinations ) {
+            if ( destination.healthy ) {
+                destination.forwarder.getLock().lock();
+                try {
+                    destination.forwarder.flush();
+                }
+                finally {
+                    destination.forwarder.getLock().unlock();
+                }
+                destination.unflushedBytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Hand the event to one of the healthy destinations, and eject that destination if it failed.
+     *
+     * @param syslogMessage the syslog message to send
+     */
+    @Override
+    public void forwardPreparedEvent( SyslogMessage syslogMessage, boolean flush ) {
+        getLock().lock();
+        try {
+            forwardToDestination( syslogMessage, flush );
+        }
+        finally {
+            getLock().unlock();
+        }
+    }
+
+    private void forwardToDestination( SyslogMessage syslogMessage, boolean flush ) {
+        Destination destination = selectDestination();
+        boolean connected;
+        destination.forwarder.getLock().lock();
+        try {
+            destination.forwarder.forwardPreparedEvent( syslogMessage, flush );
+            connected = destination.forwarder.isConnected();
+        }
+        finally {
+            destination.forwarder.getLock().unlock();
+        }
+        if ( flush || !connected ) {
+            // flushed, or left in the queue of the destination which counts it
+            destination.unflushedBytes = 0;
+        }
+        else {
+            destination.unflushedBytes += encodedLength( syslogMessage.toString() );
+        }
+        if ( connected ) {
+            destination.consecutiveFailures = 0;
+        }
+        else {
+            recordFailure( destination );
+        }
+    }
+
+    private void recordFailure( Destination destination ) {
+        // the destination reconnects in the background, its events wait in its queue meanwhile
+        if ( ++destination.consecutiveFailures >= getSettings().getEjectAfterFailures() ) {
+            destination.healthy = false;
+        }
+    }
+
+    private Destination selectDestination() {
+        int count = destinations.size();
+        int start = ( nextTieBreak++ & Integer.MAX_VALUE ) % count;
+        Destination selected = null;
+        if ( getSettings().getBalancingStrategy() == Strategy.LEAST_OUTSTANDING_BYTES ) {
+            long selectedBytes = 0;
+            for ( int i = 0; i < count; i++ ) {
+                Destination destination = destinations.get( ( start + i ) % count );
+                if ( !destination.healthy ) {
+                    continue;
+                }
+                long outstandingBytes = destination.getOutstandingBytes();
+                if ( selected == null || outstandingBytes * selected.weight < selectedBytes * destination.weight ) {
+                    selected = destination;
+                    selectedBytes = outstandingBytes;
+                }
+            }
+        }
+        else {
+            // smooth weighted round-robin, as done by nginx
+            int totalWeight = 0;
+            for ( Destination destination : destinations ) {
+                if ( destination.healthy ) {
+                    destination.currentWeight += destination.weight;
+                    totalWeight += destination.weight;
+                    if ( selected == null || destination.currentWeight > selected.currentWeight ) {
+                        selected = destination;
+                    }
+                }
+            }
+            if ( selected != null ) {
+                selected.currentWeight -= totalWeight;
+            }
+        }
+        if ( selected == null ) {
+            // every destination is down, keep the event with the next one in turn until one recovers
+            selected = destinations.get( start );
+        }
+        return selected;
+    }
+
+    private synchronized void startHealthChecker() {
+        if ( healthChecker != null ) {
+            return;
+        }
+        closed = false;
+        healthChecker = getExecutor().start( "loglmi-health-check", new Runnable() {
+            @Override
+            public void run() {
+                while ( !closed ) {
+                    try {
+                        Thread.sleep( getSettings().getHealthCheckInterval() );
+                    }
+                    catch ( InterruptedException e ) {
+                        return;
+                    }
+                    checkEjectedDestinations();
+                }
+            }
+        } );
+    }
+
+    /**
+     * Put each ejected destination back in the rotation once it has reconnected.
+     */
+    private void checkEjectedDestinations() {
+        for ( Destination destination : destinations ) {
+            if ( destination.healthy || closed ) {
+                continue;
+            }
+            if ( !destination.forwarder.isConnected() ) {
+                // normally connecting since its connection was lost, does nothing if closed meanwhile
+                destination.forwarder.reconnectInBackground();
+                continue;
+            }
+            getLock().lock();
+            try {
+                destination.consecutiveFailures = 0;
+                destination.currentWeight = 0;
+                destination.healthy = true;
+            }
+            finally {
+                getLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * Name and address of the local host, resolved once per JVM in the background.
+ *
+ * InetAddress.getLocalHost() can block for seconds on hosts with slow or broken DNS. It is called on a background
+ * thread, so creating a forwarder never waits for it. Until it completes, or if it fails, a fallback is used: the
+ * HOSTNAME (or COMPUTERNAME) environment variable, or the address of a network interface, neither needing DNS.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class LocalHost {
+
+    /**
+     * What to use as host name while the local host is not resolved
+     */
+    public enum Fallback {
+        /**
+         * The HOSTNAME or COMPUTERNAME environment variable, or the interface address if neither is set
+         */
+        ENV,
+        /**
+         * The address of the first network interface up, not a loopback
+         */
+        IP
+    }
+
+    private static volatile InetAddress resolvedAddress;
+
+    private static volatile String resolvedName;
+
+    private static boolean resolutionStarted;
+
+    private static InetAddress interfaceAddress;
+
+    private static String interfaceAddressLiteral;
+
+    private static String environmentName;
+
+    private static boolean fallbacksComputed;
+
+    private LocalHost() {
+    }
+
+    /**
+     * Start resolving the local host, unless already started
+     *
+     * @param executor the executor running the resolution
+     */
+    public static synchronized void resolveInBackground( ForwarderExecutor executor ) {
+        if ( resolutionStarted ) {
+            return;
+        }
+        resolutionStarted = true;
+        executor.start( "loglmi-resolve-localhost", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    InetAddress address = InetAddress.getLocalHost();
+                    resolvedName = address.getHostName();
+                    resolvedAddress = address;
+                }
+                catch ( Exception ignored ) {
+                    // keep using the fallback
+                }
+            }
+        } );
+    }
+
+    /**
+     * Get the name of the local host. Returns the same instance until the resolution completes.
+     *
+     * @param fallback what to use until the local host is resolved
+     * @return the host name, or the fallback
+     */
+    public static String getHostName( Fallback fallback ) {
+        String name = resolvedName;
+        if ( name != null ) {
+            return name;
+        }
+        computeFallbacks();
+        if ( fallback == Fallback.ENV && environmentName != null ) {
+            return environmentName;
+        }
+        return interfaceAddressLiteral;
+    }
+
+    /**
+     * Get the address of the local host
+     *
+     * @return the resolved address, or the address of a network interface until the local host is resolved
+     */
+    public static InetAddress getAddress() {
+        InetAddress address = resolvedAddress;
+        if ( address != null ) {
+            return address;
+        }
+        computeFallbacks();
+        return interfaceAddress;
+    }
+
+    private static synchronized void computeFallbacks() {
+        if ( fallbacksComputed ) {
+            return;
+        }
+        environmentName = nonEmpty( System.getenv( "HOSTNAME" ) );
+        if ( environmentName == null ) {
+            environmentName = nonEmpty( System.getenv( "COMPUTERNAME" ) );
+        }
+        interfaceAddress = findInterfaceAddress();
+        interfaceAddressLiteral = interfaceAddress.getHostAddress();
+        fallbacksComputed = true;
+    }
+
+    private static String nonEmpty( String value ) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Pick an IPv4 address of an interface up, not a loopback, else any such address, else the loopback address
+     */
+    private static InetAddress findInterfaceAddress() {
+        InetAddress candidate = null;
+        try {
+            Enumeration<NetworkInterface> networkInterfaces = NetworkInterface.getNetworkInterfaces();
+            if ( networkInterfaces == null ) {
+                return InetAddress.getLoopbackAddress();
+            }
+            for ( NetworkInterface networkInterface : Collections.list( networkInterfaces ) ) {
+                if ( !networkInterface.isUp() || networkInterface.isLoopback() ) {
+                    continue;
+                }
+                for ( InetAddress address : Collections.list( networkInterface.getInetAddresses() ) ) {
+                    if ( address.isLinkLocalAddress() ) {
+                        continue;
+                    }
+                    if ( address instanceof Inet4Address ) {
+                        return address;
+                    }
+                    if ( candidate == null ) {
+                        candidate = address;
+                    }
+                }
+            }
+        }
+        catch ( SocketException ignored ) {
+            // no interface could be listed
+        }
+        return candidate != null ? candidate : InetAddress.getLoopbackAddress();
+    }
+}
@@ -7,14 +7,19 @@ package com.tibco.loglogic.logging.forwarders.shared;
 
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Generic part of a log forwarder. Contains a queue of SyslogMessage. Handles the logic of connecting to the
  * destination, queuing messages if no connection can be established, up to the limit defined.
  *
- * Once the limit is reached, the oldes message is discarded.
+ * Once the limit is reached, the oldes message is discarded, or the least severe one when priority lanes are enabled.
+ *
+ * A forwarder is not thread-safe: the appenders serialize their calls with getLock(), or wrap it in a
+ * SingleWriterForwarder to let several threads log at once.
  *
  * @author lpautet@tibco.com
  *
@@ -22,25 +27,66 @@ import java.util.LinkedList;
 public abstract class LogForwarder
     implements AutoCloseable {
 
-    // Using this collection structure to implement the FIFO queue
-    private LinkedList<SyslogMessage> queue = new LinkedList<>();
+    private final EventQueue queue;
+
+    private volatile boolean connected = false;
 
-    private long currentQueueSizeInBytes = 0;
+    private final LogForwarderSettings settings;
 
-    protected final InetAddress localAddress;
+    private final ForwarderMetrics metrics = new ForwarderMetrics( this );
 
-    private boolean connected = false;
+    private final List<EventStage> stages = new CopyOnWriteArrayList<>();
 
-    private final LogForwarderSettings settings;
+    // last step of the stage chain
+    private final EventSink forwarderSink = new EventSink() {
+        @Override
+        public void forward( SyslogMessage syslogMessage, boolean flush ) {
+            prepareMessage( syslogMessage );
+            forwardPreparedEvent( syslogMessage, flush );
+        }
+    };
+
+    private volatile EventSink chain = forwarderSink;
+
+    // built on first use, and again once the local host name is resolved
+    private volatile SyslogHeaderTemplate headerTemplate;
+
+    private static final long INITIAL_CONNECT_DELAY_MS = 500;
+
+    private static final long MAX_CONNECT_DELAY_MS = 30000;
+
+    // serializes the use of the connection, see getLock()
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guards connector and closed, and connected when set once connected
+    private final Object connectorLock = new Object();
+
+    private Thread connector;
+
+    private volatile boolean closed;
+
+    // beyond this, the connection is flushed even if not asked to, to notify the events written
+    private static final int MAX_UNFLUSHED = 1024;
+
+    // written to the connection with a listener, notified once flushed
+    private final List<SyslogMessage> unflushed = new ArrayList<>();
 
     protected LogForwarder( LogForwarderSettings settings ) {
         this.settings = settings;
-        try {
-            localAddress = InetAddress.getLocalHost();
+        if ( settings.isPriorityLanes() ) {
+            queue = new PriorityLaneEventQueue( settings );
+        }
+        else {
+            queue = new FifoEventQueue( settings );
+        }
+        if ( settings.getDedupeWindow() > 0 ) {
+            addStage( new DuplicateSuppressionStage( settings, metrics ) );
+        }
+        if ( settings.getRateLimit() > 0 || settings.getSamplingThreshold() > 0 ) {
+            addStage( new RateLimitingStage( settings, metrics ) );
         }
-        catch ( UnknownHostException e ) {
-            // unexpected
-            throw new RuntimeException( e );
+        if ( settings.getSource() == null ) {
+            LocalHost.resolveInBackground( getExecutor() );
         }
     }
 
@@ -51,19 +97,201 @@ public abstract class LogForwarder
      */
     public void connect()
         throws IOException {
+        synchronized ( connectorLock ) {
+            closed = false;
+        }
         initializeConnection();
-        connected = true;
+        boolean opened;
+        synchronized ( connectorLock ) {
+            opened = !closed;
+            if ( opened ) {
+                connected = true;
+            }
+        }
+        if ( !opened ) {
+            closeConnection();
+            throw new IOException( "Closed while connecting" );
+        }
+    }
+
+    /**
+     * Connect to the destination on a background thread, retrying with an increasing delay until connected, and return
+     * right away. Events forwarded meanwhile wait in the queue, and are sent once connected.
+     *
+     * The queued events are sent by the background thread holding the lock of this forwarder: threads forwarding
+     * events concurrently with it must hold getLock() too.
+     */
+    public void connectInBackground() {
+        synchronized ( connectorLock ) {
+            closed = false;
+        }
+        reconnectInBackground();
+    }
+
+    /**
+     * Connect to the destination on a background thread after the connection was lost, unless this forwarder was
+     * closed meanwhile. Unlike connectInBackground(), does not undo a close.
+     */
+    protected void reconnectInBackground() {
+        synchronized ( connectorLock ) {
+            if ( connector != null || connected || closed ) {
+                return;
+            }
+            connector = getExecutor().start( "loglmi-connect", new Runnable() {
+                @Override
+                public void run() {
+                    connectUntilConnected();
+                }
+            } );
+        }
+    }
+
+    /**
+     * Get whether a background thread is trying to connect
+     *
+     * @return true if connecting in the background
+     */
+    public boolean isConnecting() {
+        synchronized ( connectorLock ) {
+            return connector != null;
+        }
+    }
+
+    private void connectUntilConnected() {
+        long delay = INITIAL_CONNECT_DELAY_MS;
+        while ( true ) {
+            synchronized ( connectorLock ) {
+                // checked under the lock, so that a connection lost meanwhile starts a new connector
+                if ( connected || closed ) {
+                    connector = null;
+                    return;
+                }
+            }
+            metrics.recordReconnectAttempt();
+            try {
+                initializeConnection();
+                boolean opened;
+                synchronized ( connectorLock ) {
+                    // checked under the lock, so that a close either sees the connection or leaves it to us
+                    opened = !closed;
+                    if ( opened ) {
+                        connected = true;
+                    }
+                }
+                if ( !opened ) {
+                    closeConnection();
+                }
+                else {
+                    lock.lock();
+                    try {
+                        sendQueuedEvents();
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                }
+                continue;
+            }
+            catch ( Exception ignored ) {
+            }
+            try {
+                Thread.sleep( delay );
+            }
+            catch ( InterruptedException e ) {
+                synchronized ( connectorLock ) {
+                    connector = null;
+                }
+                return;
+            }
+            delay = Math.min( delay * 2, MAX_CONNECT_DELAY_MS );
+        }
     }
 
     protected abstract void initializeConnection()
         throws IOException;
 
     /**
-     * Close the connection to the destination.
+     * Get the lock serializing the use of this forwarder, held by the background connector while it sends the queued
+     * events. Unlike the monitor of the forwarder, it does not pin a virtual thread blocked on the connection to its
+     * carrier thread.
+     *
+     * @return the lock
+     */
+    public final ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Get whether the connection to the destination is established
+     *
+     * @return true if connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Stop connecting in the background, then close the connection to the destination. The events still waiting in
+     * the queue are dropped.
+     *
+     * @throws IOException in case of connection issues
+     */
+    @Override
+    public void close()
+        throws IOException {
+        Thread stopped;
+        synchronized ( connectorLock ) {
+            closed = true;
+            stopped = connector;
+        }
+        if ( stopped != null ) {
+            stopped.interrupt();
+        }
+        lock.lock();
+        try {
+            if ( connected && !unflushed.isEmpty() ) {
+                try {
+                    timedFlush();
+                }
+                catch ( IOException ignored ) {
+                    // dropped below
+                }
+            }
+            connected = false;
+        }
+        finally {
+            lock.unlock();
+        }
+        try {
+            closeConnection();
+        }
+        finally {
+            // the connector may be sending the queue until it sees closed
+            lock.lock();
+            try {
+                dropUnflushedEvents();
+                dropQueuedEvents();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void dropQueuedEvents() {
+        while ( queueContainsEvents() ) {
+            SyslogMessage syslogMessage = dequeue();
+            metrics.recordDropped();
+            syslogMessage.notifyDropped();
+        }
+    }
+
+    /**
+     * Close the connection to the destination, when closing the forwarder or before reconnecting
      *
      * @throws IOException in case of connection issues
      */
-    public abstract void close()
+    protected abstract void closeConnection()
         throws IOException;
 
     protected abstract void sendMessage( SyslogMessage syslogMessage )
@@ -78,18 +306,53 @@ public abstract class LogForwarder
         throws IOException;
 
     /**
-     * Send an event via the established connection, otherwise enqueue the message.
+     * Add a stage processing the events before they are sent, after the stages already added
+     *
+     * @param stage the stage
+     */
+    public void addStage( EventStage stage ) {
+        stages.add( stage );
+        EventSink sink = forwarderSink;
+        for ( int i = stages.size() - 1; i >= 0; i-- ) {
+            final EventStage current = stages.get( i );
+            final EventSink next = sink;
+            sink = new EventSink() {
+                @Override
+                public void forward( SyslogMessage syslogMessage, boolean flush ) {
+                    current.process( syslogMessage, flush, next );
+                }
+            };
+        }
+        chain = sink;
+    }
+
+    /**
+     * Pass an event through the stages, then send it via the established connection, otherwise enqueue the message.
      *
      * @param syslogMessage the syslog message to send
      */
     public void forwardEvent( SyslogMessage syslogMessage, boolean flush ) {
+        chain.forward( syslogMessage, flush );
+    }
+
+    /**
+     * Stamp the message with the source, facility and application name of this forwarder, or switch it to raw mode.
+     *
+     * @param syslogMessage the syslog message to prepare
+     */
+    protected void prepareMessage( SyslogMessage syslogMessage ) {
         if ( !settings.isRawMode() && !syslogMessage.isRawMode() ) {
-            if ( settings.getSource() == null )
-                syslogMessage.setSource( localAddress.getHostName() );
-            else
-                syslogMessage.setSource( settings.getSource() );
-            syslogMessage.setFacility( settings.getFacility() );
-            syslogMessage.setAppName( settings.getAppName() );
+            String source = settings.getSource();
+            if ( source == null ) {
+                // the fallback until the host name is resolved, then the resolved name
+                source = LocalHost.getHostName( settings.getSourceFallback() );
+            }
+            SyslogHeaderTemplate template = headerTemplate;
+            if ( template == null || template.getSource() != source ) {
+                template = new SyslogHeaderTemplate( source, settings.getFacility(), settings.getAppName() );
+                headerTemplate = template;
+            }
+            syslogMessage.setHeaderTemplate( template );
         }
         else {
             syslogMessage.setRawMode( true );
@@ -98,79 +361,245 @@ public abstract class LogForwarder
         if ( syslogMessage.isRawMode() ) {
             syslogMessage.setTimestamp( System.currentTimeMillis() );
         }
+    }
 
+    /**
+     * Send an event already prepared by this forwarder or by a forwarder composed of this one, without stamping it
+     * again.
+     *
+     * @param syslogMessage the syslog message to send
+     */
+    public void forwardPreparedEvent( SyslogMessage syslogMessage, boolean flush ) {
+        if ( closed ) {
+            // would never be sent
+            metrics.recordDropped();
+            syslogMessage.notifyDropped();
+            return;
+        }
+        if ( !connected ) {
+            // kept until connected
+            enqueue( syslogMessage );
+            return;
+        }
+        // the events queued earlier go first
+        if ( queueContainsEvents() ) {
+            enqueue( syslogMessage );
+            sendQueuedEvents();
+            return;
+        }
+        SyslogMessage unsent = syslogMessage;
         try {
-
-            if ( connected ) {
-                sendMessage( syslogMessage );
-                // flush the queue
-                while ( queueContainsEvents() ) {
-                    syslogMessage = dequeue();
-                    sendMessage( syslogMessage );
-                }
-                if ( flush )
-                    flush();
+            timedSendMessage( syslogMessage );
+            unsent = null;
+            written( syslogMessage );
+            if ( flush || unflushed.size() >= MAX_UNFLUSHED ) {
+                timedFlush();
             }
         }
         catch ( IOException e ) {
-            // something went wrong , put message on the queue for retry
-            enqueue( syslogMessage );
-            try {
-                close();
-            }
-            catch ( Exception ignored) {
+            connectionLost( unsent );
+        }
+    }
+
+    /**
+     * Send the events waiting in the queue and flush, if connected
+     */
+    protected void sendQueuedEvents() {
+        if ( !connected || !queueContainsEvents() && unflushed.isEmpty() ) {
+            return;
+        }
+        SyslogMessage syslogMessage = null;
+        try {
+            while ( queueContainsEvents() ) {
+                syslogMessage = dequeue();
+                timedSendMessage( syslogMessage );
+                written( syslogMessage );
+                syslogMessage = null;
             }
+            timedFlush();
+        }
+        catch ( IOException e ) {
+            connectionLost( syslogMessage );
+        }
+    }
 
-            connected = false;
+    /**
+     * Keep the event for retry, and reconnect in the background
+     *
+     * @param syslogMessage the event which could not be sent, if any
+     */
+    private void connectionLost( SyslogMessage syslogMessage ) {
+        if ( syslogMessage != null ) {
+            enqueue( syslogMessage );
+        }
+        if ( !replaysUnflushedEvents() ) {
+            // lost with the buffer of the connection
+            dropUnflushedEvents();
+        }
+        try {
+            closeConnection();
+        }
+        catch ( Exception ignored ) {
+        }
+        connected = false;
+        reconnectInBackground();
+    }
 
-            try {
-                initializeConnection();
-            }
-            catch ( Exception ignored) {
+    /**
+     * Close the connection and reconnect in the background, when another thread than the forwarding ones, such as a
+     * thread reading from the connection, finds it broken. Holds the lock of this forwarder, as the background
+     * connector.
+     */
+    protected void connectionBroken() {
+        lock.lock();
+        try {
+            if ( connected ) {
+                connectionLost( null );
             }
         }
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Add an event to the head of the FIFO queue subject, removing oldest event is lacking room
+     * Get whether the events written but not flushed when the connection breaks are written again once reconnected.
+     * They are reported as dropped otherwise.
      *
-     * @param event the syslog message to enqueue
+     * @return true if they are written again
      */
-    private void enqueue( SyslogMessage event ) {
+    protected boolean replaysUnflushedEvents() {
+        return false;
+    }
 
-        long eventSize = event.toString().getBytes().length;
+    private void written( SyslogMessage syslogMessage ) {
+        if ( syslogMessage.getDeliveryListener() != null ) {
+            unflushed.add( syslogMessage );
+        }
+    }
 
-        while ( !queueHasCapacity( eventSize ) ) {
-            queue.removeLast();
-            currentQueueSizeInBytes -= eventSize;
+    private void dropUnflushedEvents() {
+        for ( SyslogMessage syslogMessage : unflushed ) {
+            metrics.recordDropped();
+            syslogMessage.notifyDropped();
         }
+        unflushed.clear();
+    }
 
-        queue.addFirst( event );
-        currentQueueSizeInBytes += eventSize;
+    private void timedFlush()
+        throws IOException {
+        long start = System.nanoTime();
+        flush();
+        metrics.recordFlush( System.nanoTime() - start );
+        // only now out of the buffers of this process
+        for ( SyslogMessage syslogMessage : unflushed ) {
+            syslogMessage.notifyDelivered();
+        }
+        unflushed.clear();
     }
 
-    private boolean queueHasCapacity( long eventSize ) {
-        return ( currentQueueSizeInBytes + eventSize ) <= settings.getMaxQueueSize();
+    private void timedSendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        long start = System.nanoTime();
+        sendMessage( syslogMessage );
+        metrics.recordSent( System.nanoTime() - start );
+    }
+
+    /**
+     * Add an event to the queue, removing other events if lacking room
+     *
+     * @param event the syslog message to enqueue
+     */
+    protected void enqueue( SyslogMessage event ) {
+        int dropped = queue.add( event, encodedLength( event.toString() ) );
+        if ( dropped != 0 ) {
+            metrics.recordDropped( dropped );
+        }
     }
 
-    private boolean queueContainsEvents() {
+    protected boolean queueContainsEvents() {
         return !queue.isEmpty();
     }
 
-    private SyslogMessage dequeue() {
+    protected SyslogMessage dequeue() {
+        return queue.poll();
+    }
 
-        if ( queueContainsEvents() ) {
-            SyslogMessage event = queue.removeLast();
-            currentQueueSizeInBytes -= event.toString().getBytes().length;
-            if ( currentQueueSizeInBytes < 0 ) {
-                currentQueueSizeInBytes = 0;
-            }
-            return event;
-        }
-        return null;
+    /**
+     * Get the size of the events waiting in the queue
+     *
+     * @return the size of the queued events in bytes
+     */
+    public long getQueueSizeInBytes() {
+        return queue.getSizeInBytes();
+    }
+
+    /**
+     * Get the number of events waiting in the queue
+     *
+     * @return the number of queued events
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the runtime metrics of this forwarder
+     *
+     * @return the metrics
+     */
+    public ForwarderMetrics getMetrics() {
+        return metrics;
     }
 
     protected LogForwarderSettings getSettings() {
         return settings;
     }
+
+    /**
+     * Get the address of the local host, without waiting for it to be resolved
+     *
+     * @return the local address
+     */
+    protected InetAddress getLocalAddress() {
+        return LocalHost.getAddress();
+    }
+
+    /**
+     * Get the executor running the background work of this forwarder, as configured by the threadType setting
+     *
+     * @return the executor
+     */
+    protected ForwarderExecutor getExecutor() {
+        return ForwarderExecutor.forType( settings.getThreadType() );
+    }
+
+    /**
+     * Compute the size of a string once encoded in UTF-8, without encoding it
+     *
+     * @param value the string
+     * @return the number of bytes
+     */
+    protected static int encodedLength( String value ) {
+        int length = value.length();
+        int bytes = length;
+        for ( int i = 0; i < length; i++ ) {
+            char c = value.charAt( i );
+            if ( c >= 0x80 ) {
+                if ( c < 0x800 ) {
+                    bytes++;
+                }
+                else if ( Character.isHighSurrogate( c ) && i + 1 < length
+                    && Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+                    // 4 bytes for the pair
+                    bytes += 2;
+                    i++;
+                }
+                else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
 }
\ No newline at end of file
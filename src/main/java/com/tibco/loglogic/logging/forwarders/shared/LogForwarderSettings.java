@@ -5,6 +5,8 @@
  */
 package com.tibco.loglogic.logging.forwarders.shared;
 
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
 /**
  * Holds the settings common to all log forwarders
  *
@@ -24,6 +26,38 @@ public abstract class LogForwarderSettings {
 
     private boolean rawMode;
 
+    private LoadBalancedForwarder.Strategy balancingStrategy = LoadBalancedForwarder.Strategy.WEIGHTED_ROUND_ROBIN;
+
+    private int ejectAfterFailures = 1;
+
+    private long healthCheckInterval = 30000;
+
+    private boolean priorityLanes;
+
+    // indexed by Severity ordinal: CRITICAL, ERROR, WARNING, NOTICE, INFORMATIONAL, DEBUG
+    private int[] priorityLaneWeights = { 16, 8, 4, 2, 2, 1 };
+
+    // in percent of maxQueueSize, indexed by Severity ordinal
+    private int[] priorityLaneQuotas = { 100, 100, 100, 100, 100, 100 };
+
+    private int rateLimit;
+
+    private int rateLimitBurst;
+
+    private RateLimitingStage.Key rateLimitKey = RateLimitingStage.Key.LOGGER;
+
+    private long samplingThreshold;
+
+    private long summaryInterval = 60000;
+
+    private long dedupeWindow;
+
+    private int dedupeTableSize = 256;
+
+    private ForwarderExecutor.ThreadType threadType = ForwarderExecutor.ThreadType.PLATFORM;
+
+    private LocalHost.Fallback sourceFallback = LocalHost.Fallback.ENV;
+
     // data size multipliers
     private static final int KB = 1024;
 
@@ -40,9 +74,20 @@ public abstract class LogForwarderSettings {
      * @param rawProperty in format [<integer>|<integer>[KB|MB|GB]]
      */
     public void setMaxQueueSize( String rawProperty ) {
+        long size = parseSize( rawProperty );
+        if ( size >= 0 )
+            setMaxQueueSize( size );
+    }
 
-        int multiplier;
-        int factor;
+    /**
+     * Parse a data size
+     *
+     * @param rawProperty in format [<integer>|<integer>[KB|MB|GB]]
+     * @return the size in bytes, or -1 if invalid
+     */
+    protected static long parseSize( String rawProperty ) {
+
+        long multiplier;
 
         if ( rawProperty.endsWith( "KB" ) ) {
             multiplier = KB;
@@ -54,15 +99,20 @@ public abstract class LogForwarderSettings {
             multiplier = GB;
         }
         else {
-            return;
+            multiplier = 1;
         }
+        String digits = multiplier == 1 ? rawProperty : rawProperty.substring( 0, rawProperty.length() - 2 );
+        long factor;
         try {
-            factor = Integer.parseInt( rawProperty.substring( 0, rawProperty.length() - 2 ) );
+            factor = Long.parseLong( digits );
         }
         catch ( NumberFormatException e ) {
-            return;
+            return -1;
+        }
+        if ( factor < 0 || factor > Long.MAX_VALUE / multiplier ) {
+            return -1;
         }
-        setMaxQueueSize( factor * multiplier );
+        return factor * multiplier;
     }
 
     /**
@@ -156,4 +206,515 @@ public abstract class LogForwarderSettings {
         this.rawMode = rawMode;
     }
 
+    /**
+     * Get how events are spread across destinations, when several destinations are configured
+     *
+     * default: WEIGHTED_ROUND_ROBIN
+     *
+     * @return the balancing strategy
+     */
+    public LoadBalancedForwarder.Strategy getBalancingStrategy() {
+        return balancingStrategy;
+    }
+
+    /**
+     * Set how events are spread across destinations, when several destinations are configured
+     *
+     * @param balancingStrategy the balancing strategy
+     */
+    public void setBalancingStrategy( LoadBalancedForwarder.Strategy balancingStrategy ) {
+        if ( balancingStrategy != null )
+            this.balancingStrategy = balancingStrategy;
+    }
+
+    /**
+     * Set how events are spread across destinations, from the configured property String value.
+     *
+     * Unknown values are ignored.
+     *
+     * @param rawProperty WEIGHTED_ROUND_ROBIN or LEAST_OUTSTANDING_BYTES (case insensitive)
+     */
+    public void setBalancingStrategy( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        try {
+            setBalancingStrategy( LoadBalancedForwarder.Strategy.valueOf( rawProperty.trim().toUpperCase() ) );
+        }
+        catch ( IllegalArgumentException ignored ) {
+        }
+    }
+
+    /**
+     * Get the number of consecutive connection or write failures after which a destination is taken out of the
+     * rotation, until a health check succeeds.
+     *
+     * default: 1
+     *
+     * @return the number of failures
+     */
+    public int getEjectAfterFailures() {
+        return ejectAfterFailures;
+    }
+
+    /**
+     * Set the number of consecutive connection or write failures after which a destination is taken out of the
+     * rotation.
+     *
+     * Has no effect if lower than 1.
+     *
+     * @param ejectAfterFailures the number of failures
+     */
+    public void setEjectAfterFailures( int ejectAfterFailures ) {
+        if ( ejectAfterFailures < 1 )
+            return;
+        this.ejectAfterFailures = ejectAfterFailures;
+    }
+
+    /**
+     * Get the interval between two attempts to reconnect to a destination taken out of the rotation
+     *
+     * default: 30000
+     *
+     * @return the interval (in ms)
+     */
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * Set the interval between two attempts to reconnect to a destination taken out of the rotation
+     *
+     * Has no effect if lower than 1.
+     *
+     * @param healthCheckInterval the interval (in ms)
+     */
+    public void setHealthCheckInterval( long healthCheckInterval ) {
+        if ( healthCheckInterval < 1 )
+            return;
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Get whether the queue has one lane per severity, so that high severity events are sent first and evicted last
+     *
+     * default: false
+     *
+     * @return true if priority lanes are used
+     */
+    public boolean isPriorityLanes() {
+        return priorityLanes;
+    }
+
+    /**
+     * Set whether the queue has one lane per severity, so that high severity events are sent first and evicted last
+     *
+     * @param priorityLanes true to use priority lanes
+     */
+    public void setPriorityLanes( boolean priorityLanes ) {
+        this.priorityLanes = priorityLanes;
+    }
+
+    /**
+     * Get the relative share of the queued events of a severity sent when draining the queue
+     *
+     * default: critical:16, error:8, warning:4, notice:2, informational:2, debug:1
+     *
+     * @param severity the severity
+     * @return the weight of the lane
+     */
+    public int getPriorityLaneWeight( Severity severity ) {
+        return priorityLaneWeights[severity.ordinal()];
+    }
+
+    /**
+     * Set the relative share of the queued events of a severity sent when draining the queue
+     *
+     * Has no effect if lower than 1.
+     *
+     * @param severity the severity
+     * @param weight the weight of the lane
+     */
+    public void setPriorityLaneWeight( Severity severity, int weight ) {
+        if ( weight < 1 )
+            return;
+        priorityLaneWeights[severity.ordinal()] = weight;
+    }
+
+    /**
+     * Get the weights of all lanes
+     *
+     * @return the weights, as severity:weight pairs
+     */
+    public String getPriorityLaneWeights() {
+        return formatLanes( priorityLaneWeights );
+    }
+
+    /**
+     * Set the weights of the lanes from the configured property String value. Unknown severities and invalid values
+     * are ignored.
+     *
+     * @param rawProperty comma separated severity:weight pairs, such as "critical:16,error:8,debug:1"
+     */
+    public void setPriorityLaneWeights( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        for ( String entry : rawProperty.split( "," ) ) {
+            int colon = entry.indexOf( ':' );
+            try {
+                setPriorityLaneWeight( Severity.valueOf( entry.substring( 0, Math.max( colon, 0 ) ).trim()
+                    .toUpperCase() ), Integer.parseInt( entry.substring( colon + 1 ).trim() ) );
+            }
+            catch ( IllegalArgumentException ignored ) {
+            }
+        }
+    }
+
+    /**
+     * Get the share of maxQueueSize the queued events of a severity may use
+     *
+     * default: 100 for all severities
+     *
+     * @param severity the severity
+     * @return the quota of the lane, in percent
+     */
+    public int getPriorityLaneQuota( Severity severity ) {
+        return priorityLaneQuotas[severity.ordinal()];
+    }
+
+    /**
+     * Set the share of maxQueueSize the queued events of a severity may use
+     *
+     * Has no effect if not between 1 and 100.
+     *
+     * @param severity the severity
+     * @param quota the quota of the lane, in percent
+     */
+    public void setPriorityLaneQuota( Severity severity, int quota ) {
+        if ( quota < 1 || quota > 100 )
+            return;
+        priorityLaneQuotas[severity.ordinal()] = quota;
+    }
+
+    /**
+     * Get the quotas of all lanes
+     *
+     * @return the quotas, as severity:percent pairs
+     */
+    public String getPriorityLaneQuotas() {
+        return formatLanes( priorityLaneQuotas );
+    }
+
+    /**
+     * Set the quotas of the lanes from the configured property String value. Unknown severities and invalid values
+     * are ignored.
+     *
+     * @param rawProperty comma separated severity:percent pairs, such as "debug:50,informational:80"
+     */
+    public void setPriorityLaneQuotas( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        for ( String entry : rawProperty.split( "," ) ) {
+            int colon = entry.indexOf( ':' );
+            try {
+                setPriorityLaneQuota( Severity.valueOf( entry.substring( 0, Math.max( colon, 0 ) ).trim()
+                    .toUpperCase() ), Integer.parseInt( entry.substring( colon + 1 ).trim() ) );
+            }
+            catch ( IllegalArgumentException ignored ) {
+            }
+        }
+    }
+
+    /**
+     * Get the maximum number of events per second let through for each logger, severity or template
+     *
+     * default: 0 (no limit)
+     *
+     * @return the number of events per second
+     */
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Set the maximum number of events per second let through for each logger, severity or template
+     *
+     * @param rateLimit the number of events per second, 0 for no limit
+     */
+    public void setRateLimit( int rateLimit ) {
+        this.rateLimit = Math.max( 0, rateLimit );
+    }
+
+    /**
+     * Get the number of events let through at once after a quiet period
+     *
+     * default: same as rateLimit
+     *
+     * @return the number of events
+     */
+    public int getRateLimitBurst() {
+        return rateLimitBurst > 0 ? rateLimitBurst : rateLimit;
+    }
+
+    /**
+     * Set the number of events let through at once after a quiet period
+     *
+     * @param rateLimitBurst the number of events
+     */
+    public void setRateLimitBurst( int rateLimitBurst ) {
+        this.rateLimitBurst = Math.max( 0, rateLimitBurst );
+    }
+
+    /**
+     * Get how events are grouped for rate limiting
+     *
+     * default: LOGGER
+     *
+     * @return the rate limiting key
+     */
+    public RateLimitingStage.Key getRateLimitKey() {
+        return rateLimitKey;
+    }
+
+    /**
+     * Set how events are grouped for rate limiting
+     *
+     * @param rateLimitKey the rate limiting key
+     */
+    public void setRateLimitKey( RateLimitingStage.Key rateLimitKey ) {
+        if ( rateLimitKey != null )
+            this.rateLimitKey = rateLimitKey;
+    }
+
+    /**
+     * Set how events are grouped for rate limiting, from the configured property String value.
+     *
+     * Unknown values are ignored.
+     *
+     * @param rawProperty LOGGER, SEVERITY or TEMPLATE (case insensitive)
+     */
+    public void setRateLimitKey( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        try {
+            setRateLimitKey( RateLimitingStage.Key.valueOf( rawProperty.trim().toUpperCase() ) );
+        }
+        catch ( IllegalArgumentException ignored ) {
+        }
+    }
+
+    /**
+     * Get the backlog above which events less severe than ERROR are sampled
+     *
+     * default: 0 (no sampling)
+     *
+     * @return the backlog in bytes
+     */
+    public long getSamplingThreshold() {
+        return samplingThreshold;
+    }
+
+    /**
+     * Set the backlog above which events less severe than ERROR are sampled
+     *
+     * @param samplingThreshold the backlog in bytes, 0 for no sampling
+     */
+    public void setSamplingThreshold( long samplingThreshold ) {
+        this.samplingThreshold = Math.max( 0, samplingThreshold );
+    }
+
+    /**
+     * Set the backlog above which events less severe than ERROR are sampled, from the configured property String value
+     *
+     * @param rawProperty in format [<integer>|<integer>[KB|MB|GB]]
+     */
+    public void setSamplingThreshold( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        long size = parseSize( rawProperty );
+        if ( size >= 0 )
+            setSamplingThreshold( size );
+    }
+
+    /**
+     * Get the interval between two summaries of the suppressed events
+     *
+     * default: 60000
+     *
+     * @return the interval (in ms)
+     */
+    public long getSummaryInterval() {
+        return summaryInterval;
+    }
+
+    /**
+     * Set the interval between two summaries of the suppressed events
+     *
+     * Has no effect if lower than 1.
+     *
+     * @param summaryInterval the interval (in ms)
+     */
+    public void setSummaryInterval( long summaryInterval ) {
+        if ( summaryInterval < 1 )
+            return;
+        this.summaryInterval = summaryInterval;
+    }
+
+    /**
+     * Get the period during which identical messages are collapsed into a single "message repeated N times" event
+     *
+     * default: 0 (no duplicate suppression)
+     *
+     * @return the period (in ms)
+     */
+    public long getDedupeWindow() {
+        return dedupeWindow;
+    }
+
+    /**
+     * Set the period during which identical messages are collapsed into a single "message repeated N times" event
+     *
+     * @param dedupeWindow the period (in ms), 0 for no duplicate suppression
+     */
+    public void setDedupeWindow( long dedupeWindow ) {
+        this.dedupeWindow = Math.max( 0, dedupeWindow );
+    }
+
+    /**
+     * Get the number of distinct recent messages tracked for duplicate suppression
+     *
+     * default: 256
+     *
+     * @return the size of the table
+     */
+    public int getDedupeTableSize() {
+        return dedupeTableSize;
+    }
+
+    /**
+     * Set the number of distinct recent messages tracked for duplicate suppression, rounded up to a power of 2
+     *
+     * Has no effect if lower than 1 or greater than 1048576.
+     *
+     * @param dedupeTableSize the size of the table
+     */
+    public void setDedupeTableSize( int dedupeTableSize ) {
+        if ( dedupeTableSize < 1 || dedupeTableSize > 1 << 20 )
+            return;
+        this.dedupeTableSize = dedupeTableSize;
+    }
+
+    /**
+     * Get the kind of threads running the background work of the forwarder
+     *
+     * default: PLATFORM
+     *
+     * @return the kind of threads
+     */
+    public ForwarderExecutor.ThreadType getThreadType() {
+        return threadType;
+    }
+
+    /**
+     * Set the kind of threads running the background work of the forwarder
+     *
+     * @param threadType the kind of threads
+     */
+    public void setThreadType( ForwarderExecutor.ThreadType threadType ) {
+        if ( threadType != null )
+            this.threadType = threadType;
+    }
+
+    /**
+     * Set the kind of threads running the background work of the forwarder, from the configured property String value.
+     *
+     * Unknown values are ignored.
+     *
+     * @param rawProperty PLATFORM, VIRTUAL or AUTO (case insensitive)
+     */
+    public void setThreadType( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        try {
+            setThreadType( ForwarderExecutor.ThreadType.valueOf( rawProperty.trim().toUpperCase() ) );
+        }
+        catch ( IllegalArgumentException ignored ) {
+        }
+    }
+
+    /**
+     * Get what is used as source while the local host name is being resolved, when no source is configured
+     *
+     * default: ENV
+     *
+     * @return the fallback
+     */
+    public LocalHost.Fallback getSourceFallback() {
+        return sourceFallback;
+    }
+
+    /**
+     * Set what is used as source while the local host name is being resolved, when no source is configured
+     *
+     * @param sourceFallback the fallback
+     */
+    public void setSourceFallback( LocalHost.Fallback sourceFallback ) {
+        if ( sourceFallback != null )
+            this.sourceFallback = sourceFallback;
+    }
+
+    /**
+     * Set what is used as source while the local host name is being resolved, from the configured property String
+     * value.
+     *
+     * Unknown values are ignored.
+     *
+     * @param rawProperty ENV or IP (case insensitive)
+     */
+    public void setSourceFallback( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        try {
+            setSourceFallback( LocalHost.Fallback.valueOf( rawProperty.trim().toUpperCase() ) );
+        }
+        catch ( IllegalArgumentException ignored ) {
+        }
+    }
+
+    private static String formatLanes( int[] values ) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for ( Severity severity : Severity.values() ) {
+            if ( stringBuilder.length() != 0 )
+                stringBuilder.append( ',' );
+            stringBuilder.append( severity.name().toLowerCase() ).append( ':' ).append( values[severity.ordinal()] );
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Copy the settings common to all log forwarders
+     *
+     * @param copy the settings to copy to
+     */
+    protected void copyTo( LogForwarderSettings copy ) {
+        copy.appName = appName;
+        copy.source = source;
+        copy.facility = facility;
+        copy.rawMode = rawMode;
+        copy.maxQueueSize = maxQueueSize;
+        copy.balancingStrategy = balancingStrategy;
+        copy.ejectAfterFailures = ejectAfterFailures;
+        copy.healthCheckInterval = healthCheckInterval;
+        copy.priorityLanes = priorityLanes;
+        copy.priorityLaneWeights = priorityLaneWeights.clone();
+        copy.priorityLaneQuotas = priorityLaneQuotas.clone();
+        copy.rateLimit = rateLimit;
+        copy.rateLimitBurst = rateLimitBurst;
+        copy.rateLimitKey = rateLimitKey;
+        copy.samplingThreshold = samplingThreshold;
+        copy.summaryInterval = summaryInterval;
+        copy.dedupeWindow = dedupeWindow;
+        copy.dedupeTableSize = dedupeTableSize;
+        copy.threadType = threadType;
+        copy.sourceFallback = sourceFallback;
+    }
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Runs the background work of the forwarders on regular daemon threads
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class PlatformThreadExecutor
+    extends ForwarderExecutor {
+
+    @Override
+    public Thread start( String name, Runnable task ) {
+        Thread thread = new Thread( task, name );
+        thread.setDaemon( true );
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.util.ArrayDeque;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * One FIFO lane per severity, so that high severity events are not stuck behind, nor evicted in favor of, a backlog
+ * of low severity events.
+ *
+ * Lanes are drained by smooth weighted round-robin, according to the priorityLaneWeights setting. Each lane is bounded
+ * by its share of maxQueueSize (priorityLaneQuotas setting), evicting its own oldest events. When the whole queue is
+ * full, the oldest events of the least severe lane are evicted first; an event is never evicted in favor of a less
+ * severe one, the incoming event is dropped instead.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class PriorityLaneEventQueue
+    implements EventQueue {
+
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    // indexed by Severity ordinal, most severe first
+    private final ArrayDeque<SyslogMessage>[] lanes;
+
+    private final long[] laneSizeInBytes = new long[SEVERITIES.length];
+
+    private final int[] currentWeight = new int[SEVERITIES.length];
+
+    private volatile long currentQueueSizeInBytes = 0;
+
+    private volatile int depth = 0;
+
+    private final LogForwarderSettings settings;
+
+    @SuppressWarnings("unchecked")
+    public PriorityLaneEventQueue( LogForwarderSettings settings ) {
+        this.settings = settings;
+        lanes = new ArrayDeque[SEVERITIES.length];
+        for ( int i = 0; i < lanes.length; i++ ) {
+            lanes[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public int add( SyslogMessage event, long eventSize ) {
+        int lane = event.getSeverity().ordinal();
+        long maxQueueSize = settings.getMaxQueueSize();
+        long quota = maxQueueSize * settings.getPriorityLaneQuota( event.getSeverity() ) / 100;
+        if ( eventSize > quota ) {
+            event.notifyDropped();
+            return 1;
+        }
+
+        int dropped = 0;
+        // lane quota: make room within the lane itself
+        while ( laneSizeInBytes[lane] + eventSize > quota ) {
+            evictOldest( lane );
+            dropped++;
+        }
+        // whole queue: evict from the least severe lanes first
+        while ( currentQueueSizeInBytes + eventSize > maxQueueSize ) {
+            int victim = leastSevereNonEmptyLane();
+            if ( victim < lane ) {
+                event.notifyDropped();
+                return dropped + 1;
+            }
+            evictOldest( victim );
+            dropped++;
+        }
+
+        lanes[lane].addLast( event );
+        laneSizeInBytes[lane] += eventSize;
+        currentQueueSizeInBytes += eventSize;
+        depth++;
+        return dropped;
+    }
+
+    @Override
+    public SyslogMessage poll() {
+        // smooth weighted round-robin between the non-empty lanes
+        int selected = -1;
+        int totalWeight = 0;
+        for ( int i = 0; i < lanes.length; i++ ) {
+            if ( !lanes[i].isEmpty() ) {
+                int weight = settings.getPriorityLaneWeight( SEVERITIES[i] );
+                currentWeight[i] += weight;
+                totalWeight += weight;
+                if ( selected < 0 || currentWeight[i] > currentWeight[selected] ) {
+                    selected = i;
+                }
+            }
+        }
+        if ( selected < 0 ) {
+            return null;
+        }
+        currentWeight[selected] -= totalWeight;
+        return remove( selected );
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    @Override
+    public int size() {
+        return depth;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return currentQueueSizeInBytes;
+    }
+
+    /**
+     * Get the number of events waiting in the lane of a severity
+     *
+     * @param severity the severity
+     * @return the number of events
+     */
+    public int size( Severity severity ) {
+        return lanes[severity.ordinal()].size();
+    }
+
+    private int leastSevereNonEmptyLane() {
+        for ( int i = lanes.length - 1; i >= 0; i-- ) {
+            if ( !lanes[i].isEmpty() ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void evictOldest( int lane ) {
+        remove( lane ).notifyDropped();
+    }
+
+    private SyslogMessage remove( int lane ) {
+        SyslogMessage event = lanes[lane].pollFirst();
+        long eventSize = LogForwarder.encodedLength( event.toString() );
+        laneSizeInBytes[lane] = lanes[lane].isEmpty() ? 0 : Math.max( 0, laneSizeInBytes[lane] - eventSize );
+        depth--;
+        currentQueueSizeInBytes = depth == 0 ? 0 : Math.max( 0, currentQueueSizeInBytes - eventSize );
+        if ( lanes[lane].isEmpty() ) {
+            currentWeight[lane] = 0;
+        }
+        return event;
+    }
+}
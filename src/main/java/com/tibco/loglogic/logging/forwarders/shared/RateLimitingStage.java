@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Keeps the cost of forwarding bounded when a log statement starts spamming.
+ *
+ * Events are rate limited with one token bucket per logger, severity or message template (rateLimit events per second,
+ * with bursts up to rateLimitBurst). When the backlog of the forwarder exceeds samplingThreshold bytes, events less
+ * severe than ERROR are also sampled: 1 in 2 are kept, 1 in 4 past twice the threshold, and so on.
+ *
+ * The suppressed events are reported by a WARNING summary event, sent with the first event following the end of each
+ * summaryInterval.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class RateLimitingStage
+    implements EventStage {
+
+    /**
+     * How events are grouped for rate limiting
+     */
+    public enum Key {
+        /**
+         * One limit per logger
+         */
+        LOGGER,
+        /**
+         * One limit per severity
+         */
+        SEVERITY,
+        /**
+         * One limit per message template (the message before its parameters were substituted), or per logger when the
+         * template is unknown
+         */
+        TEMPLATE
+    }
+
+    // bounds the memory used by the buckets when keys are unbounded, such as templates
+    private static final int MAX_KEYS = 1024;
+
+    // number of keys detailed in the summary event
+    private static final int SUMMARY_KEYS = 10;
+
+    // sampling never keeps less than 1 event in 2^MAX_SAMPLING_SHIFT
+    private static final int MAX_SAMPLING_SHIFT = 10;
+
+    private static final class Bucket {
+
+        double tokens;
+
+        long lastRefill;
+
+        long suppressed;
+    }
+
+    private final LogForwarderSettings settings;
+
+    private final ForwarderMetrics metrics;
+
+    private final Map<String, Bucket> buckets = new LinkedHashMap<String, Bucket>( 16, 0.75f, true ) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, Bucket> eldest ) {
+            if ( size() > MAX_KEYS ) {
+                evictedSuppressed += eldest.getValue().suppressed;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // suppressed by buckets evicted since the last summary
+    private long evictedSuppressed;
+
+    private long sampled;
+
+    private long sampleCounter;
+
+    private long periodStart = System.nanoTime();
+
+    public RateLimitingStage( LogForwarderSettings settings, ForwarderMetrics metrics ) {
+        this.settings = settings;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void process( SyslogMessage syslogMessage, boolean flush, EventSink next ) {
+        boolean admitted;
+        SyslogMessage summary;
+        synchronized ( this ) {
+            long now = System.nanoTime();
+            admitted = admit( syslogMessage, now );
+            summary = pollSummary( now );
+        }
+        if ( !admitted ) {
+            metrics.recordSuppressed();
+            syslogMessage.notifyDropped();
+        }
+        if ( summary != null ) {
+            next.forward( summary, flush && !admitted );
+        }
+        if ( admitted ) {
+            next.forward( syslogMessage, flush );
+        }
+    }
+
+    private boolean admit( SyslogMessage syslogMessage, long now ) {
+        if ( settings.getRateLimit() > 0 ) {
+            String key = keyOf( syslogMessage );
+            Bucket bucket = buckets.get( key );
+            if ( bucket == null ) {
+                bucket = new Bucket();
+                bucket.tokens = settings.getRateLimitBurst();
+                bucket.lastRefill = now;
+                buckets.put( key, bucket );
+            }
+            else {
+                double refill = ( now - bucket.lastRefill ) * settings.getRateLimit() / 1e9;
+                bucket.tokens = Math.min( settings.getRateLimitBurst(), bucket.tokens + refill );
+                bucket.lastRefill = now;
+            }
+            if ( bucket.tokens < 1 ) {
+                bucket.suppressed++;
+                return false;
+            }
+            bucket.tokens--;
+        }
+
+        if ( settings.getSamplingThreshold() > 0
+            && syslogMessage.getSeverity().ordinal() > Severity.ERROR.ordinal() ) {
+            long backlog = metrics.getQueueSizeInBytes();
+            if ( backlog > settings.getSamplingThreshold() ) {
+                // one more halving each time the backlog doubles
+                int shift = 64 - Long.numberOfLeadingZeros( backlog / settings.getSamplingThreshold() );
+                long mask = ( 1L << Math.min( shift, MAX_SAMPLING_SHIFT ) ) - 1;
+                if ( ( sampleCounter++ & mask ) != 0 ) {
+                    sampled++;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String keyOf( SyslogMessage syslogMessage ) {
+        switch ( settings.getRateLimitKey() ) {
+            case SEVERITY:
+                return syslogMessage.getSeverity().name();
+            case TEMPLATE:
+                if ( syslogMessage.getMessageTemplate() != null )
+                    return syslogMessage.getMessageTemplate();
+                // fall through
+            default:
+                return syslogMessage.getLoggerName() == null ? "" : syslogMessage.getLoggerName();
+        }
+    }
+
+    /**
+     * Build the summary event if the interval has elapsed and events were suppressed, and start a new interval
+     */
+    private SyslogMessage pollSummary( long now ) {
+        long elapsed = now - periodStart;
+        if ( elapsed < TimeUnit.MILLISECONDS.toNanos( settings.getSummaryInterval() ) ) {
+            return null;
+        }
+        periodStart = now;
+
+        long rateLimited = evictedSuppressed;
+        List<Map.Entry<String, Bucket>> limitedKeys = new ArrayList<>();
+        for ( Map.Entry<String, Bucket> entry : buckets.entrySet() ) {
+            if ( entry.getValue().suppressed > 0 ) {
+                rateLimited += entry.getValue().suppressed;
+                limitedKeys.add( entry );
+            }
+        }
+        if ( rateLimited == 0 && sampled == 0 ) {
+            return null;
+        }
+        Collections.sort( limitedKeys, new Comparator<Map.Entry<String, Bucket>>() {
+            @Override
+            public int compare( Map.Entry<String, Bucket> first, Map.Entry<String, Bucket> second ) {
+                return Long.compare( second.getValue().suppressed, first.getValue().suppressed );
+            }
+        } );
+
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append( "Suppressed " ).append( rateLimited + sampled ).append( " events in the last " )
+            .append( TimeUnit.NANOSECONDS.toSeconds( elapsed ) ).append( "s" );
+        if ( rateLimited > 0 ) {
+            stringBuilder.append( ", rate limited: " ).append( rateLimited );
+            for ( int i = 0; i < limitedKeys.size() && i < SUMMARY_KEYS; i++ ) {
+                stringBuilder.append( i == 0 ? " (" : ", " ).append( limitedKeys.get( i ).getKey() ).append( '=' )
+                    .append( limitedKeys.get( i ).getValue().suppressed );
+            }
+            if ( !limitedKeys.isEmpty() ) {
+                stringBuilder.append( limitedKeys.size() > SUMMARY_KEYS ? ", ...)" : ")" );
+            }
+        }
+        if ( sampled > 0 ) {
+            stringBuilder.append( ", sampled out: " ).append( sampled );
+        }
+
+        for ( Bucket bucket : buckets.values() ) {
+            bucket.suppressed = 0;
+        }
+        evictedSuppressed = 0;
+        sampled = 0;
+
+        SyslogMessage summary = new SyslogMessage();
+        summary.setSeverity( Severity.WARNING );
+        summary.setTimestamp( System.currentTimeMillis() );
+        summary.setLoggerName( RateLimitingStage.class.getName() );
+        summary.setMessage( stringBuilder.toString() );
+        return summary;
+    }
+}
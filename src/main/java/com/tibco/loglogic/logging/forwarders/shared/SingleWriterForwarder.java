@@ -0,0 +1,327 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets any number of threads log through a forwarder which is not thread-safe.
+ *
+ * The calling threads run the stages, stamp and render their events (syslog header and body) on their own, then add
+ * them to a staging buffer. There is one staging buffer per core, each thread always using the same one, so that
+ * threads running on different cores seldom contend for the same lock. A single writer thread swaps the staging buffers
+ * out and writes their events, and is the only one touching the wrapped forwarder, apart from the thread connecting it
+ * in the background. It flushes the connection once per round, so bursts of events are written with a single flush.
+ *
+ * The events of a thread are sent in order, the events of different threads are merged in staging buffer order. The
+ * events staged or being written, and those waiting in the queue of the wrapped forwarder while it is disconnected,
+ * share one budget of maxQueueSize bytes: new events are dropped beyond that.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SingleWriterForwarder
+    extends LogForwarder {
+
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private static final int MAX_STRIPES = 64;
+
+    private static final class PendingEvent {
+
+        final SyslogMessage syslogMessage;
+
+        final int size;
+
+        PendingEvent( SyslogMessage syslogMessage, int size ) {
+            this.syslogMessage = syslogMessage;
+            this.size = size;
+        }
+    }
+
+    private static final class Stripe {
+
+        // filled by the calling threads, guarded by the stripe
+        ArrayList<PendingEvent> events = new ArrayList<>();
+
+        // swapped with events by the writer, only used by the writer
+        ArrayList<PendingEvent> draining = new ArrayList<>();
+    }
+
+    private final LogForwarder forwarder;
+
+    private final Stripe[] stripes;
+
+    // the size of the events handed off and not written yet, staged or draining
+    private final AtomicLong stagedBytes = new AtomicLong();
+
+    private volatile Thread writer;
+
+    private volatile boolean writerParked;
+
+    private volatile boolean closed;
+
+    /**
+     * Wrap a forwarder
+     *
+     * @param forwarder the forwarder, only used by the writer thread once connected
+     */
+    public SingleWriterForwarder( LogForwarder forwarder ) {
+        super( forwarder.getSettings() );
+        this.forwarder = forwarder;
+        getMetrics().addChild( forwarder.getMetrics() );
+        int count = Integer.highestOneBit( Math.max( 1, Runtime.getRuntime().availableProcessors() ) - 1 ) << 1;
+        stripes = new Stripe[Math.max( 1, Math.min( count, MAX_STRIPES ) )];
+        for ( int i = 0; i < stripes.length; i++ ) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Connect the wrapped forwarder, then start the writer thread
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        forwarder.connect();
+        startWriter();
+    }
+
+    /**
+     * Start the writer thread right away, and let the wrapped forwarder connect in the background: the writer keeps the
+     * events in its queue until connected.
+     */
+    @Override
+    public void connectInBackground() {
+        forwarder.connectInBackground();
+        startWriter();
+    }
+
+    @Override
+    public boolean isConnecting() {
+        return forwarder.isConnecting();
+    }
+
+    private synchronized void startWriter() {
+        if ( writer == null ) {
+            closed = false;
+            writer = getExecutor().start( "loglmi-writer", new Runnable() {
+                @Override
+                public void run() {
+                    writeEvents();
+                }
+            } );
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return forwarder.isConnected();
+    }
+
+    /**
+     * Let the writer send the pending events, then close the wrapped forwarder
+     */
+    @Override
+    protected void closeConnection()
+        throws IOException {
+        Thread stopped;
+        synchronized ( this ) {
+            closed = true;
+            stopped = writer;
+            writer = null;
+        }
+        if ( stopped != null ) {
+            LockSupport.unpark( stopped );
+            try {
+                stopped.join( CLOSE_TIMEOUT_MS );
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            // from now on, the events the writer is still busy with are dropped by the wrapped forwarder
+            forwarder.close();
+        }
+        finally {
+            dropStagedEvents();
+        }
+    }
+
+    /**
+     * Drop the events left in the staging buffers by a writer which did not stop in time
+     */
+    private void dropStagedEvents() {
+        for ( Stripe stripe : stripes ) {
+            ArrayList<PendingEvent> events;
+            synchronized ( stripe ) {
+                events = stripe.events;
+                stripe.events = new ArrayList<>();
+            }
+            for ( PendingEvent event : events ) {
+                stagedBytes.addAndGet( -event.size );
+                getMetrics().recordDropped();
+                event.syslogMessage.notifyDropped();
+            }
+        }
+    }
+
+    /**
+     * Render the event on the calling thread, then hand it to the writer
+     *
+     * @param syslogMessage the syslog message to send
+     * @param flush ignored, the writer flushes once the pending events are written
+     */
+    @Override
+    public void forwardPreparedEvent( SyslogMessage syslogMessage, boolean flush ) {
+        handOff( syslogMessage );
+    }
+
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage ) {
+        handOff( syslogMessage );
+    }
+
+    /**
+     * Nothing to do, the writer flushes on its own
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Get the number of events waiting for the writer
+     *
+     * @return the number of events in the staging buffers
+     */
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                depth += stripe.events.size();
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Get the size of the events waiting for the writer
+     *
+     * @return the size of the events staged or being written, in bytes
+     */
+    @Override
+    public long getQueueSizeInBytes() {
+        return stagedBytes.get();
+    }
+
+    private void handOff( SyslogMessage syslogMessage ) {
+        // rendered here rather than by the writer, the result is kept by the message
+        int size = encodedLength( syslogMessage.toString() );
+        long id = Thread.currentThread().getId();
+        Stripe stripe = stripes[(int) ( ( id * 0x9e3779b97f4a7c15L ) >>> 40 ) & ( stripes.length - 1 )];
+        long staged = stagedBytes.addAndGet( size );
+        // an event larger than the limit still goes through when nothing else is pending
+        if ( staged + forwarder.getQueueSizeInBytes() > getSettings().getMaxQueueSize() && staged != size ) {
+            stagedBytes.addAndGet( -size );
+            getMetrics().recordDropped();
+            syslogMessage.notifyDropped();
+            return;
+        }
+        synchronized ( stripe ) {
+            if ( closed ) {
+                stagedBytes.addAndGet( -size );
+                getMetrics().recordDropped();
+                syslogMessage.notifyDropped();
+                return;
+            }
+            stripe.events.add( new PendingEvent( syslogMessage, size ) );
+        }
+        if ( writerParked ) {
+            Thread current = writer;
+            if ( current != null ) {
+                LockSupport.unpark( current );
+            }
+        }
+    }
+
+    /**
+     * Swap out the staging buffers
+     *
+     * @return the number of events to write
+     */
+    private int swapStripes() {
+        int count = 0;
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                if ( !stripe.events.isEmpty() ) {
+                    ArrayList<PendingEvent> events = stripe.events;
+                    stripe.events = stripe.draining;
+                    stripe.draining = events;
+                }
+            }
+            count += stripe.draining.size();
+        }
+        return count;
+    }
+
+    private void writeEvents() {
+        while ( true ) {
+            boolean stopping = closed;
+            int count = swapStripes();
+            if ( count == 0 ) {
+                if ( stopping ) {
+                    return;
+                }
+                writerParked = true;
+                // checked again once parked is visible, so that an event handed off meanwhile is not missed
+                if ( isEmpty() && !closed ) {
+                    LockSupport.parkNanos( this, TimeUnit.SECONDS.toNanos( 1 ) );
+                }
+                writerParked = false;
+                continue;
+            }
+            int written = 0;
+            for ( Stripe stripe : stripes ) {
+                for ( PendingEvent event : stripe.draining ) {
+                    written++;
+                    try {
+                        // the wrapped forwarder sends its queue from its connecting thread once connected
+                        forwarder.getLock().lock();
+                        try {
+                            forwarder.forwardPreparedEvent( event.syslogMessage, written == count );
+                        }
+                        finally {
+                            forwarder.getLock().unlock();
+                        }
+                    }
+                    catch ( RuntimeException ignored ) {
+                        // the writer must keep running
+                    }
+                    // now sent, or counted by the queue of the wrapped forwarder
+                    stagedBytes.addAndGet( -event.size );
+                }
+                stripe.draining.clear();
+            }
+        }
+    }
+
+    private boolean isEmpty() {
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                if ( !stripe.events.isEmpty() ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
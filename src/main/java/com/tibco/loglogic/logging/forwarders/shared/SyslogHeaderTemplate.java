@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * The constant parts of the RFC 5424 headers of a forwarder, built once: "&lt;PRI&gt;1 " for each severity, and
+ * "HOSTNAME APP-NAME ". Messages stamped with a template only append the timestamp, PROCID, MSGID and body.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public final class SyslogHeaderTemplate {
+
+    private final String source;
+
+    private final int facility;
+
+    private final String appName;
+
+    // indexed by Severity ordinal
+    private final String[] priPrefixes;
+
+    private final String sourceAndAppName;
+
+    /**
+     * Build the template
+     *
+     * @param source the source host/IP, or null
+     * @param facility the facility
+     * @param appName the application name, or null
+     */
+    public SyslogHeaderTemplate( String source, int facility, String appName ) {
+        this.source = source;
+        this.facility = facility;
+        this.appName = appName;
+        Severity[] severities = Severity.values();
+        priPrefixes = new String[severities.length];
+        for ( Severity severity : severities ) {
+            priPrefixes[severity.ordinal()] = "<" + ( facility * 8 + severity.getLevel() ) + ">1 ";
+        }
+        sourceAndAppName = ( source != null ? source : "-" ) + " " + ( appName != null ? appName : "-" ) + " ";
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getFacility() {
+        return facility;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    String priPrefix( Severity severity ) {
+        return priPrefixes[severity.ordinal()];
+    }
+
+    String sourceAndAppName() {
+        return sourceAndAppName;
+    }
+}
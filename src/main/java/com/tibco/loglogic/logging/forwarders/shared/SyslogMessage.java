@@ -5,8 +5,6 @@
  */
 package com.tibco.loglogic.logging.forwarders.shared;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -16,19 +14,6 @@ import java.util.Date;
  */
 public class SyslogMessage {
 
-    private static final ThreadLocal<DateFormat> THREADLOCAL_FORMAT = new ThreadLocal<DateFormat>() {
-        @Override
-        protected DateFormat initialValue() {
-            return new SimpleDateFormat( DATEFORMATPATTERN );
-        }
-    };
-
-    private static String getTimeString( Date timestamp ) {
-        return THREADLOCAL_FORMAT.get().format( timestamp );
-    }
-
-    private static final String DATEFORMATPATTERN = "YYYY-MM-dd'T'HH:mm:ss.SSS'000'ZZ";
-
     /**
      * Severity of the message as found in RFCs
      */
@@ -64,6 +49,22 @@ public class SyslogMessage {
 
     private String message;
 
+    // rendered form, kept until the message is modified so that it is built only once
+    private String formatted;
+
+    // not sent, used to group events when rate limiting
+    private String loggerName;
+
+    private String messageTemplate;
+
+    private DeliveryListener deliveryListener;
+
+    // constant part of the header, dropped if the source, facility or application name is modified
+    private SyslogHeaderTemplate headerTemplate;
+
+    // formatted timestamp length, including the trailing space
+    private static final int TIMESTAMP_LENGTH = 32;
+
     /**
      * Get the timestamp of the message
      *
@@ -81,6 +82,7 @@ public class SyslogMessage {
      */
     public void setTimestamp( long timestamp ) {
         this.timestamp = new Date( timestamp );
+        formatted = null;
     }
 
     /**
@@ -99,6 +101,8 @@ public class SyslogMessage {
      */
     public void setAppName( String appName ) {
         this.appName = appName;
+        headerTemplate = null;
+        formatted = null;
     }
 
     /**
@@ -117,6 +121,7 @@ public class SyslogMessage {
      */
     public void setProcId( String procId ) {
         this.procId = procId;
+        formatted = null;
     }
 
     /**
@@ -135,6 +140,7 @@ public class SyslogMessage {
      */
     public void setMsgId( String msgId ) {
         this.msgId = msgId;
+        formatted = null;
     }
 
     /**
@@ -153,6 +159,8 @@ public class SyslogMessage {
      */
     public void setFacility( int facility ) {
         this.facility = facility;
+        headerTemplate = null;
+        formatted = null;
     }
 
     /**
@@ -171,6 +179,7 @@ public class SyslogMessage {
      */
     public void setSeverity( Severity severity ) {
         this.severity = severity;
+        formatted = null;
     }
 
     /**
@@ -189,6 +198,7 @@ public class SyslogMessage {
      */
     public void setMessage( String message ) {
         this.message = message;
+        formatted = null;
     }
 
     // As per RFC-5424, the string format is
@@ -201,17 +211,28 @@ public class SyslogMessage {
      *
      * if the rawMode setting is on, no formating is done and the message body is returned
      *
+     * The result is kept until the message is modified, so a message forwarded to several destinations is only
+     * formatted once.
+     *
      * @return the syslog message
      */
     @Override
     public String toString() {
         if ( rawMode )
             return message;
+        if ( formatted == null )
+            formatted = format();
+        return formatted;
+    }
+
+    private String format() {
         if ( timestamp == null )
             timestamp = new Date();
+        if ( headerTemplate != null )
+            return formatWithTemplate( headerTemplate );
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append( "<" ).append( facility * 8 + severity.level ).append( ">1 " );
-        stringBuilder.append( getTimeString( timestamp ) ).append( " " );
+        stringBuilder.append( TimestampFormatter.format( timestamp.getTime() ) ).append( " " );
         if ( source != null ) {
             stringBuilder.append( source ).append( " " );
         }
@@ -241,6 +262,37 @@ public class SyslogMessage {
         return stringBuilder.toString();
     }
 
+    private String formatWithTemplate( SyslogHeaderTemplate template ) {
+        String priPrefix = template.priPrefix( severity );
+        String sourceAndAppName = template.sourceAndAppName();
+        int length = priPrefix.length() + TIMESTAMP_LENGTH + sourceAndAppName.length()
+            + ( procId != null ? procId.length() + 1 : 2 ) + ( msgId != null ? msgId.length() + 1 : 2 ) + 2
+            + ( message != null ? message.length() : 4 );
+        // sized up front, so that the builder never grows
+        StringBuilder stringBuilder = new StringBuilder( length );
+        stringBuilder.append( priPrefix );
+        stringBuilder.append( TimestampFormatter.format( timestamp.getTime() ) ).append( ' ' );
+        stringBuilder.append( sourceAndAppName );
+        stringBuilder.append( procId != null ? procId : "-" ).append( ' ' );
+        stringBuilder.append( msgId != null ? msgId : "-" ).append( ' ' );
+        stringBuilder.append( "- " ); // structured data placeholder
+        stringBuilder.append( message );
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Stamp the message with the source, facility and application name of a header template
+     *
+     * @param headerTemplate the template
+     */
+    public void setHeaderTemplate( SyslogHeaderTemplate headerTemplate ) {
+        this.source = headerTemplate.getSource();
+        this.facility = headerTemplate.getFacility();
+        this.appName = headerTemplate.getAppName();
+        this.headerTemplate = headerTemplate;
+        formatted = null;
+    }
+
     /**
      * Get the source host/IP
      *
@@ -257,6 +309,8 @@ public class SyslogMessage {
      */
     public void setSource( String source ) {
         this.source = source;
+        headerTemplate = null;
+        formatted = null;
     }
 
     /**
@@ -275,5 +329,101 @@ public class SyslogMessage {
      */
     public void setRawMode( boolean rawMode ) {
         this.rawMode = rawMode;
+        formatted = null;
+    }
+
+    /**
+     * Get the name of the logger which produced the message. Not part of the sent message.
+     *
+     * @return the logger name, or null if unknown
+     */
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * Set the name of the logger which produced the message. Not part of the sent message.
+     *
+     * @param loggerName the logger name
+     */
+    public void setLoggerName( String loggerName ) {
+        this.loggerName = loggerName;
+    }
+
+    /**
+     * Get the message before its parameters were substituted. Not part of the sent message.
+     *
+     * @return the message template, or null if unknown
+     */
+    public String getMessageTemplate() {
+        return messageTemplate;
+    }
+
+    /**
+     * Set the message before its parameters were substituted. Not part of the sent message.
+     *
+     * @param messageTemplate the message template
+     */
+    public void setMessageTemplate( String messageTemplate ) {
+        this.messageTemplate = messageTemplate;
+    }
+
+    /**
+     * Get the listener notified of the outcome of the message. Not part of the sent message.
+     *
+     * @return the listener, or null if none
+     */
+    public DeliveryListener getDeliveryListener() {
+        return deliveryListener;
+    }
+
+    /**
+     * Set the listener notified of the outcome of the message. Not part of the sent message.
+     *
+     * @param deliveryListener the listener
+     */
+    public void setDeliveryListener( DeliveryListener deliveryListener ) {
+        this.deliveryListener = deliveryListener;
+    }
+
+    /**
+     * Copy the message, with its rendering, for a destination of its own. The delivery listener is not copied.
+     *
+     * @return the copy
+     */
+    SyslogMessage copy() {
+        SyslogMessage copy = new SyslogMessage();
+        copy.rawMode = rawMode;
+        copy.severity = severity;
+        copy.facility = facility;
+        copy.source = source;
+        // never modified, setTimestamp() replaces it
+        copy.timestamp = timestamp;
+        copy.appName = appName;
+        copy.procId = procId;
+        copy.msgId = msgId;
+        copy.message = message;
+        copy.formatted = formatted;
+        copy.loggerName = loggerName;
+        copy.messageTemplate = messageTemplate;
+        copy.headerTemplate = headerTemplate;
+        return copy;
+    }
+
+    void notifyDelivered() {
+        DeliveryListener listener = deliveryListener;
+        if ( listener != null ) {
+            // only the first outcome counts
+            deliveryListener = null;
+            listener.delivered( this );
+        }
+    }
+
+    void notifyDropped() {
+        DeliveryListener listener = deliveryListener;
+        if ( listener != null ) {
+            deliveryListener = null;
+            listener.dropped( this );
+        }
     }
 }
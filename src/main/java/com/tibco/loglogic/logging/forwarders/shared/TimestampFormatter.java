@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Formats the timestamps of the syslog headers. SimpleDateFormat is not thread-safe, so each thread keeps its own.
+ *
+ * The multi-release jar replaces this class on Java 11 and later (src/main/java11).
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class TimestampFormatter {
+
+    static final String PATTERN = "YYYY-MM-dd'T'HH:mm:ss.SSS'000'ZZ";
+
+    private static final ThreadLocal<DateFormat> THREADLOCAL_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat( PATTERN );
+        }
+    };
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * Format a timestamp in the local time zone
+     *
+     * @param timestamp the timestamp (ms)
+     * @return the formatted timestamp
+     */
+    static String format( long timestamp ) {
+        return THREADLOCAL_FORMAT.get().format( new Date( timestamp ) );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Runs the background work of the forwarders on virtual threads, so that blocking socket I/O does not hold a platform
+ * thread per appender. Virtual threads are looked up by reflection, as the library is built for Java 7.
+ *
+ * Before Java 24, a virtual thread blocking while holding a monitor pins its carrier thread; the forwarders serialize
+ * their writes with a ReentrantLock instead, which does not.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class VirtualThreadExecutor
+    extends ForwarderExecutor {
+
+    static final VirtualThreadExecutor INSTANCE = new VirtualThreadExecutor();
+
+    // Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable), null if not supported
+    private static final Method OF_VIRTUAL;
+
+    private static final Method NAME;
+
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+            ofVirtual = Thread.class.getMethod( "ofVirtual" );
+            name = builderClass.getMethod( "name", String.class );
+            unstarted = builderClass.getMethod( "unstarted", Runnable.class );
+            // fails if virtual threads are a preview feature which is not enabled
+            ofVirtual.invoke( null );
+        }
+        catch ( Exception e ) {
+            ofVirtual = null;
+        }
+        catch ( LinkageError e ) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * Get whether the JVM supports virtual threads
+     *
+     * @return true if supported
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    @Override
+    public Thread start( String name, Runnable task ) {
+        if ( !isSupported() ) {
+            throw new UnsupportedOperationException( "Virtual threads require Java 21 or later" );
+        }
+        Thread thread;
+        try {
+            Object builder = NAME.invoke( OF_VIRTUAL.invoke( null ), name );
+            thread = (Thread) UNSTARTED.invoke( builder, task );
+        }
+        catch ( IllegalAccessException e ) {
+            throw new IllegalStateException( e );
+        }
+        catch ( InvocationTargetException e ) {
+            throw new IllegalStateException( e.getCause() );
+        }
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+}
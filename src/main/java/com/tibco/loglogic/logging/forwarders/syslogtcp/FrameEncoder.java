@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes syslog messages into frames written with a single call, using a reusable buffer. Not thread-safe, each
+ * connection uses its own encoder.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+abstract class FrameEncoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // buffers grown beyond this size for a large message are not kept
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    private ByteBuffer view = ByteBuffer.wrap( buffer );
+
+    /**
+     * Create the encoder matching the settings
+     *
+     * @param settings the settings of the forwarder
+     * @return the encoder
+     */
+    static FrameEncoder create( SyslogTcpForwarderSettings settings ) {
+        if ( settings.isUseOctetCounting() ) {
+            return new OctetCountingFrameEncoder();
+        }
+        return new NonTransparentFrameEncoder();
+    }
+
+    /**
+     * Write a complete frame for the message
+     *
+     * @param message the syslog message
+     * @param out the stream to write to
+     * @return the number of bytes written
+     * @throws IOException in case of connection issues
+     */
+    abstract int writeFrame( String message, OutputStream out )
+        throws IOException;
+
+    /**
+     * Get a buffer of at least the given capacity. Its content is not preserved.
+     *
+     * @param capacity the number of bytes needed
+     * @return the buffer
+     */
+    protected byte[] buffer( int capacity ) {
+        if ( capacity > buffer.length ) {
+            byte[] larger = new byte[Math.max( capacity, buffer.length * 2 )];
+            if ( larger.length > MAX_RETAINED_CAPACITY ) {
+                return larger;
+            }
+            buffer = larger;
+            view = ByteBuffer.wrap( buffer );
+        }
+        return buffer;
+    }
+
+    /**
+     * Get a ByteBuffer wrapping the given buffer
+     *
+     * @param data a buffer returned by buffer(int)
+     * @return the view
+     */
+    protected ByteBuffer view( byte[] data ) {
+        return data == buffer ? view : ByteBuffer.wrap( data );
+    }
+
+    /**
+     * Encode the string in UTF-8, replacing unpaired surrogates with '?' like String.getBytes does. The buffer must
+     * have room for 3 bytes per char.
+     *
+     * @return the offset following the last byte written
+     */
+    static int encodeUtf8( String message, byte[] frame, int position ) {
+        int length = message.length();
+        int i = 0;
+        // ASCII fast path
+        while ( i < length ) {
+            char c = message.charAt( i );
+            if ( c >= 0x80 ) {
+                break;
+            }
+            frame[position++] = (byte) c;
+            i++;
+        }
+        for ( ; i < length; i++ ) {
+            char c = message.charAt( i );
+            if ( c < 0x80 ) {
+                frame[position++] = (byte) c;
+            }
+            else if ( c < 0x800 ) {
+                frame[position++] = (byte) ( 0xc0 | ( c >> 6 ) );
+                frame[position++] = (byte) ( 0x80 | ( c & 0x3f ) );
+            }
+            else if ( Character.isSurrogate( c ) ) {
+                if ( Character.isHighSurrogate( c ) && i + 1 < length
+                    && Character.isLowSurrogate( message.charAt( i + 1 ) ) ) {
+                    int codePoint = Character.toCodePoint( c, message.charAt( ++i ) );
+                    frame[position++] = (byte) ( 0xf0 | ( codePoint >> 18 ) );
+                    frame[position++] = (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3f ) );
+                    frame[position++] = (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3f ) );
+                    frame[position++] = (byte) ( 0x80 | ( codePoint & 0x3f ) );
+                }
+                else {
+                    frame[position++] = '?';
+                }
+            }
+            else {
+                frame[position++] = (byte) ( 0xe0 | ( c >> 12 ) );
+                frame[position++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3f ) );
+                frame[position++] = (byte) ( 0x80 | ( c & 0x3f ) );
+            }
+        }
+        return position;
+    }
+}
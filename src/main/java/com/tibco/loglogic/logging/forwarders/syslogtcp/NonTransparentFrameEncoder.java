@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.tibco.loglogic.logging.forwarders.shared.LineBreakEscaper;
+
+/**
+ * Encodes syslog messages with the non-transparent framing of RFC 6587: the message followed by LF. CR and LF within
+ * the message are escaped as "\r" and "\n".
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class NonTransparentFrameEncoder
+    extends FrameEncoder {
+
+    @Override
+    int writeFrame( String message, OutputStream out )
+        throws IOException {
+        // 3 bytes per char is enough for the escaped line breaks too, which are single bytes
+        byte[] frame = buffer( message.length() * 3 + 1 );
+        int end = encodeUtf8( message, frame, 0 );
+        int lineBreaks = LineBreakEscaper.countLineBreaks( view( frame ), 0, end );
+        if ( lineBreaks != 0 ) {
+            end = LineBreakEscaper.escapeInPlace( frame, 0, end, lineBreaks );
+        }
+        frame[end++] = '\n';
+        out.write( frame, 0, end );
+        return end;
+    }
+}
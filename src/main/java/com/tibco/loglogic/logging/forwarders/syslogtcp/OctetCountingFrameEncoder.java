@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes syslog messages with the octet-counting framing of RFC 6587: "MSG-LEN SP SYSLOG-MSG".
+ *
+ * The message is encoded in UTF-8 after a reserved header area, then the length digits are written backwards just in
+ * front of it, so that the frame is one contiguous region.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class OctetCountingFrameEncoder
+    extends FrameEncoder {
+
+    // up to 10 digits for an int, plus the space
+    private static final int HEADER_SPACE = 11;
+
+    @Override
+    int writeFrame( String message, OutputStream out )
+        throws IOException {
+        byte[] frame = buffer( HEADER_SPACE + message.length() * 3 );
+        int end = encodeUtf8( message, frame, HEADER_SPACE );
+        int start = writeHeader( end - HEADER_SPACE, frame );
+        out.write( frame, start, end - start );
+        return end - start;
+    }
+
+    /**
+     * Write "length SP" so that it ends right before the message
+     *
+     * @return the offset of the first digit
+     */
+    private static int writeHeader( int length, byte[] frame ) {
+        int position = HEADER_SPACE - 1;
+        frame[position] = ' ';
+        do {
+            frame[--position] = (byte) ( '0' + length % 10 );
+            length /= 10;
+        }
+        while ( length != 0 );
+        return position;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * The last events written to a syslog TCP connection, oldest first, to write them again on another connection. Syslog
+ * over TCP has no acknowledgements, so there is no telling which of them the destination got.
+ *
+ * The events written since the last flush are always kept, up to a hard limit. Flushed events are kept up to a lower
+ * limit, which is 0 unless replaying the flushed events as well.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class ReplayBuffer {
+
+    private static final class Entry {
+
+        final SyslogMessage syslogMessage;
+
+        final int size;
+
+        Entry( SyslogMessage syslogMessage, int size ) {
+            this.syslogMessage = syslogMessage;
+            this.size = size;
+        }
+    }
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    private long sizeInBytes;
+
+    // the newest entries, not flushed yet
+    private int unflushedCount;
+
+    /**
+     * Keep an event just written
+     *
+     * @param syslogMessage the event
+     * @param size its size once framed
+     * @param maxSize the size beyond which the oldest events are given up on, even if not flushed
+     */
+    void add( SyslogMessage syslogMessage, int size, long maxSize ) {
+        entries.add( new Entry( syslogMessage, size ) );
+        sizeInBytes += size;
+        unflushedCount++;
+        while ( sizeInBytes > maxSize && entries.size() > 1 ) {
+            removeOldest();
+        }
+    }
+
+    /**
+     * Mark all the events as flushed, and give up on the oldest ones beyond a limit
+     *
+     * @param flushedLimit the size of the flushed events to keep
+     */
+    void flushed( long flushedLimit ) {
+        unflushedCount = 0;
+        while ( sizeInBytes > flushedLimit && !entries.isEmpty() ) {
+            removeOldest();
+        }
+    }
+
+    /**
+     * Get the events written since the last flush
+     *
+     * @return the events, oldest first
+     */
+    List<SyslogMessage> getUnflushed() {
+        List<SyslogMessage> unflushed = new ArrayList<>( unflushedCount );
+        Iterator<Entry> iterator = entries.descendingIterator();
+        for ( int i = 0; i < unflushedCount; i++ ) {
+            unflushed.add( iterator.next().syslogMessage );
+        }
+        Collections.reverse( unflushed );
+        return unflushed;
+    }
+
+    /**
+     * Get all the events kept
+     *
+     * @return the events, oldest first
+     */
+    List<SyslogMessage> getAll() {
+        List<SyslogMessage> all = new ArrayList<>( entries.size() );
+        for ( Entry entry : entries ) {
+            all.add( entry.syslogMessage );
+        }
+        return all;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    void clear() {
+        entries.clear();
+        sizeInBytes = 0;
+        unflushedCount = 0;
+    }
+
+    private void removeOldest() {
+        sizeInBytes -= entries.poll().size;
+        if ( unflushedCount > entries.size() ) {
+            unflushedCount = entries.size();
+        }
+    }
+}
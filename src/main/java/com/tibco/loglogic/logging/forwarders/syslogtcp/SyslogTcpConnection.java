@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * An established syslog TCP connection, TLS handshake included, with its buffered output stream
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class SyslogTcpConnection {
+
+    private final Socket socket;
+
+    private final BufferedOutputStream out;
+
+    SyslogTcpConnection( Socket socket )
+        throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream( socket.getOutputStream() );
+    }
+
+    /**
+     * Get the size of the socket send buffer, as set by the system
+     *
+     * @return the size in bytes, 0 if unknown
+     */
+    int getSendBufferSize() {
+        try {
+            return socket.getSendBufferSize();
+        }
+        catch ( IOException e ) {
+            return 0;
+        }
+    }
+
+    OutputStream getOutputStream() {
+        return out;
+    }
+
+    void flush()
+        throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flush what can be, then close the connection
+     */
+    void close() {
+        try {
+            out.flush();
+        }
+        catch ( IOException ignored ) {
+        }
+        abort();
+    }
+
+    /**
+     * Close the connection, dropping what was not flushed yet
+     */
+    void abort() {
+        try {
+            socket.close();
+        }
+        catch ( IOException ignored ) {
+        }
+    }
+
+    /**
+     * Block until the connection is closed, by the destination or locally. A syslog destination never sends anything,
+     * so reading only returns once the connection is gone.
+     */
+    void awaitClosed() {
+        byte[] discarded = new byte[256];
+        try {
+            InputStream in = socket.getInputStream();
+            while ( true ) {
+                try {
+                    if ( in.read( discarded ) < 0 ) {
+                        return;
+                    }
+                }
+                catch ( SocketTimeoutException idle ) {
+                    // soTimeout elapsed, the connection is still up
+                }
+            }
+        }
+        catch ( IOException e ) {
+            return;
+        }
+    }
+}
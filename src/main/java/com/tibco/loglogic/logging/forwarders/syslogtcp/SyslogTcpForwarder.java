@@ -5,11 +5,9 @@
  */
 package com.tibco.loglogic.logging.forwarders.syslogtcp;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.security.KeyManagementException;
@@ -22,7 +20,6 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -39,13 +36,22 @@ import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509ExtendedTrustManager;
 import javax.net.ssl.X509TrustManager;
 
+import com.tibco.loglogic.logging.forwarders.shared.LoadBalancedForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
 import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings.CertificateFingerprint;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings.Destination;
 
 /**
  * Forwards log using syslog TCP protocol
  *
+ * With hotStandby, a second connection is established ahead of time and kept warm by a background thread. When writing
+ * to the connection in use fails, the forwarder switches over to the standby connection and writes again the events
+ * which were not flushed yet, then warms up a new standby connection.
+ *
+ * With atLeastOnce, the last events written are kept even once flushed, and written again on the next connection, so
+ * that the events lost in the socket buffers when a connection breaks are delivered, possibly twice.
+ *
  * @author lpautet@tibco.com
  *
  */
@@ -54,20 +60,63 @@ public class SyslogTcpForwarder
 
     private static int SOCKET_BUFFER_SIZE = 8 * 1024; // Default to 8192
 
-    // streaming objects
-    private Socket streamSocket = null;
+    private static final long INITIAL_STANDBY_DELAY_MS = 500;
+
+    private static final long MAX_STANDBY_DELAY_MS = 30000;
+
+    // default size of the BufferedOutputStream of a connection
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private SyslogTcpConnection connection;
+
+    private final FrameEncoder frameEncoder;
 
-    private OutputStream ostream;
+    // events written recently, written again on the standby or the next connection
+    private final ReplayBuffer written = new ReplayBuffer();
 
-    private BufferedOutputStream out = null;
+    // size of the flushed events kept for replay
+    private long replayLimit;
+
+    // guards standby and standbyWarmer
+    private final Object standbyLock = new Object();
+
+    private SyslogTcpConnection standby;
+
+    // identifies the thread currently in charge of the standby connection
+    private Object standbyWarmer;
 
     public SyslogTcpForwarder( SyslogTcpForwarderSettings settings ) {
         super( settings );
+        frameEncoder = FrameEncoder.create( settings );
     }
 
-    public SSLContext sslContext;
+    /**
+     * Create the forwarder matching the settings: a Unix domain socket if unixSocketPath is set, a load balancer if
+     * destinations are configured, a pool of connections if connectionPoolSize is greater than 1, a single connection
+     * otherwise.
+     *
+     * @param settings the settings of the forwarder
+     * @return the forwarder
+     */
+    public static LogForwarder create( SyslogTcpForwarderSettings settings ) {
+        if ( settings.getUnixSocketPath() != null ) {
+            return new UnixSocketForwarder( settings );
+        }
+        if ( !settings.getDestinations().isEmpty() ) {
+            LoadBalancedForwarder loadBalancedForwarder = new LoadBalancedForwarder( settings );
+            for ( SyslogTcpForwarderSettings.Destination destination : settings.getDestinations() ) {
+                loadBalancedForwarder.addDestination( create( settings.forDestination( destination ) ),
+                                                      destination.getWeight() );
+            }
+            return loadBalancedForwarder;
+        }
+        if ( settings.getConnectionPoolSize() > 1 ) {
+            return new SyslogTcpForwarderPool( settings );
+        }
+        return new SyslogTcpForwarder( settings );
+    }
 
-    private KeyStore keyStore;
+    public SSLContext sslContext;
 
     @Override
     protected SyslogTcpForwarderSettings getSettings() {
@@ -138,13 +187,55 @@ public class SyslogTcpForwarder
     }
 
     /**
-     * open the TCP connection, create an UTF8 writer with it
+     * open the TCP connection, or switch over to the standby connection if there is one. The connection is opened
+     * without the lock of this forwarder, then published and the kept events written again holding it, as the
+     * forwarding threads.
      */
     @Override
     public void initializeConnection()
         throws IOException {
+        SyslogTcpConnection opened = takeStandby();
+        if ( opened == null ) {
+            opened = openConnection( getSettings().getHost(), getSettings().getPort() );
+        }
+        getLock().lock();
+        try {
+            connection = opened;
+            startStandby();
+            if ( getSettings().isAtLeastOnce() ) {
+                replayLimit = getSettings().getReplayBufferSize();
+                if ( replayLimit == 0 ) {
+                    // our send buffer, about as much received but not processed yet by the destination, and our stream
+                    replayLimit = 2L * connection.getSendBufferSize() + STREAM_BUFFER_SIZE;
+                }
+                if ( !written.isEmpty() ) {
+                    try {
+                        replay( written.getAll() );
+                        connection.flush();
+                    }
+                    catch ( IOException e ) {
+                        connection.abort();
+                        connection = null;
+                        throw e;
+                    }
+                    written.flushed( replayLimit );
+                }
+            }
+        }
+        finally {
+            getLock().unlock();
+        }
+    }
 
+    /**
+     * open a TCP connection, and perform the TLS handshake if needed
+     */
+    private SyslogTcpConnection openConnection( String host, int port )
+        throws IOException {
+        Socket streamSocket;
         if ( getSettings().isUseTls() ) {
+            SSLContext sslContext;
+            KeyStore keyStore = null;
             try {
                 sslContext = SSLContext.getInstance( getSettings().getTlsProtocolName() );
             }
@@ -237,6 +328,7 @@ public class SyslogTcpForwarder
             catch ( KeyManagementException e ) {
                 throw new IOException( "Key Management exception while initializing TLS context " + e.getMessage() );
             }
+            this.sslContext = sslContext;
 
             SSLSocketFactory factory = sslContext.getSocketFactory();
             SSLSocket sslSocket = (SSLSocket) factory.createSocket();
@@ -254,8 +346,7 @@ public class SyslogTcpForwarder
         }
 
         streamSocket.setSoTimeout( getSettings().getSoTimeout() );
-        streamSocket.connect( new InetSocketAddress( getSettings().getHost(), getSettings().getPort() ),
-                              getSettings().getSoTimeout() );
+        streamSocket.connect( new InetSocketAddress( host, port ), getSettings().getSoTimeout() );
 
         if ( streamSocket.isConnected() ) {
             if ( streamSocket instanceof SSLSocket ) {
@@ -263,8 +354,10 @@ public class SyslogTcpForwarder
             }
             streamSocket.setSendBufferSize( SOCKET_BUFFER_SIZE );
             streamSocket.setReceiveBufferSize( SOCKET_BUFFER_SIZE );
-            ostream = streamSocket.getOutputStream();
-            out = new BufferedOutputStream( ostream );
+            if ( getSettings().isHotStandby() ) {
+                streamSocket.setKeepAlive( true );
+            }
+            return new SyslogTcpConnection( streamSocket );
         }
         else {
             throw new IOException( "Connection failed" );
@@ -272,40 +365,204 @@ public class SyslogTcpForwarder
     }
 
     /**
-     * close the connection
+     * close the connection, the standby connection is kept. Holds the lock of this forwarder, as the connector
+     * publishing a new connection.
      */
-    public void close() {
+    protected void closeConnection() {
+        getLock().lock();
         try {
-            if ( out != null ) {
-                out.flush();
-                out.close();
-                if ( streamSocket != null )
-                    streamSocket.close();
+            if ( connection != null ) {
+                connection.close();
+                connection = null;
+            }
+            if ( !getSettings().isAtLeastOnce() ) {
+                written.clear();
             }
         }
-        catch ( Exception ignored ) {
+        finally {
+            getLock().unlock();
+        }
+    }
+
+    /**
+     * Close the connection and the standby connection
+     */
+    @Override
+    public void close()
+        throws IOException {
+        super.close();
+        stopStandby();
+        getLock().lock();
+        try {
+            written.clear();
+        }
+        finally {
+            getLock().unlock();
         }
     }
 
     protected void sendMessage( SyslogMessage syslogMessage )
         throws IOException {
-        String currentMessage = syslogMessage.toString();
-        if ( !getSettings().isUseOctetCounting() ) {
-            currentMessage = currentMessage.replace( "\r", "\\r" ).replace( "\n", "\\n" );
-            currentMessage += "\n";
+        int bytes;
+        try {
+            bytes = frameEncoder.writeFrame( syslogMessage.toString(), connection.getOutputStream() );
+        }
+        catch ( IOException e ) {
+            failOver( e );
+            bytes = frameEncoder.writeFrame( syslogMessage.toString(), connection.getOutputStream() );
         }
-        byte[] data = currentMessage.getBytes( "UTF8" );
-        if ( getSettings().isUseOctetCounting() ) {
-            String header = Integer.toString( data.length ) + " ";
-            out.write( header.getBytes( "UTF8" ) );
+        getMetrics().recordBytesSent( bytes );
+        if ( getSettings().isHotStandby() || getSettings().isAtLeastOnce() ) {
+            written.add( syslogMessage, bytes, Math.max( getSettings().getMaxQueueSize(), replayLimit ) );
         }
-        out.write( data );
+    }
+
+    /**
+     * With atLeastOnce, the events written but not flushed are written again once reconnected
+     */
+    @Override
+    protected boolean replaysUnflushedEvents() {
+        return getSettings().isAtLeastOnce();
     }
 
     @Override
     public void flush()
         throws IOException {
-        out.flush();
+        try {
+            connection.flush();
+        }
+        catch ( IOException e ) {
+            failOver( e );
+            connection.flush();
+        }
+        written.flushed( replayLimit );
+    }
+
+    /**
+     * Switch over to the standby connection and write again the events not flushed on the failed connection, or all
+     * the events kept with atLeastOnce
+     *
+     * @param failure the failure of the connection in use
+     * @throws IOException the failure, if there is no standby connection
+     */
+    private void failOver( IOException failure )
+        throws IOException {
+        SyslogTcpConnection promoted = takeStandby();
+        if ( promoted == null ) {
+            throw failure;
+        }
+        connection.abort();
+        connection = promoted;
+        getMetrics().recordFailover();
+        startStandby();
+        replay( getSettings().isAtLeastOnce() ? written.getAll() : written.getUnflushed() );
+    }
+
+    private void replay( List<SyslogMessage> events )
+        throws IOException {
+        for ( SyslogMessage syslogMessage : events ) {
+            getMetrics().recordBytesSent( frameEncoder.writeFrame( syslogMessage.toString(),
+                                                                   connection.getOutputStream() ) );
+        }
+        getMetrics().recordReplayed( events.size() );
+    }
+
+    private SyslogTcpConnection takeStandby() {
+        synchronized ( standbyLock ) {
+            SyslogTcpConnection promoted = standby;
+            if ( promoted != null ) {
+                // the current warmer keeps watching the promoted connection, another one warms the next standby
+                standby = null;
+                standbyWarmer = null;
+            }
+            return promoted;
+        }
+    }
+
+    private void startStandby() {
+        if ( !getSettings().isHotStandby() ) {
+            return;
+        }
+        final Object warmer = new Object();
+        synchronized ( standbyLock ) {
+            if ( standbyWarmer != null ) {
+                return;
+            }
+            standbyWarmer = warmer;
+        }
+        getExecutor().start( "loglmi-standby", new Runnable() {
+            @Override
+            public void run() {
+                keepStandbyWarm( warmer );
+            }
+        } );
+    }
+
+    private void stopStandby() {
+        SyslogTcpConnection stopped;
+        synchronized ( standbyLock ) {
+            standbyWarmer = null;
+            stopped = standby;
+            standby = null;
+        }
+        if ( stopped != null ) {
+            stopped.close();
+        }
+    }
+
+    /**
+     * Establish the standby connection, and establish it again whenever it is closed, until stopped or promoted
+     *
+     * @param warmer identifies this warmer
+     */
+    private void keepStandbyWarm( Object warmer ) {
+        Destination destination = getSettings().getStandbyDestination();
+        String host = destination != null ? destination.getHost() : getSettings().getHost();
+        int port = destination != null && destination.getPort() != 0 ? destination.getPort() : getSettings().getPort();
+        long delay = INITIAL_STANDBY_DELAY_MS;
+        while ( true ) {
+            synchronized ( standbyLock ) {
+                if ( standbyWarmer != warmer ) {
+                    return;
+                }
+            }
+            SyslogTcpConnection warm;
+            try {
+                warm = openConnection( host, port );
+            }
+            catch ( IOException e ) {
+                try {
+                    Thread.sleep( delay );
+                }
+                catch ( InterruptedException interrupted ) {
+                    synchronized ( standbyLock ) {
+                        if ( standbyWarmer == warmer ) {
+                            standbyWarmer = null;
+                        }
+                    }
+                    return;
+                }
+                delay = Math.min( delay * 2, MAX_STANDBY_DELAY_MS );
+                continue;
+            }
+            synchronized ( standbyLock ) {
+                if ( standbyWarmer != warmer ) {
+                    warm.close();
+                    return;
+                }
+                standby = warm;
+            }
+            delay = INITIAL_STANDBY_DELAY_MS;
+            warm.awaitClosed();
+            synchronized ( standbyLock ) {
+                if ( standby != warm ) {
+                    // promoted or stopped
+                    return;
+                }
+                standby = null;
+            }
+            warm.close();
+        }
     }
 
     public static byte[] getFingerprint( String algorithm, X509Certificate cert )
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings.PoolDistribution;
+
+/**
+ * Forwards log using several parallel syslog TCP connections to the same destination.
+ *
+ * Each connection is a full SyslogTcpForwarder with its own queue, so a slow or broken connection does not hold the
+ * others back. Events are spread across the connections by thread affinity or round-robin, and writes to different
+ * connections (including TLS encryption) can proceed in parallel.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SyslogTcpForwarderPool
+    extends LogForwarder {
+
+    private final SyslogTcpForwarder[] connections;
+
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    public SyslogTcpForwarderPool( SyslogTcpForwarderSettings settings ) {
+        super( settings );
+        connections = new SyslogTcpForwarder[settings.getConnectionPoolSize()];
+        for ( int i = 0; i < connections.length; i++ ) {
+            connections[i] = new SyslogTcpForwarder( settings );
+            getMetrics().addChild( connections[i].getMetrics() );
+        }
+    }
+
+    @Override
+    protected SyslogTcpForwarderSettings getSettings() {
+        return (SyslogTcpForwarderSettings) super.getSettings();
+    }
+
+    /**
+     * Get the number of connections in the pool
+     *
+     * @return the number of connections
+     */
+    public int getPoolSize() {
+        return connections.length;
+    }
+
+    /**
+     * Open all the connections of the pool. Succeeds as long as at least one connection is established, the others
+     * keep connecting in the background.
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        IOException failure = null;
+        boolean oneConnected = false;
+        for ( SyslogTcpForwarder connection : connections ) {
+            connection.getLock().lock();
+            try {
+                if ( connection.isConnected() ) {
+                    oneConnected = true;
+                    continue;
+                }
+                if ( connection.isConnecting() ) {
+                    continue;
+                }
+                try {
+                    connection.connect();
+                    oneConnected = true;
+                }
+                catch ( IOException e ) {
+                    failure = e;
+                    connection.connectInBackground();
+                }
+            }
+            finally {
+                connection.getLock().unlock();
+            }
+        }
+        if ( !oneConnected ) {
+            throw failure != null ? failure : new IOException( "No connection established yet" );
+        }
+    }
+
+    /**
+     * close all the connections
+     */
+    @Override
+    protected void closeConnection() {
+        for ( SyslogTcpForwarder connection : connections ) {
+            connection.getLock().lock();
+            try {
+                try {
+                    connection.close();
+                }
+                catch ( IOException ignored ) {
+                }
+            }
+            finally {
+                connection.getLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        SyslogTcpForwarder connection = selectConnection();
+        connection.getLock().lock();
+        try {
+            connection.sendMessage( syslogMessage );
+        }
+        finally {
+            connection.getLock().unlock();
+        }
+    }
+
+    @Override
+    public void flush()
+        throws IOException {
+        for ( SyslogTcpForwarder connection : connections ) {
+            connection.getLock().lock();
+            try {
+                if ( connection.isConnected() )
+                    connection.flush();
+            }
+            finally {
+                connection.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Hand the event to one of the connections, which takes care of queuing and reconnecting on its own.
+     *
+     * @param syslogMessage the syslog message to send
+     */
+    @Override
+    public void forwardPreparedEvent( SyslogMessage syslogMessage, boolean flush ) {
+        SyslogTcpForwarder connection = selectConnection();
+        connection.getLock().lock();
+        try {
+            connection.forwardPreparedEvent( syslogMessage, flush );
+        }
+        finally {
+            connection.getLock().unlock();
+        }
+    }
+
+    private SyslogTcpForwarder selectConnection() {
+        int preferred;
+        if ( getSettings().getConnectionPoolDistribution() == PoolDistribution.ROUND_ROBIN ) {
+            preferred = ( nextConnection.getAndIncrement() & Integer.MAX_VALUE ) % connections.length;
+        }
+        else {
+            preferred = (int) ( Thread.currentThread().getId() % connections.length );
+        }
+        // skip the connections that are down, as long as one is up
+        for ( int i = 0; i < connections.length; i++ ) {
+            SyslogTcpForwarder connection = connections[( preferred + i ) % connections.length];
+            if ( connection.isConnected() ) {
+                return connection;
+            }
+        }
+        return connections[preferred];
+    }
+}
@@ -50,8 +50,71 @@ public class SyslogTcpForwarderSettings
 
     private boolean ignoreHostnameValidation = false;
 
+    private int connectionPoolSize = 1;
+
+    private PoolDistribution connectionPoolDistribution = PoolDistribution.THREAD_AFFINITY;
+
+    private List<Destination> destinations = new ArrayList<>();
+
     private List<CertificateFingerprint> acceptedCertificateFingerprints = new ArrayList<>();
 
+    private boolean hotStandby = false;
+
+    private Destination standbyDestination;
+
+    private boolean atLeastOnce = false;
+
+    // 0 to size it from the socket buffers
+    private long replayBufferSize = 0;
+
+    private String unixSocketPath;
+
+    /**
+     * How events are spread across the connections of a pool
+     */
+    public enum PoolDistribution {
+        /**
+         * A given thread always uses the same connection, preserving the order of its events
+         */
+        THREAD_AFFINITY,
+        /**
+         * Each event goes to the next connection in turn
+         */
+        ROUND_ROBIN
+    }
+
+    /**
+     * One of several destinations to spread the events across
+     */
+    public static final class Destination {
+        private final String host;
+
+        private final int port;
+
+        private final int weight;
+
+        public Destination( String host, int port, int weight ) {
+            this.host = host;
+            this.port = port;
+            this.weight = weight;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return the port, 0 if the default port of the settings should be used
+         */
+        public int getPort() {
+            return port;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
     static final class CertificateFingerprint {
         final String algorithm;
 
@@ -335,4 +398,304 @@ public class SyslogTcpForwarderSettings
     public void setIgnoreHostnameValidation( boolean ignoreHostnameValidation ) {
         this.ignoreHostnameValidation = ignoreHostnameValidation;
     }
+
+    /**
+     * Get the number of parallel connections opened to the destination
+     *
+     * default: 1
+     *
+     * @return the number of connections
+     */
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    /**
+     * Set the number of parallel connections opened to the destination. Each connection has its own queue, bounded by
+     * maxQueueSize.
+     *
+     * Has no effect if the size is lower than 1.
+     *
+     * @param connectionPoolSize the number of connections
+     */
+    public void setConnectionPoolSize( int connectionPoolSize ) {
+        if ( connectionPoolSize < 1 )
+            return;
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    /**
+     * Get how events are spread across the connections of the pool
+     *
+     * default: THREAD_AFFINITY
+     *
+     * @return the distribution of events
+     */
+    public PoolDistribution getConnectionPoolDistribution() {
+        return connectionPoolDistribution;
+    }
+
+    /**
+     * Set how events are spread across the connections of the pool
+     *
+     * @param connectionPoolDistribution the distribution of events
+     */
+    public void setConnectionPoolDistribution( PoolDistribution connectionPoolDistribution ) {
+        if ( connectionPoolDistribution != null )
+            this.connectionPoolDistribution = connectionPoolDistribution;
+    }
+
+    /**
+     * Set how events are spread across the connections of the pool, from the configured property String value.
+     *
+     * Unknown values are ignored.
+     *
+     * @param rawProperty THREAD_AFFINITY or ROUND_ROBIN (case insensitive)
+     */
+    public void setConnectionPoolDistribution( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        try {
+            setConnectionPoolDistribution( PoolDistribution.valueOf( rawProperty.trim().toUpperCase() ) );
+        }
+        catch ( IllegalArgumentException ignored ) {
+        }
+    }
+
+    /**
+     * Get the destinations to spread the events across. When empty, host and port are used.
+     *
+     * @return the list of destinations
+     */
+    public List<Destination> getDestinations() {
+        return destinations;
+    }
+
+    /**
+     * Add a destination to spread the events across. When at least one destination is added, host and port are
+     * ignored.
+     *
+     * @param host the destination host
+     * @param port the destination port, 0 for the default port
+     * @param weight the relative share of events this destination receives
+     */
+    public void addDestination( String host, int port, int weight ) {
+        destinations.add( new Destination( host, port, weight ) );
+    }
+
+    /**
+     * Set the destinations to spread the events across, from the configured property String value.
+     *
+     * The format is a comma separated list of host[:port][*weight], e.g. collector1:514*2,collector2. IPv6 addresses
+     * must be enclosed in brackets when a port is given. When no port is given, the port setting is used; the default
+     * weight is 1. Invalid entries, such as those with a weight below 1, are ignored.
+     *
+     * @param rawProperty the list of destinations
+     */
+    public void setDestinations( String rawProperty ) {
+        destinations.clear();
+        if ( rawProperty == null )
+            return;
+        for ( String part : rawProperty.split( "," ) ) {
+            String entry = part.trim();
+            if ( entry.isEmpty() )
+                continue;
+            try {
+                int weight = 1;
+                int star = entry.lastIndexOf( '*' );
+                if ( star >= 0 ) {
+                    weight = Integer.parseInt( entry.substring( star + 1 ).trim() );
+                    entry = entry.substring( 0, star ).trim();
+                }
+                destinations.add( parseDestination( entry, weight ) );
+            }
+            catch ( IllegalArgumentException ignored ) {
+            }
+        }
+    }
+
+    private static Destination parseDestination( String entry, int weight ) {
+        String destinationHost = entry;
+        int destinationPort = 0;
+        int colon = entry.lastIndexOf( ':' );
+        if ( entry.startsWith( "[" ) ) {
+            int bracket = entry.indexOf( ']' );
+            if ( bracket < 0 || bracket + 1 < entry.length() && colon != bracket + 1 )
+                throw new IllegalArgumentException( "Invalid destination " + entry );
+            destinationHost = entry.substring( 1, bracket );
+            if ( colon > bracket )
+                destinationPort = parsePort( entry.substring( colon + 1 ) );
+        }
+        else if ( colon >= 0 && colon == entry.indexOf( ':' ) ) {
+            destinationHost = entry.substring( 0, colon );
+            destinationPort = parsePort( entry.substring( colon + 1 ) );
+        }
+        if ( destinationHost.trim().isEmpty() || weight < 1 )
+            throw new IllegalArgumentException( "Invalid destination " + entry );
+        return new Destination( destinationHost.trim(), destinationPort, weight );
+    }
+
+    private static int parsePort( String value ) {
+        int port = Integer.parseInt( value.trim() );
+        if ( port < 1 || port > 65535 )
+            throw new IllegalArgumentException( "Invalid port " + value );
+        return port;
+    }
+
+    /**
+     * Get whether a second connection is kept open and ready, to switch over to it when the connection in use fails
+     *
+     * default: false
+     *
+     * @return true if a standby connection is kept
+     */
+    public boolean isHotStandby() {
+        return hotStandby;
+    }
+
+    /**
+     * Set whether a second connection is kept open and ready, to switch over to it when the connection in use fails.
+     * The standby connection is established (including the TLS handshake) ahead of time, and kept alive with TCP
+     * keepalive.
+     *
+     * @param hotStandby true to keep a standby connection
+     */
+    public void setHotStandby( boolean hotStandby ) {
+        this.hotStandby = hotStandby;
+    }
+
+    /**
+     * Get the destination of the standby connection
+     *
+     * @return the standby destination, or null if the standby connects to host and port
+     */
+    public Destination getStandbyDestination() {
+        return standbyDestination;
+    }
+
+    /**
+     * Set the destination of the standby connection, from the configured property String value.
+     *
+     * The format is host[:port], IPv6 addresses must be enclosed in brackets when a port is given. When no port is
+     * given, the port setting is used. When not set, the standby connects to host and port.
+     *
+     * @param rawProperty the standby destination
+     */
+    public void setStandbyDestination( String rawProperty ) {
+        if ( rawProperty == null || rawProperty.trim().isEmpty() ) {
+            standbyDestination = null;
+            return;
+        }
+        standbyDestination = parseDestination( rawProperty.trim(), 1 );
+    }
+
+    /**
+     * Get whether the recently written events are written again after reconnecting
+     *
+     * default: false
+     *
+     * @return true if delivering at least once
+     */
+    public boolean isAtLeastOnce() {
+        return atLeastOnce;
+    }
+
+    /**
+     * Set whether the recently written events are written again after reconnecting. Syslog over TCP has no
+     * acknowledgements: when a connection breaks, the events still in the socket buffers, or received but not processed
+     * by the destination, are lost. With atLeastOnce, up to replayBufferSize bytes of the last events written are kept
+     * and written again on the next connection, so that nothing is lost, at the cost of duplicates.
+     *
+     * @param atLeastOnce true to deliver at least once
+     */
+    public void setAtLeastOnce( boolean atLeastOnce ) {
+        this.atLeastOnce = atLeastOnce;
+    }
+
+    /**
+     * Get the size of the last events written kept for replay with atLeastOnce
+     *
+     * default: 0, sized from the socket buffers
+     *
+     * @return the size in bytes, 0 if sized from the socket buffers
+     */
+    public long getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    /**
+     * Set the size of the last events written kept for replay with atLeastOnce. When 0, it is sized to cover what the
+     * socket buffers of both ends can hold.
+     *
+     * @param replayBufferSize the size in bytes
+     */
+    public void setReplayBufferSize( long replayBufferSize ) {
+        if ( replayBufferSize >= 0 )
+            this.replayBufferSize = replayBufferSize;
+    }
+
+    /**
+     * Set the size of the last events written kept for replay, from the configured property String value.
+     *
+     * Invalid values are ignored.
+     *
+     * @param rawProperty in format [<integer>|<integer>[KB|MB|GB]]
+     */
+    public void setReplayBufferSize( String rawProperty ) {
+        if ( rawProperty == null )
+            return;
+        setReplayBufferSize( parseSize( rawProperty ) );
+    }
+
+    /**
+     * Get the Unix domain socket of the local agent to send to
+     *
+     * @return the path of the socket file, null to send over TCP
+     */
+    public String getUnixSocketPath() {
+        return unixSocketPath;
+    }
+
+    /**
+     * Send to a local agent over the Unix domain socket with the given path, with octet counting framing, instead of
+     * over TCP. The host, port, destinations, connection pool and TLS settings are then ignored. Needs Java 16 or
+     * later.
+     *
+     * @param unixSocketPath the path of the socket file, null or empty to send over TCP
+     */
+    public void setUnixSocketPath( String unixSocketPath ) {
+        if ( unixSocketPath != null && unixSocketPath.isEmpty() )
+            unixSocketPath = null;
+        this.unixSocketPath = unixSocketPath;
+    }
+
+    /**
+     * Copy these settings for one destination. The copy has no destination list.
+     *
+     * @param destination the destination
+     * @return the settings to use for this destination
+     */
+    SyslogTcpForwarderSettings forDestination( Destination destination ) {
+        SyslogTcpForwarderSettings copy = new SyslogTcpForwarderSettings();
+        copyTo( copy );
+        copy.useTls = useTls;
+        copy.useOctetCounting = useOctetCounting;
+        copy.noServerAuthentication = noServerAuthentication;
+        copy.keystorePath = keystorePath;
+        copy.keystorePassword = keystorePassword;
+        copy.tlsProtocolName = tlsProtocolName;
+        copy.cipherSuite = cipherSuite;
+        copy.soTimeout = soTimeout;
+        copy.ignoreHostnameValidation = ignoreHostnameValidation;
+        copy.acceptedCertificateFingerprints = acceptedCertificateFingerprints;
+        copy.connectionPoolSize = connectionPoolSize;
+        copy.connectionPoolDistribution = connectionPoolDistribution;
+        // the standby of each destination connects to that destination
+        copy.hotStandby = hotStandby;
+        copy.atLeastOnce = atLeastOnce;
+        copy.replayBufferSize = replayBufferSize;
+        copy.host = destination.getHost();
+        copy.port = destination.getPort() != 0 ? destination.getPort() : port;
+        return copy;
+    }
 }
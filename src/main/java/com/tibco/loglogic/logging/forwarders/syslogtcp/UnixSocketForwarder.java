@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogtcp;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Forwards log to a local agent over a Unix domain stream socket, with octet counting framing
+ *
+ * There is no TLS, standby connection or replay: the agent is on the same host. Unix domain sockets need Java 16 or
+ * later, they are reached through reflection so that the forwarder still loads on older versions.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class UnixSocketForwarder
+    extends LogForwarder {
+
+    private final FrameEncoder frameEncoder = new OctetCountingFrameEncoder();
+
+    private SocketChannel channel;
+
+    private BufferedOutputStream out;
+
+    public UnixSocketForwarder( SyslogTcpForwarderSettings settings ) {
+        super( settings );
+    }
+
+    @Override
+    protected SyslogTcpForwarderSettings getSettings() {
+        return (SyslogTcpForwarderSettings) super.getSettings();
+    }
+
+    /**
+     * Connect to the socket file of the agent
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        channel = open( getSettings().getUnixSocketPath() );
+        out = new BufferedOutputStream( Channels.newOutputStream( channel ) );
+    }
+
+    private static SocketChannel open( String path )
+        throws IOException {
+        ProtocolFamily unix;
+        try {
+            unix = StandardProtocolFamily.valueOf( "UNIX" );
+        }
+        catch ( IllegalArgumentException e ) {
+            throw new IOException( "Unix domain sockets need Java 16 or later" );
+        }
+        SocketAddress address;
+        SocketChannel newChannel;
+        try {
+            Method of = Class.forName( "java.net.UnixDomainSocketAddress" ).getMethod( "of", String.class );
+            address = (SocketAddress) of.invoke( null, path );
+            Method open = SocketChannel.class.getMethod( "open", ProtocolFamily.class );
+            newChannel = (SocketChannel) open.invoke( null, unix );
+        }
+        catch ( InvocationTargetException e ) {
+            if ( e.getCause() instanceof IOException ) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException( "Cannot open Unix domain socket " + path, e.getCause() );
+        }
+        catch ( ReflectiveOperationException e ) {
+            throw new IOException( "Unix domain sockets need Java 16 or later", e );
+        }
+        try {
+            newChannel.connect( address );
+        }
+        catch ( IOException e ) {
+            newChannel.close();
+            throw e;
+        }
+        return newChannel;
+    }
+
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        getMetrics().recordBytesSent( frameEncoder.writeFrame( syslogMessage.toString(), out ) );
+    }
+
+    @Override
+    public void flush()
+        throws IOException {
+        out.flush();
+    }
+
+    @Override
+    protected void closeConnection()
+        throws IOException {
+        if ( channel == null ) {
+            return;
+        }
+        try {
+            out.flush();
+        }
+        catch ( IOException ignored ) {
+        }
+        channel.close();
+        channel = null;
+    }
+}
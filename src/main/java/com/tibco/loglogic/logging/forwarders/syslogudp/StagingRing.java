@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogudp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring of datagrams handed over from the forwarding thread to the sender thread, without locking. There must
+ * be a single thread offering and a single thread polling at a time.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class StagingRing {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final byte[][] slots;
+
+    private final int mask;
+
+    // next slot to fill, only written by the offering thread
+    private final AtomicLong tail = new AtomicLong();
+
+    // next slot to poll, only written by the polling thread
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param size the number of datagrams, rounded up to a power of 2
+     */
+    StagingRing( int size ) {
+        int capacity = 1;
+        while ( capacity < size && capacity < MAX_CAPACITY ) {
+            capacity <<= 1;
+        }
+        slots = new byte[capacity][];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a datagram, unless the ring is full
+     *
+     * @param datagram the datagram
+     * @return false if the ring is full
+     */
+    boolean offer( byte[] datagram ) {
+        long t = tail.get();
+        if ( t - head.get() >= slots.length ) {
+            return false;
+        }
+        slots[(int) t & mask] = datagram;
+        // a volatile write, so that the sender sees the datagram before deciding to wait
+        tail.set( t + 1 );
+        return true;
+    }
+
+    /**
+     * Take the oldest datagram
+     *
+     * @return the datagram, null if the ring is empty
+     */
+    byte[] poll() {
+        long h = head.get();
+        if ( h >= tail.get() ) {
+            return null;
+        }
+        int index = (int) h & mask;
+        byte[] datagram = slots[index];
+        slots[index] = null;
+        head.lazySet( h + 1 );
+        return datagram;
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+}
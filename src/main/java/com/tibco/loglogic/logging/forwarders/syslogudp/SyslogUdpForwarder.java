@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogudp;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+
+/**
+ * Forwards log using syslog UDP protocol, one message per datagram, for events whose loss is acceptable
+ *
+ * Forwarding an event only encodes it and stages it in a ring: a sender thread writes the staged datagrams to a
+ * non-blocking channel, as many as are staged each time it wakes up. When the ring is full, the event is dropped rather
+ * than waiting. Messages longer than a datagram are truncated, datagrams being sized from the MTU of the network
+ * interface so that they are not fragmented.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SyslogUdpForwarder
+    extends LogForwarder {
+
+    private static final int DEFAULT_MTU = 1500;
+
+    private static final int IPV4_UDP_HEADERS = 20 + 8;
+
+    private static final int IPV6_UDP_HEADERS = 40 + 8;
+
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    // the sender checks for datagrams staged without flush at this pace
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 100 );
+
+    private static final long SELECT_TIMEOUT_MS = 100;
+
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    private final StagingRing ring;
+
+    private DatagramChannel channel;
+
+    private Selector selector;
+
+    private int datagramSize;
+
+    private volatile Thread sender;
+
+    private volatile boolean senderWaiting;
+
+    private volatile boolean stopping;
+
+    public SyslogUdpForwarder( SyslogUdpForwarderSettings settings ) {
+        super( settings );
+        ring = new StagingRing( settings.getStagingRingSize() );
+    }
+
+    @Override
+    protected SyslogUdpForwarderSettings getSettings() {
+        return (SyslogUdpForwarderSettings) super.getSettings();
+    }
+
+    /**
+     * Open the channel and start the sender thread. Nothing is sent to the destination, UDP having no connection.
+     */
+    @Override
+    protected void initializeConnection()
+        throws IOException {
+        InetSocketAddress destination = new InetSocketAddress( getSettings().getHost(), getSettings().getPort() );
+        if ( destination.isUnresolved() ) {
+            throw new IOException( "Unknown host " + getSettings().getHost() );
+        }
+        final DatagramChannel newChannel = DatagramChannel.open();
+        final Selector newSelector;
+        try {
+            newChannel.configureBlocking( false );
+            newChannel.connect( destination );
+            newSelector = Selector.open();
+            newChannel.register( newSelector, SelectionKey.OP_WRITE );
+        }
+        catch ( IOException e ) {
+            newChannel.close();
+            throw e;
+        }
+        if ( getSettings().getMaxDatagramSize() > 0 ) {
+            datagramSize = Math.min( getSettings().getMaxDatagramSize(), MAX_DATAGRAM_SIZE );
+        }
+        else {
+            datagramSize = datagramSizeFromMtu( newChannel, destination.getAddress() );
+        }
+        channel = newChannel;
+        selector = newSelector;
+        stopping = false;
+        sender = getExecutor().start( "loglmi-udp-sender", new Runnable() {
+            @Override
+            public void run() {
+                sendStaged( newChannel, newSelector );
+            }
+        } );
+    }
+
+    /**
+     * Get the largest datagram sent without fragmentation through the network interface used
+     */
+    private static int datagramSizeFromMtu( DatagramChannel channel, InetAddress destination ) {
+        int headers = destination instanceof Inet6Address ? IPV6_UDP_HEADERS : IPV4_UDP_HEADERS;
+        int mtu = DEFAULT_MTU;
+        try {
+            InetAddress local = ( (InetSocketAddress) channel.getLocalAddress() ).getAddress();
+            NetworkInterface networkInterface = NetworkInterface.getByInetAddress( local );
+            if ( networkInterface != null && networkInterface.getMTU() > headers ) {
+                mtu = networkInterface.getMTU();
+            }
+        }
+        catch ( IOException ignored ) {
+        }
+        return Math.min( mtu - headers, MAX_DATAGRAM_SIZE );
+    }
+
+    /**
+     * Get the size beyond which messages are truncated
+     *
+     * @return the size in bytes, 0 if not connected yet
+     */
+    public int getDatagramSize() {
+        return datagramSize;
+    }
+
+    /**
+     * Stage the event for the sender thread, or drop it if too many are staged already
+     */
+    @Override
+    protected void sendMessage( SyslogMessage syslogMessage )
+        throws IOException {
+        if ( !ring.offer( encode( syslogMessage.toString() ) ) ) {
+            getMetrics().recordDropped();
+            DeliveryListener listener = syslogMessage.getDeliveryListener();
+            if ( listener != null ) {
+                syslogMessage.setDeliveryListener( null );
+                listener.dropped( syslogMessage );
+            }
+        }
+    }
+
+    private byte[] encode( String message ) {
+        byte[] bytes = message.getBytes( StandardCharsets.UTF_8 );
+        if ( bytes.length <= datagramSize ) {
+            return bytes;
+        }
+        // without cutting a character in the middle
+        int length = datagramSize;
+        while ( length > 0 && ( bytes[length] & 0xC0 ) == 0x80 ) {
+            length--;
+        }
+        return Arrays.copyOf( bytes, length );
+    }
+
+    /**
+     * Wake the sender thread up if it waits for datagrams
+     */
+    @Override
+    public void flush() {
+        Thread waiting = sender;
+        if ( senderWaiting && waiting != null ) {
+            LockSupport.unpark( waiting );
+        }
+    }
+
+    private void sendStaged( DatagramChannel senderChannel, Selector senderSelector ) {
+        while ( true ) {
+            byte[] datagram = ring.poll();
+            if ( datagram != null ) {
+                send( datagram, senderChannel, senderSelector );
+            }
+            else if ( stopping ) {
+                return;
+            }
+            else {
+                senderWaiting = true;
+                if ( ring.isEmpty() && !stopping ) {
+                    LockSupport.parkNanos( this, IDLE_PARK_NANOS );
+                }
+                senderWaiting = false;
+            }
+        }
+    }
+
+    private void send( byte[] datagram, DatagramChannel senderChannel, Selector senderSelector ) {
+        ByteBuffer buffer = ByteBuffer.wrap( datagram );
+        try {
+            while ( senderChannel.write( buffer ) == 0 ) {
+                // the socket buffer is full
+                if ( senderSelector.select( SELECT_TIMEOUT_MS ) == 0 && stopping ) {
+                    getMetrics().recordDropped();
+                    return;
+                }
+                senderSelector.selectedKeys().clear();
+            }
+            getMetrics().recordBytesSent( datagram.length );
+        }
+        catch ( IOException e ) {
+            // such as nothing listening on the destination port, reported by ICMP
+            getMetrics().recordDropped();
+        }
+    }
+
+    /**
+     * Send what is staged, stop the sender thread and close the channel
+     */
+    @Override
+    protected void closeConnection()
+        throws IOException {
+        stopping = true;
+        Thread stopped = sender;
+        sender = null;
+        if ( stopped != null ) {
+            LockSupport.unpark( stopped );
+            try {
+                stopped.join( CLOSE_TIMEOUT_MS );
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if ( channel != null ) {
+            selector.close();
+            channel.close();
+            channel = null;
+            selector = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.syslogudp;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+
+/**
+ * Settings for forwarding logs using syslog UDP protocol
+ *
+ * RFC 5424, 5426
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SyslogUdpForwarderSettings
+    extends LogForwarderSettings {
+
+    private static final int DEFAULT_SYSLOG_PORT = 514;
+
+    private static final int DEFAULT_STAGING_RING_SIZE = 4096;
+
+    private String host = "";
+
+    private int port = DEFAULT_SYSLOG_PORT;
+
+    // 0 to size the datagrams from the MTU of the network interface
+    private int maxDatagramSize = 0;
+
+    private int stagingRingSize = DEFAULT_STAGING_RING_SIZE;
+
+    /**
+     * Get the host to send to
+     *
+     * @return the destination host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Set the destination host
+     *
+     * @param host the destination host
+     */
+    public void setHost( String host ) {
+        this.host = host;
+    }
+
+    /**
+     * Get the port to use
+     *
+     * default: 514
+     *
+     * @return the port number to use
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Set the port to use.
+     *
+     * Has no effect if the port number is 0;
+     *
+     * @param port the port to use.
+     */
+    public void setPort( int port ) {
+        if ( port == 0 )
+            return;
+        this.port = port;
+    }
+
+    /**
+     * Get the size beyond which messages are truncated to fit in a datagram
+     *
+     * default: 0 means the MTU of the network interface used, less the IP and UDP headers
+     *
+     * @return the size in bytes
+     */
+    public int getMaxDatagramSize() {
+        return maxDatagramSize;
+    }
+
+    /**
+     * Set the size beyond which messages are truncated to fit in a datagram
+     *
+     * Has no effect if the size is negative.
+     *
+     * @param maxDatagramSize the size in bytes, 0 to use the MTU
+     */
+    public void setMaxDatagramSize( int maxDatagramSize ) {
+        if ( maxDatagramSize < 0 )
+            return;
+        this.maxDatagramSize = maxDatagramSize;
+    }
+
+    /**
+     * Get the number of events waiting for the sender thread beyond which events are dropped
+     *
+     * default: 4096
+     *
+     * @return the number of events
+     */
+    public int getStagingRingSize() {
+        return stagingRingSize;
+    }
+
+    /**
+     * Set the number of events waiting for the sender thread beyond which events are dropped. It is rounded up to a
+     * power of 2.
+     *
+     * Has no effect if the size is lower than 1.
+     *
+     * @param stagingRingSize the number of events
+     */
+    public void setStagingRingSize( int stagingRingSize ) {
+        if ( stagingRingSize < 1 )
+            return;
+        this.stagingRingSize = stagingRingSize;
+    }
+}
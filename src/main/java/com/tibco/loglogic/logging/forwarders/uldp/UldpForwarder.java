@@ -7,8 +7,11 @@ package com.tibco.loglogic.logging.forwarders.uldp;
 
 import java.io.IOException;
 
+import com.tibco.loglogic.logging.forwarders.shared.LineBreakEscaper;
+import com.tibco.loglogic.logging.forwarders.shared.LoadBalancedForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.uldpclient.UldpConnectionSettings;
 import com.tibco.loglogic.logging.uldpclient.UldpSender;
 import com.tibco.loglogic.logging.uldpclient.UldpSyslogMessage;
 
@@ -28,6 +31,26 @@ public class UldpForwarder
         uldpSender = new UldpSender( settings.getConnectionSettings() );
     }
 
+    /**
+     * Create the forwarder matching the settings: a load balancer if destinations are configured, a single connection
+     * otherwise.
+     *
+     * @param settings the settings of the forwarder
+     * @return the forwarder
+     */
+    public static LogForwarder create( UldpForwarderSettings settings ) {
+        if ( !settings.getDestinations().isEmpty() ) {
+            LoadBalancedForwarder loadBalancedForwarder = new LoadBalancedForwarder( settings );
+            for ( int i = 0; i < settings.getDestinations().size(); i++ ) {
+                UldpConnectionSettings destination = settings.getDestinations().get( i );
+                loadBalancedForwarder.addDestination( new UldpForwarder( settings.forDestination( destination ) ),
+                                                      settings.getDestinationWeight( i ) );
+            }
+            return loadBalancedForwarder;
+        }
+        return new UldpForwarder( settings );
+    }
+
     /**
      * open the stream
      *
@@ -49,7 +72,7 @@ public class UldpForwarder
     /**
      * close the stream
      */
-    public void close() {
+    protected void closeConnection() {
         try {
 
             if ( uldpSender != null ) {
@@ -69,8 +92,9 @@ public class UldpForwarder
         throws IOException {
 
         String currentMessage = syslogMessage.toString();
-        currentMessage = currentMessage.replace( "\r", "\\r" ).replace( "\n", "\\n" );
+        currentMessage = LineBreakEscaper.escape( currentMessage );
 
-        uldpSender.sendMessage( new UldpSyslogMessage( syslogMessage.getTimestamp(), localAddress, currentMessage ) );
+        uldpSender.sendMessage( new UldpSyslogMessage( syslogMessage.getTimestamp(), getLocalAddress(), currentMessage ) );
+        getMetrics().recordBytesSent( encodedLength( currentMessage ) );
     }
 }
\ No newline at end of file
@@ -5,6 +5,9 @@
  */
 package com.tibco.loglogic.logging.forwarders.uldp;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
 import com.tibco.loglogic.logging.uldpclient.UldpConnectionSettings;
 
@@ -19,6 +22,10 @@ public class UldpForwarderSettings
 
     private final UldpConnectionSettings uldpConnectionSettings;
 
+    private final List<UldpConnectionSettings> destinations = new ArrayList<>();
+
+    private final List<Integer> destinationWeights = new ArrayList<>();
+
     public UldpForwarderSettings( UldpConnectionSettings uldpConnectionSettings ) {
         this.uldpConnectionSettings = uldpConnectionSettings;
     }
@@ -26,4 +33,41 @@ public class UldpForwarderSettings
     public UldpConnectionSettings getConnectionSettings() {
         return uldpConnectionSettings;
     }
+
+    /**
+     * Add a destination to spread the events across. When at least one destination is added, the connection settings
+     * given to the constructor are ignored.
+     *
+     * @param connectionSettings the connection settings of the destination
+     * @param weight the relative share of events this destination receives
+     */
+    public void addDestination( UldpConnectionSettings connectionSettings, int weight ) {
+        destinations.add( connectionSettings );
+        destinationWeights.add( weight );
+    }
+
+    /**
+     * Get the connection settings of the destinations to spread the events across
+     *
+     * @return the list of destinations
+     */
+    public List<UldpConnectionSettings> getDestinations() {
+        return destinations;
+    }
+
+    int getDestinationWeight( int index ) {
+        return destinationWeights.get( index );
+    }
+
+    /**
+     * Copy these settings for one destination. The copy has no destination list.
+     *
+     * @param connectionSettings the connection settings of the destination
+     * @return the settings to use for this destination
+     */
+    UldpForwarderSettings forDestination( UldpConnectionSettings connectionSettings ) {
+        UldpForwarderSettings copy = new UldpForwarderSettings( connectionSettings );
+        copyTo( copy );
+        return copy;
+    }
 }
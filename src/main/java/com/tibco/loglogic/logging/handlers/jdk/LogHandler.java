@@ -19,8 +19,10 @@ import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.LogRecord;
 
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderRegistry;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
 import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
 
@@ -61,14 +63,9 @@ public abstract class LogHandler
 
         configure();
 
-        forwarder = createForwarder();
-
-        try {
-            forwarder.connect();
-        }
-        catch ( IOException e ) {
-            e.printStackTrace();
-        }
+        // publish is called concurrently by the logging threads; shared with the handlers having the same settings,
+        // events are queued until connected
+        forwarder = ForwarderRegistry.acquire( getClass().getName(), new SingleWriterForwarder( createForwarder() ) );
     }
 
     /**
@@ -83,6 +80,40 @@ public abstract class LogHandler
         if ( manager.getProperty( maxQueueSizeProperty ) != null ) {
             getSettings().setMaxQueueSize( manager.getProperty( maxQueueSizeProperty ) );
         }
+        String priorityLanesProperty = cname + ".priorityLanes";
+        if ( manager.getProperty( priorityLanesProperty ) != null ) {
+            getSettings().setPriorityLanes( Boolean.parseBoolean( manager.getProperty( priorityLanesProperty ) ) );
+        }
+        getSettings().setPriorityLaneWeights( manager.getProperty( cname + ".priorityLaneWeights" ) );
+        getSettings().setPriorityLaneQuotas( manager.getProperty( cname + ".priorityLaneQuotas" ) );
+        String rateLimitProperty = cname + ".rateLimit";
+        String rateLimitBurstProperty = cname + ".rateLimitBurst";
+        String summaryIntervalProperty = cname + ".summaryInterval";
+        String dedupeWindowProperty = cname + ".dedupeWindow";
+        String dedupeTableSizeProperty = cname + ".dedupeTableSize";
+        try {
+            if ( manager.getProperty( rateLimitProperty ) != null ) {
+                getSettings().setRateLimit( Integer.parseInt( manager.getProperty( rateLimitProperty ) ) );
+            }
+            if ( manager.getProperty( rateLimitBurstProperty ) != null ) {
+                getSettings().setRateLimitBurst( Integer.parseInt( manager.getProperty( rateLimitBurstProperty ) ) );
+            }
+            if ( manager.getProperty( summaryIntervalProperty ) != null ) {
+                getSettings().setSummaryInterval( Long.parseLong( manager.getProperty( summaryIntervalProperty ) ) );
+            }
+            if ( manager.getProperty( dedupeWindowProperty ) != null ) {
+                getSettings().setDedupeWindow( Long.parseLong( manager.getProperty( dedupeWindowProperty ) ) );
+            }
+            if ( manager.getProperty( dedupeTableSizeProperty ) != null ) {
+                getSettings().setDedupeTableSize( Integer.parseInt( manager.getProperty( dedupeTableSizeProperty ) ) );
+            }
+        }
+        catch ( NumberFormatException ignored ) {
+        }
+        getSettings().setRateLimitKey( manager.getProperty( cname + ".rateLimitKey" ) );
+        getSettings().setSamplingThreshold( manager.getProperty( cname + ".samplingThreshold" ) );
+        getSettings().setThreadType( manager.getProperty( cname + ".threadType" ) );
+        getSettings().setSourceFallback( manager.getProperty( cname + ".sourceFallback" ) );
         String levelProperty = cname + ".level";
         if ( manager.getProperty( levelProperty ) != null ) {
             setLevel( Level.parse( manager.getProperty( levelProperty ) ) );
@@ -149,7 +180,7 @@ public abstract class LogHandler
 
         if ( forwarder != null ) {
             try {
-                forwarder.close();
+                ForwarderRegistry.release( forwarder );
                 forwarder = null;
             }
             catch ( Exception e ) {
@@ -205,6 +236,10 @@ public abstract class LogHandler
 
         syslogMessage.setMessage( formatted );
 
+        syslogMessage.setLoggerName( record.getLoggerName() );
+
+        syslogMessage.setMessageTemplate( record.getMessage() );
+
         forwarder.forwardEvent( syslogMessage, true );
     }
 
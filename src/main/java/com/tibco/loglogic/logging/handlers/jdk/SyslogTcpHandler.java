@@ -33,7 +33,7 @@ public class SyslogTcpHandler
 
     @Override
     protected LogForwarder createForwarder() {
-        return new SyslogTcpForwarder( getSettings() );
+        return SyslogTcpForwarder.create( getSettings() );
     }
 
     /**
@@ -99,6 +99,41 @@ public class SyslogTcpHandler
         if (manager.getProperty(property) != null) {
             setAcceptedCertificateFingerprints( manager.getProperty( property ));
         }
+        property = cname + ".connectionPoolSize";
+        if (manager.getProperty(property) != null) {
+            setConnectionPoolSize(Integer.parseInt(manager.getProperty(property)));
+        }
+        property = cname + ".connectionPoolDistribution";
+        if (manager.getProperty(property) != null) {
+            setConnectionPoolDistribution(manager.getProperty(property));
+        }
+        property = cname + ".destinations";
+        if (manager.getProperty(property) != null) {
+            setDestinations(manager.getProperty(property));
+        }
+        property = cname + ".balancingStrategy";
+        if (manager.getProperty(property) != null) {
+            setBalancingStrategy(manager.getProperty(property));
+        }
+        property = cname + ".ejectAfterFailures";
+        if (manager.getProperty(property) != null) {
+            setEjectAfterFailures(Integer.parseInt(manager.getProperty(property)));
+        }
+        property = cname + ".healthCheckInterval";
+        if (manager.getProperty(property) != null) {
+            setHealthCheckInterval(Long.parseLong(manager.getProperty(property)));
+        }
+        property = cname + ".hotStandby";
+        if (manager.getProperty(property) != null) {
+            setHotStandby(Boolean.parseBoolean(manager.getProperty(property)));
+        }
+        setStandbyDestination(manager.getProperty(cname + ".standbyDestination"));
+        property = cname + ".atLeastOnce";
+        if (manager.getProperty(property) != null) {
+            setAtLeastOnce(Boolean.parseBoolean(manager.getProperty(property)));
+        }
+        setReplayBufferSize(manager.getProperty(cname + ".replayBufferSize"));
+        setUnixSocketPath(manager.getProperty(cname + ".unixSocketPath"));
     }
 
     private void setHost( String host ) {
@@ -155,4 +190,48 @@ public class SyslogTcpHandler
         }
     }
 
+    public void setConnectionPoolSize( int connectionPoolSize ) {
+        getSettings().setConnectionPoolSize( connectionPoolSize );
+    }
+
+    public void setConnectionPoolDistribution( String connectionPoolDistribution ) {
+        getSettings().setConnectionPoolDistribution( connectionPoolDistribution );
+    }
+
+    public void setDestinations( String destinations ) {
+        getSettings().setDestinations( destinations );
+    }
+
+    public void setBalancingStrategy( String balancingStrategy ) {
+        getSettings().setBalancingStrategy( balancingStrategy );
+    }
+
+    public void setEjectAfterFailures( int ejectAfterFailures ) {
+        getSettings().setEjectAfterFailures( ejectAfterFailures );
+    }
+
+    public void setHealthCheckInterval( long healthCheckInterval ) {
+        getSettings().setHealthCheckInterval( healthCheckInterval );
+    }
+
+    public void setHotStandby( boolean hotStandby ) {
+        getSettings().setHotStandby( hotStandby );
+    }
+
+    public void setStandbyDestination( String standbyDestination ) {
+        getSettings().setStandbyDestination( standbyDestination );
+    }
+
+    public void setAtLeastOnce( boolean atLeastOnce ) {
+        getSettings().setAtLeastOnce( atLeastOnce );
+    }
+
+    public void setReplayBufferSize( String replayBufferSize ) {
+        getSettings().setReplayBufferSize( replayBufferSize );
+    }
+
+    public void setUnixSocketPath( String unixSocketPath ) {
+        getSettings().setUnixSocketPath( unixSocketPath );
+    }
+
 }
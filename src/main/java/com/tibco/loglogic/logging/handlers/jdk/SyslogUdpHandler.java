@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.handlers.jdk;
+
+import java.util.logging.LogManager;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarderSettings;
+
+/**
+ * java.util.logging Handler for sending logs using Syslog/UDP, where losing events is acceptable
+ *
+ * @author Tibco LogLogic
+ *
+ */
+public class SyslogUdpHandler
+    extends LogHandler {
+
+    @Override
+    protected LogForwarderSettings createSettings() {
+        return new SyslogUdpForwarderSettings();
+    }
+
+    @Override
+    protected SyslogUdpForwarderSettings getSettings() {
+        return (SyslogUdpForwarderSettings) super.getSettings();
+    }
+
+    @Override
+    protected LogForwarder createForwarder() {
+        return new SyslogUdpForwarder( getSettings() );
+    }
+
+    /**
+     * Read in the handler properties from the config file
+     */
+    @Override
+    protected void configure() {
+        super.configure();
+
+        LogManager manager = LogManager.getLogManager();
+        String cname = getClass().getName();
+
+        String property = cname + ".host";
+        if (manager.getProperty(property) == null) {
+            throw new RuntimeException("Cannot find logging property: " + property);
+        }
+        setHost(manager.getProperty(property));
+        property = cname + ".port";
+        if (manager.getProperty(property) != null) {
+            setPort(Integer.parseInt(manager.getProperty(property)));
+        }
+        property = cname + ".maxDatagramSize";
+        if (manager.getProperty(property) != null) {
+            setMaxDatagramSize(Integer.parseInt(manager.getProperty(property)));
+        }
+        property = cname + ".stagingRingSize";
+        if (manager.getProperty(property) != null) {
+            setStagingRingSize(Integer.parseInt(manager.getProperty(property)));
+        }
+    }
+
+    private void setHost( String host ) {
+        if ( host != null )
+            getSettings().setHost( host );
+    }
+
+    private void setPort( int port ) {
+        if ( port > 0 )
+            getSettings().setPort( port );
+    }
+
+    public void setMaxDatagramSize( int maxDatagramSize ) {
+        getSettings().setMaxDatagramSize( maxDatagramSize );
+    }
+
+    public void setStagingRingSize( int stagingRingSize ) {
+        getSettings().setStagingRingSize( stagingRingSize );
+    }
+
+}
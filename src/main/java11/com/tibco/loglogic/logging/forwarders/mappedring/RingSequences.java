@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.mappedring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes the sequences of a mapped ring, ordered with the records they cover, Java 11 version.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class RingSequences {
+
+    // the byte order of ByteBuffer.getLong, used for the other fields of the ring
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle( long[].class, ByteOrder.BIG_ENDIAN );
+
+    private RingSequences() {
+    }
+
+    /**
+     * Read a sequence, before reading the records it covers
+     *
+     * @param buffer the mapped ring
+     * @param index the offset of the sequence, 8 bytes aligned
+     * @return the sequence
+     */
+    static long getAcquire( ByteBuffer buffer, int index ) {
+        return (long) LONGS.getAcquire( buffer, index );
+    }
+
+    /**
+     * Write a sequence, after writing the records it covers
+     *
+     * @param buffer the mapped ring
+     * @param index the offset of the sequence, 8 bytes aligned
+     * @param sequence the sequence
+     */
+    static void setRelease( ByteBuffer buffer, int index, long sequence ) {
+        LONGS.setRelease( buffer, index, sequence );
+    }
+}
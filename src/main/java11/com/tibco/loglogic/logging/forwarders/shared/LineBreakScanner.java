@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+/**
+ * Finds the first line break of a message, Java 11 version.
+ *
+ * With compact strings, String.indexOf scans the Latin-1 bytes of the message with an intrinsic, much faster than
+ * going through charAt for each character.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class LineBreakScanner {
+
+    private LineBreakScanner() {
+    }
+
+    /**
+     * Get the index of the first CR or LF of a message
+     *
+     * @param message the message
+     * @return the index of the first line break, or -1 if there is none
+     */
+    static int indexOf( String message ) {
+        int lf = message.indexOf( '\n' );
+        int cr = message.indexOf( '\r' );
+        if ( lf < 0 || cr < 0 ) {
+            return Math.max( lf, cr );
+        }
+        return Math.min( lf, cr );
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders.shared;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats the timestamps of the syslog headers, Java 11 version.
+ *
+ * DateTimeFormatter is immutable and thread-safe: a single instance is shared by all threads, instead of one
+ * SimpleDateFormat per thread, which adds up with virtual threads. The output is the same as the Java 7 version.
+ *
+ * @author Tibco LogLogic
+ *
+ */
+final class TimestampFormatter {
+
+    static final String PATTERN = "YYYY-MM-dd'T'HH:mm:ss.SSS'000'ZZ";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern( PATTERN );
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * Format a timestamp in the local time zone
+     *
+     * @param timestamp the timestamp (ms)
+     * @return the formatted timestamp
+     */
+    static String format( long timestamp ) {
+        return FORMATTER.format( Instant.ofEpochMilli( timestamp ).atZone( ZoneId.systemDefault() ) );
+    }
+}
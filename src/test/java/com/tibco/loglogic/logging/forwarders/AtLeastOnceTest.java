@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for writing the recent events again after reconnecting
+ */
+public class AtLeastOnceTest {
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+    }
+
+    private static boolean received( MiniSyslogTcpMultiServer server, String text ) {
+        synchronized ( server.getConnections() ) {
+            for ( List<String> lines : server.getConnections() ) {
+                synchronized ( lines ) {
+                    for ( String line : lines ) {
+                        if ( line.endsWith( text ) ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testEventsWrittenBeforeTheBreakAreReplayed()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        int port = server.getPort();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        settings.setAtLeastOnce( true );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        forward( forwarder, "before restart" );
+        server.awaitMessages( 1 );
+        server.shutdown();
+
+        // written to the broken connection until the failure shows
+        int sent = 0;
+        while ( sent < 100 && forwarder.isConnected() ) {
+            forward( forwarder, "during restart #" + sent++ );
+            Thread.sleep( 20 );
+        }
+        assertTrue( !forwarder.isConnected() );
+
+        MiniSyslogTcpMultiServer restarted = new MiniSyslogTcpMultiServer( port );
+        for ( int i = 0; i < 100 && !forwarder.isConnected(); i++ ) {
+            Thread.sleep( 100 );
+        }
+        forward( forwarder, "after restart" );
+        for ( int i = 0; i < 50 && !received( restarted, "after restart" ); i++ ) {
+            Thread.sleep( 100 );
+        }
+        forwarder.close();
+        restarted.shutdown();
+
+        for ( int i = 0; i < sent; i++ ) {
+            assertTrue( "lost #" + i, received( restarted, "during restart #" + i ) );
+        }
+        assertTrue( received( restarted, "after restart" ) );
+        assertTrue( forwarder.getMetrics().getEventsReplayed() > 0 );
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for connecting in the background, the events logged meanwhile being sent once connected
+ */
+public class BackgroundConnectTest {
+
+    private static int freePort()
+        throws Exception {
+        ServerSocket socket = new ServerSocket( 0 );
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+    }
+
+    private static void awaitConnected( LogForwarder forwarder )
+        throws InterruptedException {
+        for ( int i = 0; i < 100 && !forwarder.isConnected(); i++ ) {
+            Thread.sleep( 100 );
+        }
+    }
+
+    @Test
+    public void testEventsLoggedBeforeTheServerStartsAreSent()
+        throws Exception {
+        int port = freePort();
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        long start = System.nanoTime();
+        forwarder.connectInBackground();
+        for ( int i = 0; i < 5; i++ ) {
+            forward( forwarder, "early message #" + i );
+        }
+        // nothing waited for the destination
+        assertTrue( System.nanoTime() - start < 1000000000L );
+        assertFalse( forwarder.isConnected() );
+        assertEquals( 5, forwarder.getQueueDepth() );
+
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer( port );
+        awaitConnected( forwarder );
+        assertTrue( forwarder.isConnected() );
+        forward( forwarder, "late message" );
+        server.awaitMessages( 6 );
+        forwarder.close();
+        server.shutdown();
+
+        assertEquals( 6, server.getMessageCount() );
+        List<String> lines = server.getConnections().get( 0 );
+        for ( int i = 0; i < 5; i++ ) {
+            assertTrue( lines.get( i ).endsWith( "early message #" + i ) );
+        }
+        assertTrue( lines.get( 5 ).endsWith( "late message" ) );
+        assertEquals( 0, forwarder.getMetrics().getEventsDropped() );
+    }
+
+    @Test
+    public void testReconnectsAfterTheServerRestarts()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        int port = server.getPort();
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+
+        LogForwarder forwarder = new SingleWriterForwarder( SyslogTcpForwarder.create( settings ) );
+        forwarder.connectInBackground();
+        awaitConnected( forwarder );
+        forward( forwarder, "first message" );
+        server.awaitMessages( 1 );
+        server.shutdown();
+        assertEquals( 1, server.getMessageCount() );
+
+        // the broken connection is noticed after a few writes, the events are kept for the next connection
+        MiniSyslogTcpMultiServer restarted = null;
+        for ( int i = 0; i < 50 && restarted == null; i++ ) {
+            forward( forwarder, "message #" + i );
+            Thread.sleep( 50 );
+            if ( !forwarder.isConnected() ) {
+                restarted = new MiniSyslogTcpMultiServer( port );
+            }
+        }
+        assertTrue( restarted != null );
+        awaitConnected( forwarder );
+        forward( forwarder, "last message" );
+        for ( int i = 0; i < 50 && !lastReceived( restarted ); i++ ) {
+            Thread.sleep( 100 );
+        }
+        forwarder.close();
+        restarted.shutdown();
+
+        assertTrue( lastReceived( restarted ) );
+    }
+
+    @Test
+    public void testCloseIsNotUndoneByTheConnector()
+        throws Exception {
+        GatedForwarder forwarder = new GatedForwarder();
+        forwarder.connectInBackground();
+        forwarder.opening.await();
+        // closed while the connector is opening the connection
+        forwarder.close();
+        forwarder.release.countDown();
+        for ( int i = 0; i < 100 && forwarder.isConnecting(); i++ ) {
+            Thread.sleep( 10 );
+        }
+        assertFalse( forwarder.isConnecting() );
+        assertFalse( forwarder.isConnected() );
+        assertFalse( forwarder.open );
+
+        // a connection lost after the close does not reconnect
+        forwarder.connectionLostAfterClose();
+        assertFalse( forwarder.isConnecting() );
+    }
+
+    private static final class GatedForwarder
+        extends LogForwarder {
+
+        final CountDownLatch opening = new CountDownLatch( 1 );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        volatile boolean open;
+
+        GatedForwarder() {
+            super( new SyslogTcpForwarderSettings() );
+        }
+
+        void connectionLostAfterClose() {
+            reconnectInBackground();
+        }
+
+        @Override
+        protected void initializeConnection() {
+            opening.countDown();
+            // not interrupted by the close, as a connection attempt already past its blocking calls
+            boolean interrupted = false;
+            while ( release.getCount() > 0 ) {
+                try {
+                    release.await();
+                }
+                catch ( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+            open = true;
+        }
+
+        @Override
+        protected void closeConnection() {
+            open = false;
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage ) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    private static boolean lastReceived( MiniSyslogTcpMultiServer server ) {
+        synchronized ( server.getConnections() ) {
+            for ( List<String> lines : server.getConnections() ) {
+                synchronized ( lines ) {
+                    for ( String line : lines ) {
+                        if ( line.endsWith( "last message" ) ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the notification of the outcome of the events
+ */
+public class DeliveryNotificationTest {
+
+    private static final class CountingListener
+        implements DeliveryListener {
+
+        int delivered;
+
+        int dropped;
+
+        @Override
+        public void delivered( SyslogMessage syslogMessage ) {
+            delivered++;
+        }
+
+        @Override
+        public void dropped( SyslogMessage syslogMessage ) {
+            dropped++;
+        }
+    }
+
+    private static SyslogMessage message( String text, DeliveryListener listener ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        syslogMessage.setDeliveryListener( listener );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testDeliveredOnceFlushed()
+        throws Exception {
+        BufferingForwarder forwarder = new BufferingForwarder();
+        forwarder.connect();
+        CountingListener listener = new CountingListener();
+
+        forwarder.forwardEvent( message( "first", listener ), false );
+        forwarder.forwardEvent( message( "second", listener ), false );
+        // written, but still in the buffers of the connection
+        assertEquals( 0, listener.delivered );
+
+        forwarder.forwardEvent( message( "third", listener ), true );
+        assertEquals( 3, listener.delivered );
+        assertEquals( 0, listener.dropped );
+        forwarder.close();
+    }
+
+    @Test
+    public void testDroppedWhenTheFlushFails()
+        throws Exception {
+        BufferingForwarder forwarder = new BufferingForwarder();
+        forwarder.connect();
+        CountingListener listener = new CountingListener();
+
+        forwarder.forwardEvent( message( "first", listener ), false );
+        forwarder.failFlush = true;
+        forwarder.forwardEvent( message( "second", listener ), true );
+        assertEquals( 0, listener.delivered );
+        assertEquals( 2, listener.dropped );
+        forwarder.close();
+    }
+
+    private static final class BufferingForwarder
+        extends LogForwarder {
+
+        boolean failFlush;
+
+        BufferingForwarder() {
+            super( new SyslogTcpForwarderSettings() );
+        }
+
+        @Override
+        protected void initializeConnection() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage ) {
+        }
+
+        @Override
+        public void flush()
+            throws IOException {
+            if ( failFlush ) {
+                throw new IOException( "connection reset" );
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.DuplicateSuppressionStage;
+import com.tibco.loglogic.logging.forwarders.shared.EventSink;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the collapsing of repeated messages
+ */
+public class DuplicateSuppressionStageTest {
+
+    private static final class CollectingSink
+        implements EventSink {
+
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void forward( SyslogMessage syslogMessage, boolean flush ) {
+            messages.add( syslogMessage.getMessage() );
+        }
+    }
+
+    private static SyslogMessage event( String message, Severity severity ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setSeverity( severity );
+        syslogMessage.setMessage( message );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testRepeatsAreCollapsed()
+        throws Exception {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setDedupeWindow( 200 );
+        settings.setDedupeTableSize( 4 );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        DuplicateSuppressionStage stage = new DuplicateSuppressionStage( settings, forwarder.getMetrics() );
+        CollectingSink sink = new CollectingSink();
+
+        for ( int i = 0; i < 1000; i++ ) {
+            stage.process( event( "connection refused", Severity.ERROR ), false, sink );
+            stage.process( event( "connection refused", Severity.WARNING ), false, sink );
+        }
+        stage.process( event( "something else", Severity.ERROR ), false, sink );
+        assertEquals( 3, sink.messages.size() );
+        assertEquals( 1998, forwarder.getMetrics().getEventsSuppressed() );
+
+        Thread.sleep( 250 );
+        sink.messages.clear();
+        for ( int i = 0; i < 4; i++ ) {
+            stage.process( event( "after the window", Severity.ERROR ), false, sink );
+        }
+        // the table is swept along with the following events
+        assertEquals( 3, sink.messages.size() );
+        assertEquals( 1, Collections.frequency( sink.messages, "after the window" ) );
+        assertEquals( 2, Collections.frequency( sink.messages, "message repeated 999 times: [connection refused]" ) );
+    }
+
+    @Test
+    public void testDistinctMessagesGoThrough() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setDedupeWindow( 60000 );
+        settings.setDedupeTableSize( 8 );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        DuplicateSuppressionStage stage = new DuplicateSuppressionStage( settings, forwarder.getMetrics() );
+        CollectingSink sink = new CollectingSink();
+
+        for ( int i = 0; i < 100; i++ ) {
+            stage.process( event( "distinct message #" + i, Severity.INFORMATIONAL ), false, sink );
+        }
+        assertEquals( 100, sink.messages.size() );
+        assertEquals( 0, forwarder.getMetrics().getEventsSuppressed() );
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.DeliveryListener;
+import com.tibco.loglogic.logging.forwarders.shared.FanOutForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.FanOutForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for delivering the same events to several destinations
+ */
+public class FanOutForwarderTest {
+
+    private static SyslogTcpForwarder createTcpForwarder( int port ) {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        settings.setAppName( "ignoredAppName" );
+        return new SyslogTcpForwarder( settings );
+    }
+
+    private static int deadPort()
+        throws Exception {
+        ServerSocket closedSocket = new ServerSocket( 0 );
+        int deadPort = closedSocket.getLocalPort();
+        closedSocket.close();
+        return deadPort;
+    }
+
+    private static final class CountingListener
+        implements DeliveryListener {
+
+        final AtomicInteger delivered = new AtomicInteger();
+
+        final AtomicInteger dropped = new AtomicInteger();
+
+        @Override
+        public void delivered( SyslogMessage syslogMessage ) {
+            delivered.incrementAndGet();
+        }
+
+        @Override
+        public void dropped( SyslogMessage syslogMessage ) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Destination whose writes block until released, as on a full socket buffer
+     */
+    private static final class StalledForwarder
+        extends LogForwarder {
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        StalledForwarder() {
+            super( new SyslogTcpForwarderSettings() );
+        }
+
+        @Override
+        protected void initializeConnection() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage ) {
+            try {
+                release.await();
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    private static SyslogMessage message( String text, DeliveryListener listener ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        syslogMessage.setDeliveryListener( listener );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testSameEventsToAllDestinations()
+        throws Exception {
+        MiniSyslogTcpMultiServer server1 = new MiniSyslogTcpMultiServer();
+        MiniSyslogTcpMultiServer server2 = new MiniSyslogTcpMultiServer();
+        ServerSocket closedSocket = new ServerSocket( 0 );
+        int deadPort = closedSocket.getLocalPort();
+        closedSocket.close();
+
+        FanOutForwarderSettings settings = new FanOutForwarderSettings();
+        settings.setSource( "MyMachineForFanOut" );
+        settings.setAppName( "MyAppNameForFanOut" );
+        FanOutForwarder forwarder = new FanOutForwarder( settings );
+        forwarder.addForwarder( createTcpForwarder( server1.getPort() ) );
+        forwarder.addForwarder( createTcpForwarder( deadPort ) );
+        forwarder.addForwarder( createTcpForwarder( server2.getPort() ) );
+        forwarder.connect();
+
+        for ( int i = 0; i < 10; i++ ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( "fan-out message #" + i );
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        server1.awaitMessages( 10 );
+        server2.awaitMessages( 10 );
+        forwarder.close();
+
+        assertEquals( 10, server1.getMessageCount() );
+        assertEquals( 10, server2.getMessageCount() );
+        for ( int i = 0; i < 10; i++ ) {
+            String msg1 = server1.getConnections().get( 0 ).get( i );
+            assertEquals( msg1, server2.getConnections().get( 0 ).get( i ) );
+            assertTrue( msg1.contains( "MyMachineForFanOut MyAppNameForFanOut" ) );
+            assertTrue( msg1.endsWith( "#" + i ) );
+        }
+    }
+
+    @Test
+    public void testStalledDestinationDoesNotHoldUpTheOthers()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        StalledForwarder stalled = new StalledForwarder();
+        FanOutForwarder forwarder = new FanOutForwarder( new FanOutForwarderSettings() );
+        forwarder.addForwarder( stalled );
+        forwarder.addForwarder( createTcpForwarder( server.getPort() ) );
+        forwarder.connect();
+
+        long start = System.nanoTime();
+        for ( int i = 0; i < 10; i++ ) {
+            forwarder.forwardEvent( message( "message #" + i, null ), true );
+        }
+        // the logging thread did not wait for the stalled destination
+        assertTrue( System.nanoTime() - start < 1000000000L );
+        server.awaitMessages( 10 );
+        assertEquals( 10, server.getMessageCount() );
+
+        stalled.release.countDown();
+        forwarder.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void testDeliveredOnceByAnyDestination()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        FanOutForwarder forwarder = new FanOutForwarder( new FanOutForwarderSettings() );
+        // the event waits in the queue of the first destination, and is dropped from it on close
+        forwarder.addForwarder( createTcpForwarder( deadPort() ) );
+        forwarder.addForwarder( createTcpForwarder( server.getPort() ) );
+        forwarder.connect();
+
+        CountingListener listener = new CountingListener();
+        forwarder.forwardEvent( message( "to both destinations", listener ), true );
+        server.awaitMessages( 1 );
+        forwarder.close();
+
+        assertEquals( 1, listener.delivered.get() );
+        assertEquals( 0, listener.dropped.get() );
+    }
+
+    @Test
+    public void testDroppedOnceByAllDestinations()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        SyslogTcpForwarder closedDestination = createTcpForwarder( server.getPort() );
+        FanOutForwarder forwarder = new FanOutForwarder( new FanOutForwarderSettings() );
+        forwarder.addForwarder( closedDestination );
+        forwarder.addForwarder( createTcpForwarder( deadPort() ) );
+        forwarder.addForwarder( createTcpForwarder( deadPort() ) );
+        forwarder.connect();
+        // drops the events from now on
+        closedDestination.close();
+        server.shutdown();
+
+        CountingListener listener = new CountingListener();
+        forwarder.forwardEvent( message( "to no destination", listener ), true );
+        // still queued by the other destinations
+        assertEquals( 0, listener.dropped.get() );
+        forwarder.close();
+
+        assertEquals( 0, listener.delivered.get() );
+        assertEquals( 1, listener.dropped.get() );
+    }
+}
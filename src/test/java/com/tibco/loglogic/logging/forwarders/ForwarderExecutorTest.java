@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderExecutor;
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderExecutor.ThreadType;
+import com.tibco.loglogic.logging.forwarders.shared.VirtualThreadExecutor;
+
+/**
+ * Tests for the executors running the background work of the forwarders
+ */
+public class ForwarderExecutorTest {
+
+    private static void assertRunsTask( ForwarderExecutor executor )
+        throws Exception {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        Thread thread = executor.start( "executor-test", new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        } );
+        assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( "executor-test", thread.getName() );
+        assertTrue( thread.isDaemon() );
+    }
+
+    @Test
+    public void testPlatformThreads()
+        throws Exception {
+        ForwarderExecutor executor = ForwarderExecutor.forType( ThreadType.PLATFORM );
+        assertFalse( executor.isVirtual() );
+        assertRunsTask( executor );
+    }
+
+    @Test
+    public void testAutoFallsBackWhenUnsupported()
+        throws Exception {
+        ForwarderExecutor executor = ForwarderExecutor.forType( ThreadType.AUTO );
+        assertEquals( VirtualThreadExecutor.isSupported(), executor.isVirtual() );
+        assertEquals( executor, ForwarderExecutor.forType( ThreadType.VIRTUAL ) );
+        assertRunsTask( executor );
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderMetrics;
+import com.tibco.loglogic.logging.forwarders.shared.LatencyHistogram;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the runtime metrics of the forwarders
+ */
+public class ForwarderMetricsTest {
+
+    private static SyslogMessage message( String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testSentEventsAndBytes()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( server.getPort() );
+        settings.setConnectionPoolSize( 2 );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        long expectedBytes = 0;
+        for ( int i = 0; i < 10; i++ ) {
+            SyslogMessage syslogMessage = message( "metrics message #" + i );
+            forwarder.forwardEvent( syslogMessage, true );
+            expectedBytes += syslogMessage.toString().length() + 1;
+        }
+        server.awaitMessages( 10 );
+        forwarder.close();
+
+        ForwarderMetrics metrics = forwarder.getMetrics();
+        assertEquals( 10, metrics.getEventsSent() );
+        assertEquals( expectedBytes, metrics.getBytesSent() );
+        assertEquals( 0, metrics.getEventsDropped() );
+        assertEquals( 10, metrics.getFlushCount() );
+        assertTrue( metrics.getSendLatencyMaxMicros() >= metrics.getSendLatencyMeanMicros() );
+    }
+
+    @Test
+    public void testEvictedEventsAreCounted()
+        throws Exception {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setMaxQueueSize( 100 );
+        QueueingForwarder forwarder = new QueueingForwarder( settings );
+
+        for ( int i = 0; i < 10; i++ ) {
+            forwarder.enqueue( message( "01234567890123456789" ) );
+        }
+        // each event is 20 bytes in raw mode
+        assertEquals( 5, forwarder.getQueueDepth() );
+        assertEquals( 100, forwarder.getQueueSizeInBytes() );
+        assertEquals( 5, forwarder.getMetrics().getEventsDropped() );
+        assertEquals( 5, forwarder.getMetrics().getQueueDepth() );
+
+        // larger than the whole queue
+        forwarder.enqueue( message( new String( new char[200] ).replace( '\0', 'x' ) ) );
+        assertEquals( 6, forwarder.getMetrics().getEventsDropped() );
+        assertEquals( 100, forwarder.getQueueSizeInBytes() );
+    }
+
+    @Test
+    public void testJmxRegistration()
+        throws Exception {
+        LogForwarder forwarder = SyslogTcpForwarder.create( new SyslogTcpForwarderSettings() );
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName( "com.tibco.loglogic.logging:type=LogForwarder,name=\"metricsTest\"" );
+
+        assertTrue( forwarder.getMetrics().register( "metricsTest" ) );
+        assertTrue( mBeanServer.isRegistered( objectName ) );
+        assertEquals( 0L, mBeanServer.getAttribute( objectName, "EventsDropped" ) );
+
+        forwarder.getMetrics().unregister();
+        assertFalse( mBeanServer.isRegistered( objectName ) );
+    }
+
+    @Test
+    public void testReplacedRegistrationIsNotRemovedByThePreviousOwner()
+        throws Exception {
+        LogForwarder previous = SyslogTcpForwarder.create( new SyslogTcpForwarderSettings() );
+        LogForwarder replacement = SyslogTcpForwarder.create( new SyslogTcpForwarderSettings() );
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName( "com.tibco.loglogic.logging:type=LogForwarder,name=\"reconfigured\"" );
+
+        // as on a reconfiguration, the new appender starts before the old one stops
+        assertTrue( previous.getMetrics().register( "reconfigured" ) );
+        assertTrue( replacement.getMetrics().register( "reconfigured" ) );
+        replacement.getMetrics().recordDropped();
+        assertFalse( previous.getMetrics().isRegistered() );
+        assertTrue( replacement.getMetrics().isRegistered() );
+        previous.getMetrics().unregister();
+        assertTrue( mBeanServer.isRegistered( objectName ) );
+        assertEquals( 1L, mBeanServer.getAttribute( objectName, "EventsDropped" ) );
+
+        replacement.getMetrics().unregister();
+        assertFalse( mBeanServer.isRegistered( objectName ) );
+        assertFalse( replacement.getMetrics().isRegistered() );
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 0; i < 99; i++ ) {
+            histogram.record( 1000 );
+        }
+        histogram.record( 1000000 );
+        assertEquals( 100, histogram.getCount() );
+        assertEquals( 1000000, histogram.getMaxNanos() );
+        // within a factor of two
+        assertEquals( 1023, histogram.getPercentileNanos( 50 ) );
+        assertEquals( 1023, histogram.getPercentileNanos( 99 ) );
+        assertEquals( 1000000, histogram.getPercentileNanos( 100 ) );
+    }
+
+    private static final class QueueingForwarder
+        extends LogForwarder {
+
+        QueueingForwarder( SyslogTcpForwarderSettings settings ) {
+            super( settings );
+        }
+
+        @Override
+        protected void enqueue( SyslogMessage event ) {
+            event.setRawMode( true );
+            super.enqueue( event );
+        }
+
+        @Override
+        protected void initializeConnection() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage ) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderRegistry;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for sharing forwarders between appenders
+ */
+public class ForwarderRegistryTest {
+
+    private static LogForwarder forwarder( int port, String appName ) {
+        return forwarder( port, appName, null );
+    }
+
+    private static LogForwarder forwarder( int port, String appName, String keystorePassword ) {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        settings.setAppName( appName );
+        settings.setKeystorePassword( keystorePassword );
+        return SyslogTcpForwarder.create( settings );
+    }
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+    }
+
+    @Test
+    public void testSameSettingsShareOneConnection()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder first = ForwarderRegistry.acquire( "first", forwarder( server.getPort(), "app" ) );
+        LogForwarder second = ForwarderRegistry.acquire( "second", forwarder( server.getPort(), "app" ) );
+        assertSame( first, second );
+        assertEquals( 2, ForwarderRegistry.getReferences( first ) );
+
+        forward( first, "from the first appender" );
+        forward( second, "from the second appender" );
+        server.awaitMessages( 2 );
+        assertEquals( 1, server.getConnections().size() );
+
+        // still used by the second appender
+        ForwarderRegistry.release( first );
+        assertEquals( 1, ForwarderRegistry.getReferences( second ) );
+        forward( second, "after the first appender is closed" );
+        server.awaitMessages( 3 );
+
+        ForwarderRegistry.release( second );
+        assertEquals( 0, ForwarderRegistry.getReferences( second ) );
+        assertFalse( second.isConnected() );
+        server.shutdown();
+
+        assertEquals( 3, server.getConnections().get( 0 ).size() );
+    }
+
+    @Test
+    public void testDifferentSettingsGetTheirOwnForwarder()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder first = ForwarderRegistry.acquire( "first", forwarder( server.getPort(), "app" ) );
+        LogForwarder second = ForwarderRegistry.acquire( "second", forwarder( server.getPort(), "other app" ) );
+        assertNotSame( first, second );
+
+        forward( first, "from the first appender" );
+        forward( second, "from the second appender" );
+        server.awaitMessages( 2 );
+        ForwarderRegistry.release( first );
+        ForwarderRegistry.release( second );
+        server.shutdown();
+
+        assertEquals( 2, server.getConnections().size() );
+    }
+
+    @Test
+    public void testReleasedForwarderIsNotReused()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder first = ForwarderRegistry.acquire( "first", forwarder( server.getPort(), "app" ) );
+        ForwarderRegistry.release( first );
+        LogForwarder second = ForwarderRegistry.acquire( "second", forwarder( server.getPort(), "app" ) );
+        assertNotSame( first, second );
+        ForwarderRegistry.release( second );
+        server.shutdown();
+    }
+
+    @Test
+    public void testSecretsAreHashedInTheKey()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder first = forwarder( server.getPort(), "app", "s3cr3t-first" );
+        LogForwarder second = forwarder( server.getPort(), "app", "s3cr3t-second" );
+
+        Method keyOf = ForwarderRegistry.class.getDeclaredMethod( "keyOf", LogForwarder.class );
+        keyOf.setAccessible( true );
+        String key = (String) keyOf.invoke( null, first );
+        assertFalse( key.contains( "s3cr3t-first" ) );
+        assertTrue( key.contains( "keystorePassword=sha256:" ) );
+
+        // still told apart by their secrets
+        LogForwarder acquiredFirst = ForwarderRegistry.acquire( "first", first );
+        LogForwarder acquiredSecond = ForwarderRegistry.acquire( "second", second );
+        assertNotSame( acquiredFirst, acquiredSecond );
+        ForwarderRegistry.release( acquiredFirst );
+        ForwarderRegistry.release( acquiredSecond );
+        server.shutdown();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for switching over to the standby connection
+ */
+public class HotStandbyTest {
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.forwardEvent( syslogMessage, true );
+    }
+
+    private static void awaitConnections( MiniSyslogTcpMultiServer server, int count )
+        throws InterruptedException {
+        for ( int i = 0; i < 50 && server.getConnections().size() < count; i++ ) {
+            Thread.sleep( 100 );
+        }
+    }
+
+    private static boolean received( MiniSyslogTcpMultiServer server, String text ) {
+        synchronized ( server.getConnections() ) {
+            for ( List<String> lines : server.getConnections() ) {
+                synchronized ( lines ) {
+                    for ( String line : lines ) {
+                        if ( line.endsWith( text ) ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testSwitchesOverToTheStandbyDestination()
+        throws Exception {
+        MiniSyslogTcpMultiServer primary = new MiniSyslogTcpMultiServer();
+        MiniSyslogTcpMultiServer alternate = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( primary.getPort() );
+        settings.setHotStandby( true );
+        settings.setStandbyDestination( "localhost:" + alternate.getPort() );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        awaitConnections( alternate, 1 );
+        assertEquals( 1, alternate.getConnections().size() );
+
+        forward( forwarder, "first message" );
+        primary.awaitMessages( 1 );
+        primary.shutdown();
+
+        // the failure shows once the destination has reset the connection
+        for ( int i = 0; i < 100 && forwarder.getMetrics().getFailovers() == 0; i++ ) {
+            forward( forwarder, "message #" + i );
+            Thread.sleep( 20 );
+        }
+        assertEquals( 1, forwarder.getMetrics().getFailovers() );
+        assertTrue( forwarder.isConnected() );
+
+        forward( forwarder, "after failover" );
+        for ( int i = 0; i < 50 && !received( alternate, "after failover" ); i++ ) {
+            Thread.sleep( 100 );
+        }
+        assertTrue( received( alternate, "after failover" ) );
+        // switched over without reconnecting, and a new standby connection is warmed up
+        assertEquals( 0, forwarder.getMetrics().getReconnectAttempts() );
+        awaitConnections( alternate, 2 );
+        assertEquals( 2, alternate.getConnections().size() );
+
+        forwarder.close();
+        alternate.shutdown();
+    }
+
+    @Test
+    public void testNoStandbyByDefault()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( server.getPort() );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        forward( forwarder, "only message" );
+        server.awaitMessages( 1 );
+        Thread.sleep( 200 );
+        forwarder.close();
+        server.shutdown();
+
+        assertEquals( 1, server.getConnections().size() );
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LineBreakEscaper;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the escaping of line breaks in non-transparent framing
+ */
+public class LineBreakEscaperTest {
+
+    private static String reference( String message ) {
+        return message.replace( "\r", "\\r" ).replace( "\n", "\\n" );
+    }
+
+    private static String randomMessage( Random random ) {
+        char[] alphabet = { 'a', 'b', '{', '"', ' ', '\n', '\r', 'é', '€', '\\' };
+        char[] message = new char[random.nextInt( 100 )];
+        for ( int i = 0; i < message.length; i++ ) {
+            message[i] = alphabet[random.nextInt( alphabet.length )];
+        }
+        return new String( message );
+    }
+
+    @Test
+    public void testStringEscaping() {
+        String noLineBreak = "{\"level\":\"info\",\"message\":\"nothing to escape\"}";
+        assertSame( noLineBreak, LineBreakEscaper.escape( noLineBreak ) );
+        assertEquals( "a\\r\\nb\\n", LineBreakEscaper.escape( "a\r\nb\n" ) );
+
+        Random random = new Random( 42 );
+        for ( int i = 0; i < 1000; i++ ) {
+            String message = randomMessage( random );
+            assertEquals( reference( message ), LineBreakEscaper.escape( message ) );
+        }
+    }
+
+    @Test
+    public void testInPlaceEscaping()
+        throws Exception {
+        Random random = new Random( 7 );
+        for ( int i = 0; i < 1000; i++ ) {
+            String message = randomMessage( random );
+            byte[] encoded = message.getBytes( "UTF8" );
+            // encode at an unaligned offset, with room to expand
+            int from = random.nextInt( 9 );
+            byte[] data = new byte[from + encoded.length * 2];
+            System.arraycopy( encoded, 0, data, from, encoded.length );
+
+            int lineBreaks = LineBreakEscaper.countLineBreaks( ByteBuffer.wrap( data ), from, from + encoded.length );
+            int end = LineBreakEscaper.escapeInPlace( data, from, from + encoded.length, lineBreaks );
+
+            assertArrayEquals( reference( message ).getBytes( "UTF8" ), Arrays.copyOfRange( data, from, end ) );
+        }
+    }
+
+    @Test
+    public void testNonTransparentFrames()
+        throws Exception {
+        String[] messages = new String[] { "single line", "multi\nline\r\nmessage\n", "accents éè and €\n", "" };
+
+        ServerSocket serverSocket = new ServerSocket( 0 );
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( serverSocket.getLocalPort() );
+        settings.setRawMode( true );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        Socket socket = serverSocket.accept();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for ( String message : messages ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( message );
+            forwarder.forwardEvent( syslogMessage, true );
+            expected.write( ( reference( message ) + "\n" ).getBytes( "UTF8" ) );
+        }
+        forwarder.close();
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        InputStream in = socket.getInputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ( ( read = in.read( buffer ) ) >= 0 ) {
+            received.write( buffer, 0, read );
+        }
+        socket.close();
+        serverSocket.close();
+
+        assertArrayEquals( expected.toByteArray(), received.toByteArray() );
+    }
+}
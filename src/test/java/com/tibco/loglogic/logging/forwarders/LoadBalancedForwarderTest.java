@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LoadBalancedForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for spreading the events across several syslog TCP destinations
+ */
+public class LoadBalancedForwarderTest {
+
+    private static void sendMessages( LogForwarder forwarder, int count ) {
+        for ( int i = 0; i < count; i++ ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( "balanced message #" + i );
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+    }
+
+    @Test
+    public void testWeightedRoundRobin()
+        throws Exception {
+        MiniSyslogTcpMultiServer server1 = new MiniSyslogTcpMultiServer();
+        MiniSyslogTcpMultiServer server2 = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setDestinations( "localhost:" + server1.getPort() + "*2, 127.0.0.1:" + server2.getPort() );
+        assertEquals( 2, settings.getDestinations().size() );
+        assertEquals( 2, settings.getDestinations().get( 0 ).getWeight() );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        assertTrue( forwarder instanceof LoadBalancedForwarder );
+        forwarder.connect();
+
+        sendMessages( forwarder, 30 );
+        server1.awaitMessages( 20 );
+        server2.awaitMessages( 10 );
+        forwarder.close();
+
+        assertEquals( 20, server1.getMessageCount() );
+        assertEquals( 10, server2.getMessageCount() );
+    }
+
+    @Test
+    public void testLeastOutstandingBytes()
+        throws Exception {
+        MiniSyslogTcpMultiServer server1 = new MiniSyslogTcpMultiServer();
+        MiniSyslogTcpMultiServer server2 = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setBalancingStrategy( "least_outstanding_bytes" );
+        settings.setDestinations( "localhost:" + server1.getPort() + "*3, 127.0.0.1:" + server2.getPort() );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+
+        // the same size each, written without flushing
+        for ( int i = 0; i < 40; i++ ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( "unflushed message #" + ( 100 + i ) );
+            forwarder.forwardEvent( syslogMessage, false );
+        }
+        forwarder.flush();
+        server1.awaitMessages( 29 );
+        server2.awaitMessages( 9 );
+        forwarder.close();
+
+        assertEquals( 40, server1.getMessageCount() + server2.getMessageCount() );
+        assertTrue( Math.abs( server1.getMessageCount() - 30 ) <= 1 );
+    }
+
+    @Test
+    public void testUnreachableDestinationIsEjected()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        ServerSocket closedSocket = new ServerSocket( 0 );
+        int deadPort = closedSocket.getLocalPort();
+        closedSocket.close();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setBalancingStrategy( "least_outstanding_bytes" );
+        settings.setDestinations( "localhost:" + deadPort + ",localhost:" + server.getPort() );
+
+        LoadBalancedForwarder forwarder = (LoadBalancedForwarder) SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        assertEquals( 1, forwarder.getHealthyDestinationCount() );
+
+        sendMessages( forwarder, 10 );
+        server.awaitMessages( 10 );
+        forwarder.close();
+
+        assertEquals( 10, server.getMessageCount() );
+    }
+
+    @Test
+    public void testUnreachableDestinationIsEjectedAfterSeveralFailures()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        ServerSocket closedSocket = new ServerSocket( 0 );
+        int deadPort = closedSocket.getLocalPort();
+        closedSocket.close();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setEjectAfterFailures( 3 );
+        settings.setDestinations( "localhost:" + deadPort + ",localhost:" + server.getPort() );
+
+        LoadBalancedForwarder forwarder = (LoadBalancedForwarder) SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        // one failure so far
+        assertEquals( 2, forwarder.getHealthyDestinationCount() );
+
+        // in turn, the unreachable destination fails twice more, keeping two events in its queue
+        sendMessages( forwarder, 10 );
+        assertEquals( 1, forwarder.getHealthyDestinationCount() );
+        server.awaitMessages( 8 );
+        forwarder.close();
+
+        assertEquals( 8, server.getMessageCount() );
+    }
+
+    @Test
+    public void testDestinationParsing() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setPort( 1514 );
+        settings.setDestinations( "collector1, collector2:600*3,[::1]:700" );
+        assertEquals( 3, settings.getDestinations().size() );
+        assertEquals( "collector1", settings.getDestinations().get( 0 ).getHost() );
+        assertEquals( 0, settings.getDestinations().get( 0 ).getPort() );
+        assertEquals( 1, settings.getDestinations().get( 0 ).getWeight() );
+        assertEquals( "collector2", settings.getDestinations().get( 1 ).getHost() );
+        assertEquals( 600, settings.getDestinations().get( 1 ).getPort() );
+        assertEquals( 3, settings.getDestinations().get( 1 ).getWeight() );
+        assertEquals( "::1", settings.getDestinations().get( 2 ).getHost() );
+        assertEquals( 700, settings.getDestinations().get( 2 ).getPort() );
+    }
+
+    @Test
+    public void testInvalidDestinationsAreIgnored() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setDestinations( "collector1:abc, [::1:700, collector2*0, collector3*-2, collector4*x, :600,"
+            + " collector5:70000, collector6:601*2" );
+        assertEquals( 1, settings.getDestinations().size() );
+        assertEquals( "collector6", settings.getDestinations().get( 0 ).getHost() );
+        assertEquals( 601, settings.getDestinations().get( 0 ).getPort() );
+        assertEquals( 2, settings.getDestinations().get( 0 ).getWeight() );
+    }
+}
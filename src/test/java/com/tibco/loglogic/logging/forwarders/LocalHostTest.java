@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.InetAddress;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderExecutor;
+import com.tibco.loglogic.logging.forwarders.shared.ForwarderExecutor.ThreadType;
+import com.tibco.loglogic.logging.forwarders.shared.LocalHost;
+import com.tibco.loglogic.logging.forwarders.shared.LocalHost.Fallback;
+
+/**
+ * Tests for the background resolution of the local host
+ */
+public class LocalHostTest {
+
+    @Test
+    public void testResolvedInBackground()
+        throws Exception {
+        // never null, and stable so that forwarders can compare it by reference
+        String name = LocalHost.getHostName( Fallback.IP );
+        assertNotNull( name );
+        assertSame( name, LocalHost.getHostName( Fallback.IP ) );
+        assertNotNull( LocalHost.getAddress() );
+
+        LocalHost.resolveInBackground( ForwarderExecutor.forType( ThreadType.PLATFORM ) );
+        String expected = InetAddress.getLocalHost().getHostName();
+        for ( int i = 0; i < 100 && !expected.equals( LocalHost.getHostName( Fallback.IP ) ); i++ ) {
+            Thread.sleep( 50 );
+        }
+        assertEquals( expected, LocalHost.getHostName( Fallback.ENV ) );
+        assertEquals( InetAddress.getLocalHost(), LocalHost.getAddress() );
+    }
+}
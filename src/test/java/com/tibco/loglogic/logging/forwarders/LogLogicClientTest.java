@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.LmiLogEvent;
+import com.tibco.loglogic.logging.client.Acknowledgement;
+import com.tibco.loglogic.logging.client.LogLogicClient;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for sending events without a logging framework
+ */
+public class LogLogicClientTest {
+
+    private static SyslogTcpForwarderSettings settings( int port ) {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        settings.setAppName( "audit" );
+        return settings;
+    }
+
+    @Test
+    public void testSendAndBatch()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogLogicClient client = LogLogicClient.syslogTcp( settings( server.getPort() ) );
+
+        LmiLogEvent event = new LmiLogEvent( "Failed Login", "sshd:failure" );
+        event.setTargetUser( "joe" );
+        Acknowledgement single = client.send( event, Severity.WARNING );
+        single.get( 5, TimeUnit.SECONDS );
+        assertEquals( 1, single.getDeliveredCount() );
+
+        client.send( "raw payload".getBytes( StandardCharsets.UTF_8 ), Severity.ERROR, 0L ).get( 5, TimeUnit.SECONDS );
+
+        List<LmiLogEvent> batch = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            batch.add( new LmiLogEvent( "Batch", "batch:" + i ) );
+        }
+        Acknowledgement acknowledgement = client.sendBatch( batch, Severity.INFORMATIONAL );
+        acknowledgement.get( 5, TimeUnit.SECONDS );
+        assertTrue( acknowledgement.isDone() );
+        assertEquals( 10, acknowledgement.getDeliveredCount() );
+
+        server.awaitMessages( 12 );
+        client.close();
+
+        List<String> lines = server.getConnections().get( 0 );
+        assertEquals( 12, lines.size() );
+        // PRI = facility * 8 + severity, WARNING being 4
+        assertEquals( 4, Integer.parseInt( lines.get( 0 ).substring( 1, lines.get( 0 ).indexOf( '>' ) ) ) % 8 );
+        assertTrue( lines.get( 0 ).contains( " audit " ) );
+        assertTrue( lines.get( 0 ).endsWith( "ll_targetUser=\"joe\"" ) );
+        assertTrue( lines.get( 1 ).endsWith( "raw payload" ) );
+    }
+
+    @Test
+    public void testDroppedEventsFailTheAcknowledgement()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        SyslogTcpForwarderSettings settings = settings( server.getPort() );
+        settings.setRateLimit( 1 );
+        settings.setRateLimitBurst( 2 );
+        LogLogicClient client = LogLogicClient.syslogTcp( settings );
+
+        List<LmiLogEvent> batch = new ArrayList<>();
+        for ( int i = 0; i < 5; i++ ) {
+            batch.add( new LmiLogEvent( "Burst", "burst" ) );
+        }
+        Acknowledgement acknowledgement = client.sendBatch( batch, Severity.INFORMATIONAL );
+        try {
+            acknowledgement.get( 5, TimeUnit.SECONDS );
+            fail( "events should have been dropped" );
+        }
+        catch ( ExecutionException e ) {
+            assertTrue( e.getCause().getMessage().contains( "of 5 events dropped" ) );
+        }
+        assertEquals( 2, acknowledgement.getDeliveredCount() );
+        assertEquals( 3, acknowledgement.getDroppedCount() );
+        client.close();
+    }
+
+    @Test
+    public void testEventsStillQueuedAreDroppedOnClose()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogLogicClient client = LogLogicClient.syslogTcp( settings( server.getPort() ) );
+        server.shutdown();
+
+        // the first write after the destination went away may still succeed, the next ones fail and are queued
+        client.send( new LmiLogEvent( "Lost", "lost:0" ), Severity.INFORMATIONAL );
+        Thread.sleep( 200 );
+        List<LmiLogEvent> batch = new ArrayList<>();
+        for ( int i = 1; i < 6; i++ ) {
+            batch.add( new LmiLogEvent( "Lost", "lost:" + i ) );
+        }
+        Acknowledgement acknowledgement = client.sendBatch( batch, Severity.INFORMATIONAL );
+        Thread.sleep( 200 );
+        client.close();
+
+        // every event has an outcome, none is left pending
+        assertTrue( acknowledgement.isDone() );
+        assertEquals( 5, acknowledgement.getDeliveredCount() + acknowledgement.getDroppedCount() );
+        assertTrue( acknowledgement.getDroppedCount() > 0 );
+        try {
+            acknowledgement.get( 1, TimeUnit.SECONDS );
+            fail( "events should have been dropped" );
+        }
+        catch ( ExecutionException e ) {
+            assertTrue( e.getCause().getMessage().contains( "events dropped" ) );
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.mappedring.MappedRingForwarder;
+import com.tibco.loglogic.logging.forwarders.mappedring.MappedRingForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.mappedring.MappedRingReader;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for handing log over to a sidecar through a memory-mapped ring
+ */
+public class MappedRingForwarderTest {
+
+    private static MappedRingForwarder ringForwarder( File ringFile, long ringSize ) {
+        MappedRingForwarderSettings settings = new MappedRingForwarderSettings();
+        settings.setRingFile( ringFile.getPath() );
+        settings.setRingSize( ringSize );
+        return new MappedRingForwarder( settings );
+    }
+
+    private static LogForwarder tcpForwarder( int port ) {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        return SyslogTcpForwarder.create( settings );
+    }
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+    }
+
+    private static List<String> received( MiniSyslogTcpMultiServer server ) {
+        List<String> lines = new ArrayList<>();
+        synchronized ( server.getConnections() ) {
+            for ( List<String> connection : server.getConnections() ) {
+                lines.addAll( connection );
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testSidecarForwardsTheEventsAsWritten()
+        throws Exception {
+        File ringFile = File.createTempFile( "loglmi", ".ring" );
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder tcpForwarder = tcpForwarder( server.getPort() );
+        tcpForwarder.connect();
+        MappedRingReader reader = new MappedRingReader( ringFile, tcpForwarder );
+        Thread sidecar = new Thread( reader );
+        sidecar.start();
+
+        MappedRingForwarder forwarder = ringForwarder( ringFile, 0 );
+        forwarder.connect();
+        for ( int i = 0; i < 100; i++ ) {
+            forward( forwarder, "event #" + i );
+        }
+        server.awaitMessages( 100 );
+        reader.stop();
+        sidecar.join( 1000 );
+        forwarder.close();
+        tcpForwarder.close();
+        server.shutdown();
+        ringFile.delete();
+
+        List<String> lines = received( server );
+        assertEquals( 100, lines.size() );
+        // the header written by the application is kept
+        assertTrue( lines.get( 0 ).startsWith( "<" ) );
+        assertTrue( lines.get( 0 ).endsWith( "event #0" ) );
+        assertTrue( lines.get( 99 ).endsWith( "event #99" ) );
+        assertEquals( 0, forwarder.getMetrics().getEventsDropped() );
+    }
+
+    @Test
+    public void testRecordsWrapAroundTheRing()
+        throws Exception {
+        File ringFile = File.createTempFile( "loglmi", ".ring" );
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder tcpForwarder = tcpForwarder( server.getPort() );
+        tcpForwarder.connect();
+        MappedRingReader reader = new MappedRingReader( ringFile, tcpForwarder );
+        Thread sidecar = new Thread( reader );
+        sidecar.start();
+
+        // the smallest ring, written over many times
+        MappedRingForwarder forwarder = ringForwarder( ringFile, 4096 );
+        forwarder.connect();
+        StringBuilder padding = new StringBuilder();
+        for ( int i = 0; i < 100; i++ ) {
+            padding.append( 'x' );
+        }
+        for ( int i = 0; i < 1000; i++ ) {
+            // lets the sidecar keep up, about 25 records fit in the ring
+            server.awaitMessages( i - 10 );
+            forward( forwarder, padding + " event #" + i );
+        }
+        server.awaitMessages( 1000 );
+        reader.stop();
+        sidecar.join( 1000 );
+        forwarder.close();
+        tcpForwarder.close();
+        server.shutdown();
+        ringFile.delete();
+
+        assertEquals( 0, forwarder.getMetrics().getEventsDropped() );
+        List<String> lines = received( server );
+        assertEquals( 1000, lines.size() );
+        for ( int i = 0; i < 1000; i++ ) {
+            assertTrue( lines.get( i ).endsWith( " event #" + i ) );
+        }
+    }
+
+    @Test
+    public void testEventsStayInTheRingWhileDisconnected()
+        throws Exception {
+        File ringFile = File.createTempFile( "loglmi", ".ring" );
+        ServerSocket reserved = new ServerSocket( 0 );
+        int port = reserved.getLocalPort();
+        reserved.close();
+        LogForwarder tcpForwarder = tcpForwarder( port );
+        tcpForwarder.connectInBackground();
+        MappedRingReader reader = new MappedRingReader( ringFile, tcpForwarder );
+        Thread sidecar = new Thread( reader );
+        sidecar.start();
+
+        MappedRingForwarder forwarder = ringForwarder( ringFile, 0 );
+        forwarder.connect();
+        for ( int i = 0; i < 100; i++ ) {
+            forward( forwarder, "event #" + i );
+        }
+        Thread.sleep( 200 );
+        // not moved to the queue of the sidecar
+        assertEquals( 0, tcpForwarder.getQueueDepth() );
+
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer( port );
+        server.awaitMessages( 100 );
+        reader.stop();
+        sidecar.join( 1000 );
+        forwarder.close();
+        tcpForwarder.close();
+        server.shutdown();
+        ringFile.delete();
+
+        List<String> lines = received( server );
+        assertEquals( 100, lines.size() );
+        assertTrue( lines.get( 0 ).endsWith( "event #0" ) );
+        assertTrue( lines.get( 99 ).endsWith( "event #99" ) );
+    }
+
+    @Test
+    public void testDamagedRecordsAreSkipped()
+        throws Exception {
+        File ringFile = File.createTempFile( "loglmi", ".ring" );
+        MappedRingForwarder forwarder = ringForwarder( ringFile, 0 );
+        forwarder.connect();
+        forward( forwarder, "damaged event" );
+        // the length of the first record, right after the header
+        RandomAccessFile file = new RandomAccessFile( ringFile, "rw" );
+        file.seek( 192 );
+        file.writeInt( Integer.MAX_VALUE );
+        file.close();
+
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+        LogForwarder tcpForwarder = tcpForwarder( server.getPort() );
+        tcpForwarder.connect();
+        MappedRingReader reader = new MappedRingReader( ringFile, tcpForwarder );
+        Thread sidecar = new Thread( reader );
+        sidecar.start();
+        Thread.sleep( 200 );
+        forward( forwarder, "next event" );
+        server.awaitMessages( 1 );
+        reader.stop();
+        sidecar.join( 1000 );
+        forwarder.close();
+        tcpForwarder.close();
+        server.shutdown();
+        ringFile.delete();
+
+        List<String> lines = received( server );
+        assertEquals( 1, lines.size() );
+        assertTrue( lines.get( 0 ).endsWith( "next event" ) );
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenTheRingIsFull()
+        throws Exception {
+        File ringFile = File.createTempFile( "loglmi", ".ring" );
+        // no sidecar reading
+        MappedRingForwarder forwarder = ringForwarder( ringFile, 4096 );
+        forwarder.connect();
+        for ( int i = 0; i < 100; i++ ) {
+            forward( forwarder, "event #" + i + " with some text to fill the ring faster" );
+        }
+        forwarder.close();
+        ringFile.delete();
+
+        assertTrue( forwarder.getMetrics().getEventsDropped() > 0 );
+        assertTrue( forwarder.getMetrics().getEventsDropped() < 100 );
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RELP server keeping the syslog messages received, acknowledging them unless told to break the first connection
+ */
+public class MiniRelpServer
+    extends Thread {
+
+    private final ServerSocket serverSocket;
+
+    private final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+
+    private volatile int acknowledgedBeforeBreak = -1;
+
+    private volatile int unacknowledgedBeforeBreak;
+
+    private volatile boolean dropSecondConnection;
+
+    private int connectionCount;
+
+    public MiniRelpServer()
+        throws IOException {
+        serverSocket = new ServerSocket( 0 );
+        setDaemon( true );
+        start();
+    }
+
+    /**
+     * On the first connection, acknowledge some messages, then receive some more without acknowledging them, then close
+     * the connection
+     *
+     * @param acknowledged the number of messages acknowledged
+     * @param unacknowledged the number of messages received afterwards without acknowledgement
+     */
+    public void breakFirstConnection( int acknowledged, int unacknowledged ) {
+        this.unacknowledgedBeforeBreak = unacknowledged;
+        this.acknowledgedBeforeBreak = acknowledged;
+    }
+
+    /**
+     * Reset the second connection right after opening the session, while the messages left unacknowledged by the
+     * first one are sent again
+     */
+    public void dropSecondConnection() {
+        this.dropSecondConnection = true;
+    }
+
+    @Override
+    public void run() {
+        for ( ;; ) {
+            try {
+                final Socket socket = serverSocket.accept();
+                final boolean breaking = connectionCount == 0 && acknowledgedBeforeBreak >= 0;
+                final boolean dropping = connectionCount == 1 && dropSecondConnection;
+                connectionCount++;
+                Thread reader = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            serve( socket, breaking, dropping );
+                        }
+                        catch ( IOException ignored ) {
+                        }
+                        finally {
+                            try {
+                                socket.close();
+                            }
+                            catch ( IOException ignored ) {
+                            }
+                        }
+                    }
+                };
+                reader.setDaemon( true );
+                reader.start();
+            }
+            catch ( IOException e ) {
+                return;
+            }
+        }
+    }
+
+    private void serve( Socket socket, boolean breaking, boolean dropping )
+        throws IOException {
+        DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+        OutputStream out = socket.getOutputStream();
+        int syslogFrames = 0;
+        while ( true ) {
+            String txnr = readToken( in );
+            if ( txnr == null ) {
+                return;
+            }
+            String command = readToken( in );
+            int length = Integer.parseInt( readToken( in ) );
+            byte[] data = new byte[length];
+            in.readFully( data );
+            if ( length > 0 ) {
+                // trailer, the separator after the length was a space
+                in.read();
+            }
+            if ( "open".equals( command ) ) {
+                respond( out, txnr, "200 OK" );
+                if ( dropping ) {
+                    // reset rather than closed, so that the writes of the client fail right away
+                    socket.setSoLinger( true, 0 );
+                    return;
+                }
+            }
+            else if ( "syslog".equals( command ) ) {
+                messages.add( new String( data, StandardCharsets.UTF_8 ) );
+                syslogFrames++;
+                if ( !breaking || syslogFrames <= acknowledgedBeforeBreak ) {
+                    respond( out, txnr, "200 OK" );
+                }
+                else if ( syslogFrames >= acknowledgedBeforeBreak + unacknowledgedBeforeBreak ) {
+                    return;
+                }
+            }
+            else if ( "close".equals( command ) ) {
+                respond( out, txnr, "200 OK" );
+                return;
+            }
+        }
+    }
+
+    private static String readToken( InputStream in )
+        throws IOException {
+        StringBuilder token = new StringBuilder();
+        for ( int c = in.read(); c != ' ' && c != '\n'; c = in.read() ) {
+            if ( c < 0 ) {
+                return null;
+            }
+            token.append( (char) c );
+        }
+        return token.toString();
+    }
+
+    private static void respond( OutputStream out, String txnr, String data )
+        throws IOException {
+        out.write( ( txnr + " rsp " + data.length() + " " + data + "\n" ).getBytes( StandardCharsets.US_ASCII ) );
+        out.flush();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the syslog messages received, duplicates included
+     *
+     * @return the messages, in the order received
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public void shutdown()
+        throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Syslog TCP server accepting any number of concurrent connections, keeping the lines received on each connection
+ */
+public class MiniSyslogTcpMultiServer
+    extends Thread {
+
+    private final ServerSocket serverSocket;
+
+    private final List<List<String>> connections = Collections.synchronizedList( new ArrayList<List<String>>() );
+
+    private final List<Socket> sockets = Collections.synchronizedList( new ArrayList<Socket>() );
+
+    public MiniSyslogTcpMultiServer()
+        throws IOException {
+        this( 0 );
+    }
+
+    public MiniSyslogTcpMultiServer( int port )
+        throws IOException {
+        serverSocket = new ServerSocket( port );
+        setDaemon( true );
+        start();
+    }
+
+    @Override
+    public void run() {
+        for ( ;; ) {
+            try {
+                final Socket socket = serverSocket.accept();
+                sockets.add( socket );
+                final List<String> lines = Collections.synchronizedList( new ArrayList<String>() );
+                connections.add( lines );
+                Thread reader = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            BufferedReader in = new BufferedReader( new InputStreamReader( socket.getInputStream(),
+                                                                                           "UTF8" ) );
+                            for ( String line = in.readLine(); line != null; line = in.readLine() ) {
+                                lines.add( line );
+                            }
+                        }
+                        catch ( IOException ignored ) {
+                        }
+                    }
+                };
+                reader.setDaemon( true );
+                reader.start();
+            }
+            catch ( IOException e ) {
+                return;
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the lines received, one list per accepted connection
+     *
+     * @return the lines received per connection
+     */
+    public List<List<String>> getConnections() {
+        return connections;
+    }
+
+    public int getMessageCount() {
+        int total = 0;
+        synchronized ( connections ) {
+            for ( List<String> lines : connections ) {
+                total += lines.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Wait until the given number of messages have been received, for up to 5s
+     *
+     * @param count the number of messages expected
+     */
+    public void awaitMessages( int count )
+        throws InterruptedException {
+        for ( int i = 0; i < 50 && getMessageCount() < count; i++ ) {
+            Thread.sleep( 100 );
+        }
+    }
+
+    /**
+     * Stop accepting connections and close the accepted ones
+     */
+    public void shutdown()
+        throws IOException {
+        serverSocket.close();
+        synchronized ( sockets ) {
+            for ( Socket socket : sockets ) {
+                socket.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Syslog UDP server keeping the messages received, one per datagram
+ */
+public class MiniSyslogUdpServer
+    extends Thread {
+
+    private final DatagramSocket socket;
+
+    private final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+
+    public MiniSyslogUdpServer()
+        throws IOException {
+        socket = new DatagramSocket( 0 );
+        setDaemon( true );
+        start();
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[65536];
+        for ( ;; ) {
+            try {
+                DatagramPacket packet = new DatagramPacket( buffer, buffer.length );
+                socket.receive( packet );
+                messages.add( new String( packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8 ) );
+            }
+            catch ( IOException e ) {
+                return;
+            }
+        }
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Wait until the given number of messages have been received, for up to 5s
+     *
+     * @param count the number of messages expected
+     */
+    public void awaitMessages( int count )
+        throws InterruptedException {
+        for ( int i = 0; i < 50 && messages.size() < count; i++ ) {
+            Thread.sleep( 100 );
+        }
+    }
+
+    public void shutdown() {
+        socket.close();
+    }
+}
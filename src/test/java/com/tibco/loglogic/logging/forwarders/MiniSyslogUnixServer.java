@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Local agent stand-in, reading octet counted syslog messages from a Unix domain stream socket. Needs Java 16 or later,
+ * reached through reflection like the forwarder.
+ */
+public class MiniSyslogUnixServer
+    extends Thread {
+
+    private final File socketFile;
+
+    private final ServerSocketChannel serverChannel;
+
+    private final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+
+    /**
+     * Get whether Unix domain sockets are available
+     *
+     * @return true on Java 16 or later
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName( "java.net.UnixDomainSocketAddress" );
+            return true;
+        }
+        catch ( ClassNotFoundException e ) {
+            return false;
+        }
+    }
+
+    public MiniSyslogUnixServer( File socketFile )
+        throws Exception {
+        this.socketFile = socketFile;
+        ProtocolFamily unix = StandardProtocolFamily.valueOf( "UNIX" );
+        SocketAddress address = (SocketAddress) Class.forName( "java.net.UnixDomainSocketAddress" )
+            .getMethod( "of", String.class ).invoke( null, socketFile.getPath() );
+        serverChannel = (ServerSocketChannel) ServerSocketChannel.class.getMethod( "open", ProtocolFamily.class )
+            .invoke( null, unix );
+        serverChannel.bind( address );
+        setDaemon( true );
+        start();
+    }
+
+    @Override
+    public void run() {
+        for ( ;; ) {
+            final SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            }
+            catch ( IOException e ) {
+                return;
+            }
+            Thread reader = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        DataInputStream in = new DataInputStream( new BufferedInputStream( Channels
+                            .newInputStream( channel ) ) );
+                        for ( ;; ) {
+                            int length = 0;
+                            for ( int c = in.read(); c != ' '; c = in.read() ) {
+                                if ( c < 0 ) {
+                                    return;
+                                }
+                                length = length * 10 + c - '0';
+                            }
+                            byte[] message = new byte[length];
+                            in.readFully( message );
+                            messages.add( new String( message, StandardCharsets.UTF_8 ) );
+                        }
+                    }
+                    catch ( IOException ignored ) {
+                    }
+                }
+            };
+            reader.setDaemon( true );
+            reader.start();
+        }
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Wait until the given number of messages have been received, for up to 5s
+     *
+     * @param count the number of messages expected
+     */
+    public void awaitMessages( int count )
+        throws InterruptedException {
+        for ( int i = 0; i < 50 && messages.size() < count; i++ ) {
+            Thread.sleep( 100 );
+        }
+    }
+
+    public void shutdown()
+        throws IOException {
+        serverChannel.close();
+        socketFile.delete();
+    }
+}
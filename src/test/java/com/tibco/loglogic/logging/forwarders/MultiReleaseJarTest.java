@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Checks that the Java 11 classes of the multi-release jar are the ones loaded, when the tests run against the jar
+ * rather than the compiled classes (see the multi-release profile of the pom)
+ */
+public class MultiReleaseJarTest {
+
+    private static Class<?> type( String className, String fieldName )
+        throws Exception {
+        return Class.forName( "com.tibco.loglogic.logging.forwarders." + className ).getDeclaredField( fieldName )
+                    .getType();
+    }
+
+    @Test
+    public void testJava11ClassesAreLoaded()
+        throws Exception {
+        Assume.assumeTrue( Boolean.getBoolean( "loglmi.multiReleaseJar" ) );
+        assertEquals( "java.time.format.DateTimeFormatter", type( "shared.TimestampFormatter", "FORMATTER" ).getName() );
+        assertEquals( "java.lang.invoke.VarHandle", type( "mappedring.RingSequences", "LONGS" ).getName() );
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the RFC 6587 octet-counting framing
+ */
+public class OctetCountingFramingTest {
+
+    @Test
+    public void testFramesMatchUtf8Encoding()
+        throws Exception {
+        StringBuilder large = new StringBuilder();
+        for ( int i = 0; i < 20000; i++ ) {
+            large.append( "largeé" );
+        }
+        String[] messages = new String[] { "plain ascii", "multi\nline\r\nmessage", "accents éè and €",
+            "emoji 😀 and lone surrogate \ud800 here", "", large.toString() };
+
+        ServerSocket serverSocket = new ServerSocket( 0 );
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( serverSocket.getLocalPort() );
+        settings.setUseOctetCounting( true );
+        settings.setRawMode( true );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connect();
+        Socket socket = serverSocket.accept();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for ( String message : messages ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( message );
+            forwarder.forwardEvent( syslogMessage, true );
+
+            byte[] data = message.getBytes( "UTF8" );
+            expected.write( ( data.length + " " ).getBytes( "UTF8" ) );
+            expected.write( data );
+        }
+        forwarder.close();
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        InputStream in = socket.getInputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ( ( read = in.read( buffer ) ) >= 0 ) {
+            received.write( buffer, 0, read );
+        }
+        socket.close();
+        serverSocket.close();
+
+        assertArrayEquals( expected.toByteArray(), received.toByteArray() );
+        assertEquals( expected.size(), forwarder.getMetrics().getBytesSent() );
+    }
+}
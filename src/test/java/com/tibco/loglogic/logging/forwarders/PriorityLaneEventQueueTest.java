@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.PriorityLaneEventQueue;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the queue with one lane per severity
+ */
+public class PriorityLaneEventQueueTest {
+
+    // 10 bytes in raw mode
+    private static SyslogMessage event( Severity severity ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setRawMode( true );
+        syslogMessage.setSeverity( severity );
+        syslogMessage.setMessage( "0123456789" );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testCriticalEventsAreNotEvictedForDebugEvents() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setMaxQueueSize( 100 );
+        PriorityLaneEventQueue queue = new PriorityLaneEventQueue( settings );
+
+        for ( int i = 0; i < 3; i++ ) {
+            assertEquals( 0, queue.add( event( Severity.CRITICAL ), 10 ) );
+        }
+        for ( int i = 0; i < 7; i++ ) {
+            assertEquals( 0, queue.add( event( Severity.DEBUG ), 10 ) );
+        }
+        // full: debug events make room for the error event
+        assertEquals( 1, queue.add( event( Severity.ERROR ), 10 ) );
+        assertEquals( 6, queue.size( Severity.DEBUG ) );
+        // a debug event cannot evict more severe events
+        for ( int i = 0; i < 6; i++ ) {
+            queue.add( event( Severity.CRITICAL ), 10 );
+        }
+        assertEquals( 0, queue.size( Severity.DEBUG ) );
+        assertEquals( 1, queue.add( event( Severity.DEBUG ), 10 ) );
+        assertEquals( 9, queue.size( Severity.CRITICAL ) );
+        assertEquals( 100, queue.getSizeInBytes() );
+    }
+
+    @Test
+    public void testWeightedDraining() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setPriorityLaneWeights( "critical:3,debug:1" );
+        PriorityLaneEventQueue queue = new PriorityLaneEventQueue( settings );
+
+        for ( int i = 0; i < 8; i++ ) {
+            queue.add( event( Severity.DEBUG ), 10 );
+            queue.add( event( Severity.CRITICAL ), 10 );
+        }
+        int critical = 0;
+        for ( int i = 0; i < 8; i++ ) {
+            if ( queue.poll().getSeverity() == Severity.CRITICAL )
+                critical++;
+        }
+        assertEquals( 6, critical );
+        for ( int i = 0; i < 8; i++ ) {
+            queue.poll();
+        }
+        assertNull( queue.poll() );
+        assertEquals( 0, queue.getSizeInBytes() );
+    }
+
+    @Test
+    public void testLaneQuota() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setMaxQueueSize( 100 );
+        settings.setPriorityLaneQuotas( "debug:30, unknown:10" );
+        assertEquals( 30, settings.getPriorityLaneQuota( Severity.DEBUG ) );
+        PriorityLaneEventQueue queue = new PriorityLaneEventQueue( settings );
+
+        for ( int i = 0; i < 5; i++ ) {
+            queue.add( event( Severity.DEBUG ), 10 );
+        }
+        assertEquals( 3, queue.size( Severity.DEBUG ) );
+        assertEquals( 3, queue.size() );
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.EventSink;
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.RateLimitingStage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for the rate limiting and sampling of events
+ */
+public class RateLimitingStageTest {
+
+    private static final class CollectingSink
+        implements EventSink {
+
+        final List<SyslogMessage> events = new ArrayList<>();
+
+        @Override
+        public void forward( SyslogMessage syslogMessage, boolean flush ) {
+            events.add( syslogMessage );
+        }
+    }
+
+    private static SyslogMessage event( String loggerName, Severity severity ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setLoggerName( loggerName );
+        syslogMessage.setSeverity( severity );
+        syslogMessage.setMessage( "event from " + loggerName );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testRateLimitPerLogger()
+        throws Exception {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setRateLimit( 10 );
+        settings.setSummaryInterval( 200 );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        RateLimitingStage stage = new RateLimitingStage( settings, forwarder.getMetrics() );
+        CollectingSink sink = new CollectingSink();
+
+        for ( int i = 0; i < 100; i++ ) {
+            stage.process( event( "noisy", Severity.INFORMATIONAL ), false, sink );
+        }
+        stage.process( event( "quiet", Severity.INFORMATIONAL ), false, sink );
+        // the burst of the noisy logger, plus the quiet one
+        assertTrue( sink.events.size() >= 11 && sink.events.size() < 15 );
+        long suppressed = forwarder.getMetrics().getEventsSuppressed();
+        assertEquals( 101 - sink.events.size(), suppressed );
+
+        Thread.sleep( 250 );
+        sink.events.clear();
+        stage.process( event( "quiet", Severity.INFORMATIONAL ), false, sink );
+        assertEquals( 2, sink.events.size() );
+        SyslogMessage summary = sink.events.get( 0 );
+        assertEquals( Severity.WARNING, summary.getSeverity() );
+        assertTrue( summary.getMessage(), summary.getMessage().startsWith( "Suppressed " + suppressed + " events" ) );
+        assertTrue( summary.getMessage(), summary.getMessage().contains( "noisy=" + suppressed ) );
+    }
+
+    @Test
+    public void testRateLimitPerSeverity() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setRateLimit( 5 );
+        settings.setRateLimitKey( "severity" );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        RateLimitingStage stage = new RateLimitingStage( settings, forwarder.getMetrics() );
+        CollectingSink sink = new CollectingSink();
+
+        for ( int i = 0; i < 20; i++ ) {
+            stage.process( event( "logger" + i, Severity.DEBUG ), false, sink );
+            stage.process( event( "logger" + i, Severity.ERROR ), false, sink );
+        }
+        int errors = 0;
+        for ( SyslogMessage syslogMessage : sink.events ) {
+            if ( syslogMessage.getSeverity() == Severity.ERROR )
+                errors++;
+        }
+        assertTrue( errors >= 5 && errors < 8 );
+        assertTrue( sink.events.size() - errors >= 5 && sink.events.size() - errors < 8 );
+    }
+
+    @Test
+    public void testSamplingThresholdParsing() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setSamplingThreshold( "65536" );
+        assertEquals( 65536, settings.getSamplingThreshold() );
+        settings.setSamplingThreshold( "2GB" );
+        assertEquals( 2L * 1024 * 1024 * 1024, settings.getSamplingThreshold() );
+        settings.setSamplingThreshold( "64KB" );
+        assertEquals( 65536, settings.getSamplingThreshold() );
+        // ignored
+        settings.setSamplingThreshold( "-1" );
+        settings.setSamplingThreshold( "lots" );
+        assertEquals( 65536, settings.getSamplingThreshold() );
+    }
+
+    @Test
+    public void testSamplingSparesErrors() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setSamplingThreshold( 100 );
+        QueueingForwarder forwarder = new QueueingForwarder( settings );
+        // backlog of 300 bytes: between 2 and 4 times the threshold, 1 event in 4 is kept
+        for ( int i = 0; i < 3; i++ ) {
+            SyslogMessage queued = new SyslogMessage();
+            queued.setRawMode( true );
+            queued.setMessage( new String( new char[100] ).replace( '\0', 'x' ) );
+            forwarder.enqueue( queued );
+        }
+        RateLimitingStage stage = new RateLimitingStage( settings, forwarder.getMetrics() );
+        CollectingSink sink = new CollectingSink();
+
+        for ( int i = 0; i < 100; i++ ) {
+            stage.process( event( "sampled", Severity.DEBUG ), false, sink );
+        }
+        assertEquals( 25, sink.events.size() );
+        for ( int i = 0; i < 100; i++ ) {
+            stage.process( event( "sampled", Severity.ERROR ), false, sink );
+        }
+        assertEquals( 125, sink.events.size() );
+    }
+
+    private static final class QueueingForwarder
+        extends LogForwarder {
+
+        QueueingForwarder( SyslogTcpForwarderSettings settings ) {
+            super( settings );
+        }
+
+        @Override
+        public void enqueue( SyslogMessage event ) {
+            super.enqueue( event );
+        }
+
+        @Override
+        protected void initializeConnection() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+
+        @Override
+        protected void sendMessage( SyslogMessage syslogMessage ) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.LmiLogEvent;
+import com.tibco.loglogic.logging.client.Acknowledgement;
+import com.tibco.loglogic.logging.client.LogLogicClient;
+import com.tibco.loglogic.logging.forwarders.relp.RelpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Tests for forwarding over RELP
+ */
+public class RelpForwarderTest {
+
+    private static RelpForwarderSettings settings( int port ) {
+        RelpForwarderSettings settings = new RelpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        settings.setSoTimeout( 5000 );
+        return settings;
+    }
+
+    private static List<LmiLogEvent> batch( int count ) {
+        List<LmiLogEvent> batch = new ArrayList<>();
+        for ( int i = 0; i < count; i++ ) {
+            batch.add( new LmiLogEvent( "Batch", "batch:" + i ) );
+        }
+        return batch;
+    }
+
+    private static int countReceived( MiniRelpServer server, int i ) {
+        int count = 0;
+        synchronized ( server.getMessages() ) {
+            for ( String message : server.getMessages() ) {
+                if ( message.contains( "batch:" + i + "\"" ) ) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testEventsAreAcknowledged()
+        throws Exception {
+        MiniRelpServer server = new MiniRelpServer();
+        RelpForwarderSettings settings = settings( server.getPort() );
+        settings.setWindowSize( 4 );
+        LogLogicClient client = LogLogicClient.relp( settings );
+
+        Acknowledgement acknowledgement = client.sendBatch( batch( 20 ), Severity.INFORMATIONAL );
+        acknowledgement.get( 5, TimeUnit.SECONDS );
+        assertEquals( 20, acknowledgement.getDeliveredCount() );
+        client.close();
+        server.shutdown();
+
+        assertEquals( 20, server.getMessages().size() );
+        for ( int i = 0; i < 20; i++ ) {
+            assertEquals( 1, countReceived( server, i ) );
+        }
+    }
+
+    @Test
+    public void testUnacknowledgedEventsAreSentAgain()
+        throws Exception {
+        MiniRelpServer server = new MiniRelpServer();
+        server.breakFirstConnection( 3, 3 );
+        LogLogicClient client = LogLogicClient.relp( settings( server.getPort() ) );
+
+        Acknowledgement acknowledgement = client.sendBatch( batch( 10 ), Severity.INFORMATIONAL );
+        acknowledgement.get( 10, TimeUnit.SECONDS );
+        assertEquals( 10, acknowledgement.getDeliveredCount() );
+        client.close();
+        server.shutdown();
+
+        for ( int i = 0; i < 10; i++ ) {
+            assertTrue( "lost #" + i, countReceived( server, i ) > 0 );
+        }
+        // received but not acknowledged, sent again
+        for ( int i = 3; i < 6; i++ ) {
+            assertEquals( 2, countReceived( server, i ) );
+        }
+        assertTrue( client.getMetrics().getEventsReplayed() >= 3 );
+        assertTrue( client.getMetrics().getReconnectAttempts() > 0 );
+    }
+
+    @Test
+    public void testNoEventIsLostWhenTheReplayFails()
+        throws Exception {
+        MiniRelpServer server = new MiniRelpServer();
+        server.breakFirstConnection( 0, 100 );
+        server.dropSecondConnection();
+        RelpForwarderSettings settings = settings( server.getPort() );
+        settings.setWindowSize( 100 );
+        LogLogicClient client = LogLogicClient.relp( settings );
+
+        // large enough for the replay to fail while writing, rather than when flushing at the end
+        char[] padding = new char[4096];
+        Arrays.fill( padding, 'x' );
+        List<LmiLogEvent> batch = batch( 100 );
+        for ( LmiLogEvent event : batch ) {
+            event.addKVP( "padding", new String( padding ) );
+        }
+        Acknowledgement acknowledgement = client.sendBatch( batch, Severity.INFORMATIONAL );
+        acknowledgement.get( 20, TimeUnit.SECONDS );
+        assertEquals( 100, acknowledgement.getDeliveredCount() );
+        client.close();
+        server.shutdown();
+
+        for ( int i = 0; i < 100; i++ ) {
+            assertTrue( "lost #" + i, countReceived( server, i ) > 0 );
+        }
+    }
+}
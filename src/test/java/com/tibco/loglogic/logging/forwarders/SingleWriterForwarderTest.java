@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SingleWriterForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+
+/**
+ * Tests for handing the events of several threads to a single writer
+ */
+public class SingleWriterForwarderTest {
+
+    private static final int THREADS = 8;
+
+    private static final int EVENTS_PER_THREAD = 500;
+
+    @Test
+    public void testConcurrentThreadsShareOneConnection()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( server.getPort() );
+        settings.setMaxQueueSize( 10 * 1024 * 1024 );
+
+        final SingleWriterForwarder forwarder = new SingleWriterForwarder( SyslogTcpForwarder.create( settings ) );
+        forwarder.connect();
+
+        Thread[] threads = new Thread[THREADS];
+        for ( int t = 0; t < THREADS; t++ ) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for ( int i = 0; i < EVENTS_PER_THREAD; i++ ) {
+                        SyslogMessage syslogMessage = new SyslogMessage();
+                        syslogMessage.setMessage( "thread " + thread + " event #" + i );
+                        forwarder.forwardEvent( syslogMessage, true );
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for ( Thread thread : threads ) {
+            thread.join();
+        }
+        forwarder.close();
+        server.awaitMessages( THREADS * EVENTS_PER_THREAD );
+
+        assertEquals( 1, server.getConnections().size() );
+        List<String> lines = server.getConnections().get( 0 );
+        assertEquals( THREADS * EVENTS_PER_THREAD, lines.size() );
+        // every line is a complete message, not interleaved with another one, and each thread's events are in order
+        Set<String> bodies = new HashSet<>();
+        int[] lastEvent = new int[THREADS];
+        Arrays.fill( lastEvent, -1 );
+        for ( String line : lines ) {
+            String body = line.substring( line.indexOf( "thread " ) );
+            bodies.add( body );
+            int thread = Integer.parseInt( body.substring( 7, body.indexOf( ' ', 7 ) ) );
+            int event = Integer.parseInt( body.substring( body.indexOf( '#' ) + 1 ) );
+            assertTrue( event > lastEvent[thread] );
+            lastEvent[thread] = event;
+        }
+        assertEquals( THREADS * EVENTS_PER_THREAD, bodies.size() );
+        assertEquals( 0, forwarder.getQueueDepth() );
+        assertEquals( THREADS * EVENTS_PER_THREAD, forwarder.getMetrics().getEventsSent() );
+    }
+
+    @Test
+    public void testStagedAndQueuedEventsShareOneBudget()
+        throws Exception {
+        ServerSocket reserved = new ServerSocket( 0 );
+        int deadPort = reserved.getLocalPort();
+        reserved.close();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( deadPort );
+        settings.setMaxQueueSize( 2048 );
+        LogForwarder wrapped = SyslogTcpForwarder.create( settings );
+        SingleWriterForwarder forwarder = new SingleWriterForwarder( wrapped );
+        forwarder.connectInBackground();
+
+        StringBuilder padding = new StringBuilder();
+        for ( int i = 0; i < 100; i++ ) {
+            padding.append( 'x' );
+        }
+        for ( int i = 0; i < 100; i++ ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( padding + " event #" + i );
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        // once the writer has moved the staged events to the queue of the wrapped forwarder
+        Thread.sleep( 200 );
+        assertTrue( forwarder.getQueueSizeInBytes() + wrapped.getQueueSizeInBytes() <= 2048 );
+        assertTrue( forwarder.getMetrics().getEventsDropped() > 0 );
+        forwarder.close();
+    }
+}
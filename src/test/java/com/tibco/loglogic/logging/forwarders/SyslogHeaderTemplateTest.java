@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogHeaderTemplate;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage.Severity;
+
+/**
+ * Tests for the precomputed syslog headers
+ */
+public class SyslogHeaderTemplateTest {
+
+    private static SyslogMessage message( Severity severity, String procId, String msgId ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setTimestamp( 1500000000123L );
+        syslogMessage.setSeverity( severity );
+        syslogMessage.setProcId( procId );
+        syslogMessage.setMsgId( msgId );
+        syslogMessage.setMessage( "the body" );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testSameOutputAsFieldByFieldFormatting() {
+        String[][] stamps = { { "host", "app" }, { null, "app" }, { "host", null }, { null, null } };
+        for ( String[] stamp : stamps ) {
+            SyslogHeaderTemplate template = new SyslogHeaderTemplate( stamp[0], 16, stamp[1] );
+            for ( Severity severity : Severity.values() ) {
+                for ( String procId : new String[] { null, "main" } ) {
+                    SyslogMessage expected = message( severity, procId, "42" );
+                    expected.setSource( stamp[0] );
+                    expected.setFacility( 16 );
+                    expected.setAppName( stamp[1] );
+
+                    SyslogMessage templated = message( severity, procId, "42" );
+                    templated.setHeaderTemplate( template );
+
+                    assertEquals( expected.toString(), templated.toString() );
+                    assertEquals( stamp[0], templated.getSource() );
+                    assertEquals( 16, templated.getFacility() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testModifyingAStampedFieldDropsTheTemplate() {
+        SyslogMessage syslogMessage = message( Severity.ERROR, null, null );
+        syslogMessage.setHeaderTemplate( new SyslogHeaderTemplate( "host", 1, "app" ) );
+        assertEquals( "<11>1 ", syslogMessage.toString().substring( 0, 6 ) );
+
+        syslogMessage.setAppName( "other" );
+        syslogMessage.setFacility( 2 );
+        String formatted = syslogMessage.toString();
+        assertEquals( "<19>1 ", formatted.substring( 0, 6 ) );
+        assertEquals( " host other - - - the body", formatted.substring( formatted.indexOf( ' ', 6 ) ) );
+    }
+}
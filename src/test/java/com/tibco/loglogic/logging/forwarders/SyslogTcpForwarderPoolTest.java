@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderPool;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings.PoolDistribution;
+
+/**
+ * Tests for the pool of syslog TCP connections
+ */
+public class SyslogTcpForwarderPoolTest {
+
+    @Test
+    public void testRoundRobinUsesAllConnections()
+        throws Exception {
+        MiniSyslogTcpMultiServer server = new MiniSyslogTcpMultiServer();
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( server.getPort() );
+        settings.setConnectionPoolSize( 3 );
+        settings.setConnectionPoolDistribution( "round_robin" );
+
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        assertTrue( forwarder instanceof SyslogTcpForwarderPool );
+        assertEquals( 3, ( (SyslogTcpForwarderPool) forwarder ).getPoolSize() );
+
+        forwarder.connect();
+        for ( int i = 0; i < 30; i++ ) {
+            SyslogMessage syslogMessage = new SyslogMessage();
+            syslogMessage.setMessage( "pooled message #" + i );
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+
+        server.awaitMessages( 30 );
+        forwarder.close();
+
+        assertEquals( 30, server.getMessageCount() );
+        assertEquals( 3, server.getConnections().size() );
+        for ( List<String> lines : server.getConnections() ) {
+            assertEquals( 10, lines.size() );
+        }
+    }
+
+    @Test
+    public void testSingleConnectionByDefault() {
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setConnectionPoolSize( 0 );
+        assertEquals( 1, settings.getConnectionPoolSize() );
+        assertEquals( PoolDistribution.THREAD_AFFINITY, settings.getConnectionPoolDistribution() );
+        assertTrue( SyslogTcpForwarder.create( settings ) instanceof SyslogTcpForwarder );
+    }
+}
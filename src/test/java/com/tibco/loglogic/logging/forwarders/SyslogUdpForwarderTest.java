@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogudp.SyslogUdpForwarderSettings;
+
+/**
+ * Tests for forwarding over syslog UDP
+ */
+public class SyslogUdpForwarderTest {
+
+    private static SyslogUdpForwarderSettings settings( int port ) {
+        SyslogUdpForwarderSettings settings = new SyslogUdpForwarderSettings();
+        settings.setHost( "localhost" );
+        settings.setPort( port );
+        return settings;
+    }
+
+    private static SyslogMessage message( String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        return syslogMessage;
+    }
+
+    @Test
+    public void testOneDatagramPerEvent()
+        throws Exception {
+        MiniSyslogUdpServer server = new MiniSyslogUdpServer();
+        SyslogUdpForwarder forwarder = new SyslogUdpForwarder( settings( server.getPort() ) );
+        forwarder.connect();
+        // sized from the MTU, less the IP and UDP headers
+        assertTrue( forwarder.getDatagramSize() > 0 && forwarder.getDatagramSize() <= 65507 );
+
+        for ( int i = 0; i < 100; i++ ) {
+            forwarder.forwardEvent( message( "event #" + i ), false );
+        }
+        forwarder.flush();
+        server.awaitMessages( 100 );
+        forwarder.close();
+        server.shutdown();
+
+        assertEquals( 100, server.getMessages().size() );
+        assertTrue( server.getMessages().get( 0 ).endsWith( "event #0" ) );
+        assertTrue( server.getMessages().get( 99 ).endsWith( "event #99" ) );
+        assertEquals( 0, forwarder.getMetrics().getEventsDropped() );
+    }
+
+    @Test
+    public void testLongMessagesAreTruncatedOnACharacterBoundary()
+        throws Exception {
+        MiniSyslogUdpServer server = new MiniSyslogUdpServer();
+        SyslogUdpForwarderSettings settings = settings( server.getPort() );
+        settings.setMaxDatagramSize( 200 );
+        SyslogUdpForwarder forwarder = new SyslogUdpForwarder( settings );
+        forwarder.connect();
+
+        StringBuilder text = new StringBuilder();
+        for ( int i = 0; i < 100; i++ ) {
+            // 3 bytes in UTF-8
+            text.append( '€' );
+        }
+        forwarder.forwardEvent( message( text.toString() ), true );
+        server.awaitMessages( 1 );
+        forwarder.close();
+        server.shutdown();
+
+        String received = server.getMessages().get( 0 );
+        int length = received.getBytes( StandardCharsets.UTF_8 ).length;
+        assertTrue( length <= 200 && length > 197 );
+        assertTrue( received.endsWith( "€" ) );
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenTheRingIsFull()
+        throws Exception {
+        MiniSyslogUdpServer server = new MiniSyslogUdpServer();
+        SyslogUdpForwarderSettings settings = settings( server.getPort() );
+        settings.setStagingRingSize( 4 );
+        SyslogUdpForwarder forwarder = new SyslogUdpForwarder( settings );
+        forwarder.connect();
+
+        // without flush, the sender is not woken up
+        for ( int i = 0; i < 10; i++ ) {
+            forwarder.forwardEvent( message( "event #" + i ), false );
+        }
+        forwarder.flush();
+        server.awaitMessages( 4 );
+        forwarder.close();
+        server.shutdown();
+
+        assertTrue( forwarder.getMetrics().getEventsDropped() > 0 );
+        assertEquals( 10, server.getMessages().size() + forwarder.getMetrics().getEventsDropped() );
+    }
+}
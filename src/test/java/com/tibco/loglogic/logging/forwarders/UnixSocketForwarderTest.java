@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017. TIBCO Software Inc.
+ * This file is subject to the license terms contained
+ * in the license file that is distributed with this file.
+ */
+package com.tibco.loglogic.logging.forwarders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.tibco.loglogic.logging.forwarders.shared.LogForwarder;
+import com.tibco.loglogic.logging.forwarders.shared.SyslogMessage;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarder;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.SyslogTcpForwarderSettings;
+import com.tibco.loglogic.logging.forwarders.syslogtcp.UnixSocketForwarder;
+
+/**
+ * Tests for forwarding to a local agent over a Unix domain socket
+ */
+public class UnixSocketForwarderTest {
+
+    private static void forward( LogForwarder forwarder, String text ) {
+        SyslogMessage syslogMessage = new SyslogMessage();
+        syslogMessage.setMessage( text );
+        forwarder.getLock().lock();
+        try {
+            forwarder.forwardEvent( syslogMessage, true );
+        }
+        finally {
+            forwarder.getLock().unlock();
+        }
+    }
+
+    @Test
+    public void testSendsOctetCountedFramesToTheAgent()
+        throws Exception {
+        Assume.assumeTrue( MiniSyslogUnixServer.isSupported() );
+        File directory = Files.createTempDirectory( "loglmi" ).toFile();
+        File socketFile = new File( directory, "agent.sock" );
+        MiniSyslogUnixServer server = new MiniSyslogUnixServer( socketFile );
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setUnixSocketPath( socketFile.getPath() );
+        // ignored in favor of the socket
+        settings.setHost( "unreachable.invalid" );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        assertTrue( forwarder instanceof UnixSocketForwarder );
+        forwarder.connect();
+
+        for ( int i = 0; i < 50; i++ ) {
+            forward( forwarder, "event #" + i );
+        }
+        server.awaitMessages( 50 );
+        forwarder.close();
+        server.shutdown();
+        directory.delete();
+
+        assertEquals( 50, server.getMessages().size() );
+        assertTrue( server.getMessages().get( 0 ).endsWith( "event #0" ) );
+        assertTrue( server.getMessages().get( 49 ).endsWith( "event #49" ) );
+    }
+
+    @Test
+    public void testConnectsInTheBackgroundOnceTheAgentIsUp()
+        throws Exception {
+        Assume.assumeTrue( MiniSyslogUnixServer.isSupported() );
+        File directory = Files.createTempDirectory( "loglmi" ).toFile();
+        File socketFile = new File( directory, "agent.sock" );
+
+        SyslogTcpForwarderSettings settings = new SyslogTcpForwarderSettings();
+        settings.setUnixSocketPath( socketFile.getPath() );
+        LogForwarder forwarder = SyslogTcpForwarder.create( settings );
+        forwarder.connectInBackground();
+        forward( forwarder, "queued until connected" );
+
+        MiniSyslogUnixServer server = new MiniSyslogUnixServer( socketFile );
+        server.awaitMessages( 1 );
+        forwarder.close();
+        server.shutdown();
+        directory.delete();
+
+        assertEquals( 1, server.getMessages().size() );
+        assertTrue( server.getMessages().get( 0 ).endsWith( "queued until connected" ) );
+    }
+}